@@ -79,9 +79,12 @@ android {
         debug {
 //            isTestCoverageEnabled = true
             signingConfig = signingConfigs["debug"]
+            buildConfigField("boolean", "LOG_DEBUG", "true")
         }
         release {
 //            isMinifyEnabled = true
+            // Strip the debug and verbose logging from release builds.
+            buildConfigField("boolean", "LOG_DEBUG", "false")
             proguardFile(getDefaultProguardFile("proguard-android.txt"))
             proguardFile("proguard-rules.pro")
             signingConfig = signingConfigs["release"]
@@ -151,6 +154,12 @@ android {
     testOptions {
         unitTests {
             isIncludeAndroidResources = true
+            all { test ->
+                // Benchmarks are only run when requested, e.g. with `-Pbenchmark`.
+                project.properties
+                    .filterKeys { it.startsWith("benchmark") }
+                    .forEach { (key, value) -> test.systemProperty(key, value?.toString() ?: "") }
+            }
         }
     }
 }
@@ -13,4 +13,13 @@
 
 -keep class org.gnucash.android.** {*;}
 -keep class com.dropbox.** {*;}
--keep class androidx.appcompat.widget.SearchView { *; }
\ No newline at end of file
+-keep class androidx.appcompat.widget.SearchView { *; }
+# Remove the debug and verbose logging calls.
+-assumenosideeffects class timber.log.Timber {
+    public static void v(...);
+    public static void d(...);
+}
+-assumevalues class org.gnucash.android.util.Logging {
+    public static boolean isVerbose() return false;
+    public static boolean isDebug() return false;
+}
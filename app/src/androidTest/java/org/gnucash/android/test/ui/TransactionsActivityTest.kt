@@ -1042,6 +1042,40 @@ class TransactionsActivityTest : GnuAndroidTest() {
         }
     }
 
+    /**
+     * An account with sub-accounts, whose only transaction is the template of a scheduled
+     * transaction, should open on its sub-accounts rather than on an empty list of transactions.
+     */
+    @Test
+    fun testAccountWithOnlyScheduledTransactionShouldShowSubAccounts() {
+        val parent = Account("Scheduled parent", COMMODITY)
+        accountsDbAdapter.addRecord(parent, DatabaseAdapter.UpdateMethod.insert)
+        val child = Account("Scheduled child", COMMODITY)
+        child.parentUID = parent.uid
+        accountsDbAdapter.addRecord(child, DatabaseAdapter.UpdateMethod.insert)
+
+        val template = Transaction("Rent")
+        template.commodity = COMMODITY
+        template.isTemplate = true
+        val split = Split(Money(TRANSACTION_AMOUNT, CURRENCY_CODE), parent.uid)
+        template.addSplit(split)
+        template.addSplit(split.createPair(TRANSFER_ACCOUNT_UID))
+        transactionsDbAdapter.addRecord(template, DatabaseAdapter.UpdateMethod.insert)
+        assertThat(transactionsDbAdapter.getTransactionsCount(parent.uid)).isZero()
+
+        transactionsActivity.finish()
+        val intent = Intent(Intent.ACTION_VIEW)
+            .putExtra(UxArgument.SELECTED_ACCOUNT_UID, parent.uid)
+        transactionsActivity = activityRule.launchActivity(intent)
+
+        onView(
+            allOf(
+                withId(android.R.id.list),
+                withTagValue(`is`("accounts"))
+            )
+        ).check(matches(isDisplayed()))
+    }
+
     companion object {
         private const val TRANSACTION_AMOUNT = "9.99"
         private const val TRANSACTION_NAME = "Pizza"
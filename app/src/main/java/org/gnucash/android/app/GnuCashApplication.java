@@ -23,7 +23,11 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Color;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.text.TextUtils;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -36,6 +40,7 @@ import org.gnucash.android.R;
 import org.gnucash.android.db.BookDbHelper;
 import org.gnucash.android.db.DatabaseHelper;
 import org.gnucash.android.db.DatabaseHolder;
+import org.gnucash.android.db.QueryStats;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.db.adapter.BooksDbAdapter;
 import org.gnucash.android.db.adapter.BudgetAmountsDbAdapter;
@@ -49,10 +54,13 @@ import org.gnucash.android.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.TransactionType;
 import org.gnucash.android.ui.settings.ThemeHelper;
+import org.gnucash.android.util.BookTaskRunner;
 import org.gnucash.android.util.CrashlyticsTree;
 import org.gnucash.android.util.LogTree;
+import org.gnucash.android.util.Logging;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Locale;
 
 import timber.log.Timber;
@@ -93,6 +101,10 @@ public class GnuCashApplication extends Application {
     private static BooksDbAdapter mBooksDbAdapter;
     @Nullable
     private static DatabaseHelper mDbHelper;
+    /**
+     * Whether the database adapters have been initialized, to open the active book on first use.
+     */
+    private static volatile boolean isDatabaseInitialized = false;
 
     /**
      * Returns darker version of specified <code>color</code>.
@@ -107,6 +119,8 @@ public class GnuCashApplication extends Application {
 
     @Override
     public void onCreate() {
+        final long start = SystemClock.elapsedRealtime();
+        Trace.beginSection("GnuCashApplication.onCreate");
         super.onCreate();
         final Context context = getApplicationContext();
         GnuCashApplication.context = context;
@@ -119,9 +133,22 @@ public class GnuCashApplication extends Application {
         // Logging
         Timber.Tree tree = (Timber.Tree) (BuildConfig.GOOGLE_GCM && isCrashlyticsEnabled() ? new CrashlyticsTree(BuildConfig.DEBUG) : new LogTree(BuildConfig.DEBUG));
         Timber.plant(tree);
+        Logging.setMinPriority(BuildConfig.DEBUG ? Log.VERBOSE : Log.INFO);
+        QueryStats.getInstance().setEnabled(PreferenceManager.getDefaultSharedPreferences(context)
+            .getBoolean(context.getString(R.string.key_enable_query_stats), false));
+
+        // Open the database in the background, so that it is probably ready by the time the
+        // first activity needs it. Otherwise, it is opened on first use.
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ensureDatabaseAdapters();
+                setDefaultCurrencyCode(getDefaultCurrencyCode());
+            }
+        }, "DatabaseInit").start();
 
-        initializeDatabaseAdapters(context);
-        setDefaultCurrencyCode(getDefaultCurrencyCode());
+        Trace.endSection();
+        Timber.i("Application created in %d ms", SystemClock.elapsedRealtime() - start);
     }
 
     @Override
@@ -130,19 +157,41 @@ public class GnuCashApplication extends Application {
         destroyDatabaseAdapters();
     }
 
+    /**
+     * Initialize the database adapters if they have not been initialized yet.
+     */
+    private static void ensureDatabaseAdapters() {
+        if (isDatabaseInitialized) return;
+        synchronized (GnuCashApplication.class) {
+            if (isDatabaseInitialized || (context == null)) return;
+            initializeDatabaseAdapters(context);
+        }
+    }
+
     /**
      * Initialize database adapter singletons for use in the application
      * This method should be called every time a new book is opened
      *
      * @param context the context.
      */
-    public static void initializeDatabaseAdapters(@NonNull Context context) {
+    public static synchronized void initializeDatabaseAdapters(@NonNull Context context) {
+        final long start = SystemClock.elapsedRealtime();
+        Trace.beginSection("initializeDatabaseAdapters");
         BookDbHelper bookDbHelper = new BookDbHelper(context);
         DatabaseHolder bookHolder = bookDbHelper.getHolder();
         mBooksDbAdapter = new BooksDbAdapter(bookHolder);
 
         if (mDbHelper != null) { //close if open
+            String closedBookUID = mDbHelper.getDatabaseName();
             mDbHelper.close();
+            // Counting the records of the book is too slow for the main thread, which switches books.
+            final BooksDbAdapter booksDbAdapter = mBooksDbAdapter;
+            BookTaskRunner.runInBackground(Collections.singletonList(closedBookUID), new BookTaskRunner.BookTask() {
+                @Override
+                public boolean run(@NonNull String bookUID, @NonNull CancellationSignal cancellationSignal) {
+                    return booksDbAdapter.refreshBookStats(bookUID);
+                }
+            });
         }
 
         String bookUID;
@@ -167,9 +216,13 @@ public class GnuCashApplication extends Application {
         mBudgetAmountsDbAdapter = new BudgetAmountsDbAdapter(dbHolder);
         mBudgetsDbAdapter = new BudgetsDbAdapter(mBudgetAmountsDbAdapter, mRecurrenceDbAdapter);
         Commodity.DEFAULT_COMMODITY = mCommoditiesDbAdapter.getDefaultCommodity();
+        isDatabaseInitialized = true;
+        Trace.endSection();
+        Timber.i("Database adapters initialized in %d ms", SystemClock.elapsedRealtime() - start);
     }
 
-    private static void destroyDatabaseAdapters() {
+    private static synchronized void destroyDatabaseAdapters() {
+        isDatabaseInitialized = false;
         if (mSplitsDbAdapter != null) {
             try {
                 mSplitsDbAdapter.close();
@@ -248,51 +301,61 @@ public class GnuCashApplication extends Application {
 
     @Nullable
     public static AccountsDbAdapter getAccountsDbAdapter() {
+        ensureDatabaseAdapters();
         return mAccountsDbAdapter;
     }
 
     @Nullable
     public static TransactionsDbAdapter getTransactionDbAdapter() {
+        ensureDatabaseAdapters();
         return mTransactionsDbAdapter;
     }
 
     @Nullable
     public static SplitsDbAdapter getSplitsDbAdapter() {
+        ensureDatabaseAdapters();
         return mSplitsDbAdapter;
     }
 
     @Nullable
     public static ScheduledActionDbAdapter getScheduledEventDbAdapter() {
+        ensureDatabaseAdapters();
         return mScheduledActionDbAdapter;
     }
 
     @Nullable
     public static CommoditiesDbAdapter getCommoditiesDbAdapter() {
+        ensureDatabaseAdapters();
         return mCommoditiesDbAdapter;
     }
 
     @Nullable
     public static PricesDbAdapter getPricesDbAdapter() {
+        ensureDatabaseAdapters();
         return mPricesDbAdapter;
     }
 
     @Nullable
     public static BudgetsDbAdapter getBudgetDbAdapter() {
+        ensureDatabaseAdapters();
         return mBudgetsDbAdapter;
     }
 
     @Nullable
     public static RecurrenceDbAdapter getRecurrenceDbAdapter() {
+        ensureDatabaseAdapters();
         return mRecurrenceDbAdapter;
     }
 
     @Nullable
     public static BudgetAmountsDbAdapter getBudgetAmountsDbAdapter() {
+        ensureDatabaseAdapters();
         return mBudgetAmountsDbAdapter;
     }
 
     @Nullable
     public static BooksDbAdapter getBooksDbAdapter() {
+        ensureDatabaseAdapters();
         return mBooksDbAdapter;
     }
 
@@ -309,6 +372,7 @@ public class GnuCashApplication extends Application {
      */
     @Nullable
     public static SQLiteDatabase getActiveDb() {
+        ensureDatabaseAdapters();
         return (mDbHelper != null) ? mDbHelper.getWritableDatabase() : null;
     }
 
@@ -27,6 +27,7 @@ import androidx.annotation.Nullable;
 
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.db.DatabaseSchema.BookEntry;
+import org.gnucash.android.db.DatabaseSchema.BookStatsEntry;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.db.adapter.BooksDbAdapter;
 import org.gnucash.android.db.adapter.CommoditiesDbAdapter;
@@ -60,6 +61,18 @@ public class BookDbHelper extends SQLiteOpenHelper {
         + ");"
         + DatabaseHelper.createUpdatedAtTrigger(BookEntry.TABLE_NAME);
 
+    /**
+     * Create the catalog of book statistics, so that the books can be listed without opening their databases
+     */
+    private static final String BOOK_STATS_TABLE_CREATE = "CREATE TABLE " + BookStatsEntry.TABLE_NAME + " ("
+        + BookStatsEntry.COLUMN_BOOK_UID + " varchar(255) primary key, "
+        + BookStatsEntry.COLUMN_ACCOUNT_COUNT + " integer not null default 0, "
+        + BookStatsEntry.COLUMN_TRANSACTION_COUNT + " integer not null default 0, "
+        + BookStatsEntry.COLUMN_SPLIT_COUNT + " integer not null default 0, "
+        + BookStatsEntry.COLUMN_DATABASE_SIZE + " integer not null default 0, "
+        + BookStatsEntry.COLUMN_LAST_MODIFIED + " integer not null default 0"
+        + ");";
+
     @NonNull
     private final Context context;
     @Nullable
@@ -82,6 +95,7 @@ public class BookDbHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(BOOKS_TABLE_CREATE);
+        db.execSQL(BOOK_STATS_TABLE_CREATE);
         Context context = GnuCashApplication.getAppContext();
         insertBlankBook(context, db);
     }
@@ -156,7 +170,10 @@ public class BookDbHelper extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        //nothing to see here yet, move along
+        if (oldVersion < 2) {
+            // The statistics are filled in the next time that the books are listed.
+            db.execSQL(BOOK_STATS_TABLE_CREATE);
+        }
     }
 
     public static String getBookUID(@NonNull SQLiteDatabase db) {
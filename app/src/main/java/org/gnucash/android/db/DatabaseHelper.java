@@ -22,11 +22,14 @@ import static org.gnucash.android.db.DatabaseSchema.BudgetAmountEntry;
 import static org.gnucash.android.db.DatabaseSchema.BudgetEntry;
 import static org.gnucash.android.db.DatabaseSchema.CommodityEntry;
 import static org.gnucash.android.db.DatabaseSchema.CommonColumns;
+import static org.gnucash.android.db.DatabaseSchema.DataStampEntry;
 import static org.gnucash.android.db.DatabaseSchema.PriceEntry;
 import static org.gnucash.android.db.DatabaseSchema.RecurrenceEntry;
 import static org.gnucash.android.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionSearchEntry;
 
 import android.content.Context;
 import android.database.Cursor;
@@ -36,6 +39,7 @@ import android.database.sqlite.SQLiteOpenHelper;
 
 import androidx.annotation.NonNull;
 
+import org.gnucash.android.db.adapter.TransactionSearchIndex;
 import org.gnucash.android.model.Commodity;
 import org.xml.sax.SAXException;
 
@@ -76,6 +80,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         + AccountEntry.COLUMN_CLEARED_BALANCE + " varchar(255), "
         + AccountEntry.COLUMN_NOCLOSING_BALANCE + " varchar(255), "
         + AccountEntry.COLUMN_RECONCILED_BALANCE + " varchar(255), "
+        + AccountEntry.COLUMN_TRANSACTION_COUNT + " integer, "
         + AccountEntry.COLUMN_TEMPLATE + " tinyint default 0, "
         + AccountEntry.COLUMN_CREATED_AT + " TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
         + AccountEntry.COLUMN_MODIFIED_AT + " TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
@@ -246,6 +251,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public DatabaseHelper(@NonNull Context context, String databaseName) {
         super(context, databaseName, null, DatabaseSchema.DATABASE_VERSION);
         this.context = context;
+        // Write-ahead logging lets the queries run on reader connections from the pool,
+        // in parallel with each other and with a write on the primary connection.
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
@@ -270,10 +278,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         createDatabaseTables(holder);
     }
 
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Applies to all the connections, and not only to the primary connection like a pragma would.
+        // It must be set here, because it cannot be changed once the schema is being created or upgraded.
+        db.setForeignKeyConstraintsEnabled(true);
+    }
+
     @Override
     public void onOpen(SQLiteDatabase db) {
         super.onOpen(db);
-        db.execSQL("PRAGMA foreign_keys=ON");
+        // Keep more of the parameterized queries compiled by each connection.
+        db.setMaxSqlCacheSize(SQLiteDatabase.MAX_SQL_CACHE_SIZE);
     }
 
     @Override
@@ -335,7 +352,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(createBudgetUidIndex);
         db.execSQL(createRecurrenceUidIndex);
         db.execSQL(createBudgetAmountUidIndex);
+        createTransactionTimestampIndex(db);
+        createSplitAccountIndex(db);
         createResetBalancesTriggers(db);
+        createResetTransactionCountTriggers(db);
+        createTransactionSearchTable(db);
+        createViews(db);
+        createTransactionInfoTable(db);
+        createDataStampTable(db);
 
         try {
             MigrationHelper.importCommodities(holder);
@@ -372,11 +396,23 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
     static void createResetBalancesTriggers(SQLiteDatabase db) {
+        // The triggers fire for each row, so only the first row of a bulk statement should write.
         String sqlReset = "UPDATE " + AccountEntry.TABLE_NAME + " SET "
             + AccountEntry.COLUMN_BALANCE + " = NULL, "
             + AccountEntry.COLUMN_CLEARED_BALANCE + " = NULL, "
             + AccountEntry.COLUMN_NOCLOSING_BALANCE + " = NULL, "
-            + AccountEntry.COLUMN_RECONCILED_BALANCE + " = NULL";
+            + AccountEntry.COLUMN_RECONCILED_BALANCE + " = NULL"
+            + " WHERE " + AccountEntry.COLUMN_BALANCE + " IS NOT NULL"
+            + " OR " + AccountEntry.COLUMN_CLEARED_BALANCE + " IS NOT NULL"
+            + " OR " + AccountEntry.COLUMN_NOCLOSING_BALANCE + " IS NOT NULL"
+            + " OR " + AccountEntry.COLUMN_RECONCILED_BALANCE + " IS NOT NULL";
+
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_delete_" + SplitEntry.TABLE_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_insert_" + SplitEntry.TABLE_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_update_" + SplitEntry.TABLE_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_delete_" + TransactionEntry.TABLE_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_delete_" + AccountEntry.TABLE_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS reset_balances_update_" + AccountEntry.TABLE_NAME);
 
         String sqlWhenDelete = "CREATE TRIGGER reset_balances_delete_" + SplitEntry.TABLE_NAME
             + " AFTER DELETE ON " + SplitEntry.TABLE_NAME
@@ -416,10 +452,259 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(sqlWhenUpdateAccount);
     }
 
+    /**
+     * Creates the view which combines the accounts, transactions and splits, as these are often
+     * used in the queries.
+     * <p>The view is part of the schema rather than temporary, so that it can be used by all
+     * the connections to the database, and not only by the one that created it.</p>
+     *
+     * @param db the database.
+     */
+    static void createViews(SQLiteDatabase db) {
+        //todo: would it be useful to add the split reconciled_state and reconciled_date to this view?
+        db.execSQL("CREATE VIEW IF NOT EXISTS trans_split_acct AS SELECT "
+            + TransactionEntry.TABLE_NAME + "." + CommonColumns.COLUMN_MODIFIED_AT + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + CommonColumns.COLUMN_MODIFIED_AT + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_DESCRIPTION + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_DESCRIPTION + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_NOTES + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_NOTES + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TIMESTAMP + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_EXPORTED + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_EXPORTED + ", "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + " AS "
+            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TEMPLATE + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ID + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_ID + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_UID + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_UID + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TYPE + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_NUM + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_NUM + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_DENOM + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_DENOM + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_NUM + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_DENOM + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM + ", "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_MEMO + " AS "
+            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_MEMO + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_NAME + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_NAME + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_COMMODITY_UID + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COMMODITY_UID + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PLACEHOLDER + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PLACEHOLDER + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_COLOR_CODE + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COLOR_CODE + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FAVORITE + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FAVORITE + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FULL_NAME + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FULL_NAME + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_TYPE + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_TYPE + ", "
+            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " AS "
+            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
+            + " FROM " + TransactionEntry.TABLE_NAME + ", " + SplitEntry.TABLE_NAME + " ON "
+            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + "=" + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID
+            + ", " + AccountEntry.TABLE_NAME + " ON "
+            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ACCOUNT_UID + "=" + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID
+        );
+    }
+
+    /**
+     * Creates the index for listing transactions by date, newest first, a page at a time.
+     *
+     * @param db the database.
+     */
+    static void createTransactionTimestampIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS '" + TransactionEntry.INDEX_TIMESTAMP + "' ON "
+            + TransactionEntry.TABLE_NAME + "(" + TransactionEntry.COLUMN_TIMESTAMP + ")");
+    }
+
+    /**
+     * Creates the index for counting the transactions of accounts, which covers the query
+     * so that the splits table itself is not read.
+     *
+     * @param db the database.
+     */
+    static void createSplitAccountIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS '" + SplitEntry.INDEX_ACCOUNT_UID + "' ON "
+            + SplitEntry.TABLE_NAME + "(" + SplitEntry.COLUMN_ACCOUNT_UID + ", " + SplitEntry.COLUMN_TRANSACTION_UID + ")");
+    }
+
+    /**
+     * Creates the triggers which clear the cached transaction counts of the accounts when the splits change.
+     *
+     * @param db the database.
+     */
+    static void createResetTransactionCountTriggers(SQLiteDatabase db) {
+        String sqlReset = "UPDATE " + AccountEntry.TABLE_NAME + " SET "
+            + AccountEntry.COLUMN_TRANSACTION_COUNT + " = NULL"
+            + " WHERE " + AccountEntry.COLUMN_TRANSACTION_COUNT + " IS NOT NULL";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS reset_transaction_count_delete_" + SplitEntry.TABLE_NAME
+            + " AFTER DELETE ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlReset + "; END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS reset_transaction_count_insert_" + SplitEntry.TABLE_NAME
+            + " AFTER INSERT ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlReset + "; END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS reset_transaction_count_update_" + SplitEntry.TABLE_NAME
+            + " AFTER UPDATE OF " + SplitEntry.COLUMN_ACCOUNT_UID + ", " + SplitEntry.COLUMN_TRANSACTION_UID
+            + " ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlReset + "; END;");
+        // Triggers are not activated by the cascade from the transactions to their splits.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS reset_transaction_count_delete_" + TransactionEntry.TABLE_NAME
+            + " AFTER DELETE ON " + TransactionEntry.TABLE_NAME
+            + " BEGIN " + sqlReset + "; END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS reset_transaction_count_update_" + TransactionEntry.TABLE_NAME
+            + " AFTER UPDATE OF " + TransactionEntry.COLUMN_TEMPLATE + " ON " + TransactionEntry.TABLE_NAME
+            + " BEGIN " + sqlReset + "; END;");
+    }
+
+    /**
+     * Creates the table of the aggregates of the splits of each transaction, with the triggers that
+     * keep it up to date, and fills it with the existing transactions.
+     *
+     * @param db the database.
+     */
+    static void createTransactionInfoTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TransactionInfoEntry.TABLE_NAME + " ("
+            + TransactionInfoEntry.COLUMN_TRANSACTION_UID + " varchar(255) PRIMARY KEY NOT NULL, "
+            + TransactionInfoEntry.COLUMN_ACCOUNT_UID + " varchar(255), "
+            + TransactionInfoEntry.COLUMN_BALANCE + " real, "
+            + TransactionInfoEntry.COLUMN_CURRENCY_COUNT + " integer, "
+            + TransactionInfoEntry.COLUMN_SPLIT_COUNT + " integer, "
+            + "FOREIGN KEY (" + TransactionInfoEntry.COLUMN_TRANSACTION_UID + ") REFERENCES "
+            + TransactionEntry.TABLE_NAME + " (" + TransactionEntry.COLUMN_UID + ") ON DELETE CASCADE);");
+        db.execSQL("CREATE INDEX IF NOT EXISTS '" + SplitEntry.INDEX_TRANSACTION_UID + "' ON "
+            + SplitEntry.TABLE_NAME + "(" + SplitEntry.COLUMN_TRANSACTION_UID + ")");
+
+        //the multiplication by 1.0 is to cause sqlite to handle the value as REAL and not to round off
+        // Joined with the transactions, so that nothing is inserted for a deleted transaction.
+        String sqlAggregate = "INSERT INTO " + TransactionInfoEntry.TABLE_NAME
+            + " SELECT s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + ", SUBSTR(MIN((CASE WHEN IFNULL(s." + SplitEntry.COLUMN_MEMO + ", '') == '' THEN 'a' ELSE 'b' END)"
+            + " || s." + SplitEntry.COLUMN_ACCOUNT_UID + "), 2)"
+            + ", TOTAL(CASE WHEN s." + SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN s." + SplitEntry.COLUMN_VALUE_NUM
+            + " ELSE -s." + SplitEntry.COLUMN_VALUE_NUM + " END) * 1.0 / s." + SplitEntry.COLUMN_VALUE_DENOM
+            + ", COUNT(DISTINCT a." + AccountEntry.COLUMN_COMMODITY_UID + ")"
+            + ", COUNT(*)"
+            + " FROM " + SplitEntry.TABLE_NAME + " s"
+            + " INNER JOIN " + TransactionEntry.TABLE_NAME + " t"
+            + " ON t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + " INNER JOIN " + AccountEntry.TABLE_NAME + " a"
+            + " ON a." + AccountEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_ACCOUNT_UID;
+        String sqlGroup = " GROUP BY s." + SplitEntry.COLUMN_TRANSACTION_UID;
+        String sqlRefreshOld = "DELETE FROM " + TransactionInfoEntry.TABLE_NAME
+            + " WHERE " + TransactionInfoEntry.COLUMN_TRANSACTION_UID + " = OLD." + SplitEntry.COLUMN_TRANSACTION_UID + "; "
+            + sqlAggregate + " WHERE s." + SplitEntry.COLUMN_TRANSACTION_UID + " = OLD." + SplitEntry.COLUMN_TRANSACTION_UID
+            + sqlGroup + ";";
+        String sqlRefreshNew = "DELETE FROM " + TransactionInfoEntry.TABLE_NAME
+            + " WHERE " + TransactionInfoEntry.COLUMN_TRANSACTION_UID + " = NEW." + SplitEntry.COLUMN_TRANSACTION_UID + "; "
+            + sqlAggregate + " WHERE s." + SplitEntry.COLUMN_TRANSACTION_UID + " = NEW." + SplitEntry.COLUMN_TRANSACTION_UID
+            + sqlGroup + ";";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS update_trans_info_insert_" + SplitEntry.TABLE_NAME
+            + " AFTER INSERT ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlRefreshNew + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS update_trans_info_delete_" + SplitEntry.TABLE_NAME
+            + " AFTER DELETE ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlRefreshOld + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS update_trans_info_update_" + SplitEntry.TABLE_NAME
+            + " AFTER UPDATE OF " + SplitEntry.COLUMN_TYPE + ", " + SplitEntry.COLUMN_VALUE_NUM + ", "
+            + SplitEntry.COLUMN_VALUE_DENOM + ", " + SplitEntry.COLUMN_MEMO + ", "
+            + SplitEntry.COLUMN_ACCOUNT_UID + ", " + SplitEntry.COLUMN_TRANSACTION_UID
+            + " ON " + SplitEntry.TABLE_NAME
+            + " BEGIN " + sqlRefreshOld + " " + sqlRefreshNew + " END;");
+        // The currency count depends on the commodities of the accounts.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS update_trans_info_update_" + AccountEntry.TABLE_NAME
+            + " AFTER UPDATE OF " + AccountEntry.COLUMN_COMMODITY_UID + " ON " + AccountEntry.TABLE_NAME
+            + " BEGIN "
+            + "DELETE FROM " + TransactionInfoEntry.TABLE_NAME + " WHERE " + TransactionInfoEntry.COLUMN_TRANSACTION_UID
+            + " IN (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID + " FROM " + SplitEntry.TABLE_NAME
+            + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = NEW." + AccountEntry.COLUMN_UID + "); "
+            + sqlAggregate + " WHERE s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + " IN (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID + " FROM " + SplitEntry.TABLE_NAME
+            + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = NEW." + AccountEntry.COLUMN_UID + ")"
+            + sqlGroup + "; END;");
+
+        db.execSQL("DELETE FROM " + TransactionInfoEntry.TABLE_NAME);
+        db.execSQL(sqlAggregate + sqlGroup);
+    }
+
+    /**
+     * Creates the table of the modification stamp of the book, with the triggers that increment it
+     * whenever the accounts, transactions, splits or prices change.
+     * <p>Only the columns which the reports read are watched on the accounts and the transactions,
+     * so that writing the cached balances and counts of the accounts does not change the stamp.</p>
+     *
+     * @param db the database.
+     */
+    static void createDataStampTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + DataStampEntry.TABLE_NAME + " ("
+            + DataStampEntry.COLUMN_VERSION + " integer NOT NULL)");
+        db.execSQL("INSERT INTO " + DataStampEntry.TABLE_NAME + " SELECT 0"
+            + " WHERE NOT EXISTS (SELECT * FROM " + DataStampEntry.TABLE_NAME + ")");
+
+        String sqlIncrement = "UPDATE " + DataStampEntry.TABLE_NAME + " SET "
+            + DataStampEntry.COLUMN_VERSION + " = " + DataStampEntry.COLUMN_VERSION + " + 1";
+        String[][] watchedColumns = {
+            {SplitEntry.TABLE_NAME, null},
+            {PriceEntry.TABLE_NAME, null},
+            {TransactionEntry.TABLE_NAME, TransactionEntry.COLUMN_TIMESTAMP + ", "
+                + TransactionEntry.COLUMN_TEMPLATE + ", " + TransactionEntry.COLUMN_COMMODITY_UID},
+            {AccountEntry.TABLE_NAME, AccountEntry.COLUMN_TYPE + ", " + AccountEntry.COLUMN_PLACEHOLDER + ", "
+                + AccountEntry.COLUMN_TEMPLATE + ", " + AccountEntry.COLUMN_FULL_NAME + ", "
+                + AccountEntry.COLUMN_COMMODITY_UID + ", " + AccountEntry.COLUMN_PARENT_ACCOUNT_UID}
+        };
+        for (String[] watched : watchedColumns) {
+            String tableName = watched[0];
+            String updateOf = (watched[1] != null) ? " OF " + watched[1] : "";
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS increment_data_stamp_insert_" + tableName
+                + " AFTER INSERT ON " + tableName
+                + " BEGIN " + sqlIncrement + "; END;");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS increment_data_stamp_delete_" + tableName
+                + " AFTER DELETE ON " + tableName
+                + " BEGIN " + sqlIncrement + "; END;");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS increment_data_stamp_update_" + tableName
+                + " AFTER UPDATE" + updateOf + " ON " + tableName
+                + " BEGIN " + sqlIncrement + "; END;");
+        }
+    }
+
+    /**
+     * Creates the full-text search index of the transactions, and fills it with the existing transactions.
+     * <p>FTS4 is used rather than FTS5, which is not available on all supported API levels.</p>
+     *
+     * @param db the database.
+     */
+    static void createTransactionSearchTable(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TransactionSearchEntry.TABLE_NAME + " USING fts4("
+            + TransactionSearchEntry.COLUMN_DESCRIPTION + ", "
+            + TransactionSearchEntry.COLUMN_NOTES + ", "
+            + TransactionSearchEntry.COLUMN_MEMOS + ", "
+            + TransactionSearchEntry.COLUMN_AMOUNTS + ")");
+        TransactionSearchIndex.rebuild(db);
+    }
+
     public DatabaseHolder getHolder() {
         return new DatabaseHolder(context, getWritableDatabase(), getDatabaseName());
     }
 
+    /**
+     * Returns a holder for reading the database.
+     * <p>The queries that are not inside a transaction run on a reader connection,
+     * so that a long read, such as an export, does not block the writes.</p>
+     */
     public DatabaseHolder getReadableHolder() {
         return new DatabaseHolder(context, getReadableDatabase(), getDatabaseName());
     }
@@ -34,13 +34,13 @@ public class DatabaseSchema {
     /**
      * Version number of database containing information about the books in the application
      */
-    public static final int BOOK_DATABASE_VERSION = 1;
+    public static final int BOOK_DATABASE_VERSION = 2;
 
     /**
      * Version number of database containing accounts and transactions info.
      * With any change to the database schema, this number must increase
      */
-    public static final int DATABASE_VERSION = 24;
+    public static final int DATABASE_VERSION = 31;
 
     //no instances are to be instantiated
     private DatabaseSchema() {
@@ -74,6 +74,32 @@ public class DatabaseSchema {
         public static final String COLUMN_LAST_SYNC = "last_export_time";
     }
 
+    /**
+     * Columns for the statistics of the books, which are stored in the books database
+     */
+    public static final class BookStatsEntry {
+        public static final String TABLE_NAME = "book_stats";
+
+        @Column(Cursor.FIELD_TYPE_STRING)
+        public static final String COLUMN_BOOK_UID = "book_uid";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_ACCOUNT_COUNT = "account_count";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_TRANSACTION_COUNT = "transaction_count";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_SPLIT_COUNT = "split_count";
+        /**
+         * Size of the database files, in bytes
+         */
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_DATABASE_SIZE = "db_size";
+        /**
+         * Last modified time of the database files, in milliseconds since the epoch
+         */
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_LAST_MODIFIED = "last_modified";
+    }
+
     /**
      * Columns for the account tables
      */
@@ -120,6 +146,8 @@ public class DatabaseSchema {
         public static final String COLUMN_CLEARED_BALANCE = "cleared_balance";
         @Column(Cursor.FIELD_TYPE_INTEGER)
         public static final String COLUMN_RECONCILED_BALANCE = "reconciled_balance";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_TRANSACTION_COUNT = "transaction_count";
 
         public static final String INDEX_UID = "account_uid_index";
     }
@@ -159,6 +187,7 @@ public class DatabaseSchema {
         public static final String COLUMN_SCHEDX_ACTION_UID = "scheduled_action_uid";
 
         public static final String INDEX_UID = "transaction_uid_index";
+        public static final String INDEX_TIMESTAMP = "transaction_timestamp_index";
     }
 
     /**
@@ -198,6 +227,65 @@ public class DatabaseSchema {
         public static final String COLUMN_SCHEDX_ACTION_ACCOUNT_UID = "sched_account_uid";
 
         public static final String INDEX_UID = "split_uid_index";
+        public static final String INDEX_ACCOUNT_UID = "split_account_uid_index";
+        public static final String INDEX_TRANSACTION_UID = "split_transaction_uid_index";
+    }
+
+    /**
+     * Columns for the aggregates of the splits of each transaction.
+     * <p>The rows are kept up to date by triggers on the splits, and are deleted with their transaction.
+     * Transactions without splits have no row.</p>
+     */
+    public static final class TransactionInfoEntry {
+
+        public static final String TABLE_NAME = "trans_extra_info";
+
+        @Column(Cursor.FIELD_TYPE_STRING)
+        public static final String COLUMN_TRANSACTION_UID = "trans_acct_t_uid";
+        /**
+         * The account of the first split without a memo, or else of the first split
+         */
+        @Column(Cursor.FIELD_TYPE_STRING)
+        public static final String COLUMN_ACCOUNT_UID = "trans_acct_a_uid";
+        @Column(Cursor.FIELD_TYPE_FLOAT)
+        public static final String COLUMN_BALANCE = "trans_acct_balance";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_CURRENCY_COUNT = "trans_currency_count";
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_SPLIT_COUNT = "trans_split_count";
+    }
+
+    /**
+     * Column schema for the full-text search index of the transactions.
+     * <p>The index is an FTS4 virtual table, whose {@code docid} is the {@code _id} of the transaction.</p>
+     */
+    public static final class TransactionSearchEntry {
+
+        public static final String TABLE_NAME = "transactions_fts";
+
+        public static final String COLUMN_DESCRIPTION = "description";
+        public static final String COLUMN_NOTES = "notes";
+        /**
+         * The memos of all the splits of the transaction
+         */
+        public static final String COLUMN_MEMOS = "memos";
+        /**
+         * The absolute values of all the splits of the transaction
+         */
+        public static final String COLUMN_AMOUNTS = "amounts";
+    }
+
+    /**
+     * Column schema for the modification stamp of the book.
+     * <p>The table has a single row, whose version is incremented by triggers whenever the accounts,
+     * transactions, splits or prices change, so that the data derived from them can be cached.</p>
+     */
+    public static final class DataStampEntry {
+
+        public static final String TABLE_NAME = "data_stamp";
+
+        @Column(Cursor.FIELD_TYPE_INTEGER)
+        public static final String COLUMN_VERSION = "version";
     }
 
     public static final class ScheduledActionEntry implements CommonColumns {
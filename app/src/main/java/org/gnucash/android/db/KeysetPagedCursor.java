@@ -0,0 +1,208 @@
+package org.gnucash.android.db;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cursor which fetches its rows in pages, as it is moved.
+ * <p>The rows must be ordered by a timestamp column and then by {@code _id}, both descending.
+ * Each page is fetched with keyset pagination, i.e. for the rows after the last row of the previous page,
+ * so fetching a page deep into the data set does not need to skip over all the rows before it.</p>
+ * <p>Only the most recently used pages are kept open, so the memory used is bounded no matter how
+ * many rows there are. Pages that were closed are fetched again when they are needed.</p>
+ */
+public class KeysetPagedCursor extends AbstractCursor {
+
+    /**
+     * Maximum number of pages to keep open
+     */
+    private static final int MAX_PAGES = 4;
+
+    /**
+     * Fetches a page of rows.
+     */
+    public interface PageFetcher {
+        /**
+         * Fetches the rows which come after the key, ordered by timestamp and then ID, both descending.
+         *
+         * @param timestamp timestamp of the last row of the previous page, or {@link Long#MAX_VALUE} for the first page
+         * @param id        record ID of the last row of the previous page, or {@link Long#MAX_VALUE} for the first page
+         * @param limit     maximum number of rows to fetch
+         * @return cursor to the rows
+         */
+        @NonNull
+        Cursor fetchPage(long timestamp, long id, int limit);
+    }
+
+    @NonNull
+    private final PageFetcher fetcher;
+    private final int count;
+    private final int pageSize;
+    @NonNull
+    private final String[] columnNames;
+    private final int timestampColumn;
+    private final int idColumn;
+    /**
+     * The key of the first row of each page, i.e. the key of the last row of the previous page.
+     * Keys are only known for the pages up to the last page which has been fetched.
+     */
+    private final List<long[]> pageKeys = new ArrayList<>();
+    /**
+     * The open pages, in least recently used order.
+     * <p>The current page is never closed, even when it is the least recently used, because its row
+     * is still read when a move fails.</p>
+     */
+    private final LinkedHashMap<Integer, Cursor> pages = new LinkedHashMap<Integer, Cursor>(MAX_PAGES + 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Cursor> eldest) {
+            if (size() <= MAX_PAGES) return false;
+            Iterator<Map.Entry<Integer, Cursor>> iterator = entrySet().iterator();
+            while (iterator.hasNext()) {
+                Cursor cursor = iterator.next().getValue();
+                if (cursor != page) {
+                    cursor.close();
+                    iterator.remove();
+                    break;
+                }
+            }
+            return false;
+        }
+    };
+    private Cursor page;
+
+    /**
+     * Creates the cursor, and fetches its first page.
+     *
+     * @param fetcher         fetches the pages
+     * @param count           total number of rows
+     * @param pageSize        number of rows per page
+     * @param timestampColumn name of the timestamp column, by which the rows are ordered
+     */
+    public KeysetPagedCursor(@NonNull PageFetcher fetcher, int count, int pageSize, @NonNull String timestampColumn) {
+        this.fetcher = fetcher;
+        this.count = count;
+        this.pageSize = pageSize;
+        pageKeys.add(new long[]{Long.MAX_VALUE, Long.MAX_VALUE});
+        page = fetchPage(0);
+        columnNames = page.getColumnNames();
+        this.timestampColumn = page.getColumnIndexOrThrow(timestampColumn);
+        this.idColumn = page.getColumnIndexOrThrow(DatabaseSchema.CommonColumns._ID);
+        recordNextPageKey(0, page);
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    @NonNull
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        int index = newPosition / pageSize;
+        Cursor cursor = getPage(index);
+        if (cursor == null) return false;
+        page = cursor;
+        return page.moveToPosition(newPosition % pageSize);
+    }
+
+    private Cursor getPage(int index) {
+        Cursor cursor = pages.get(index);
+        if (cursor != null) return cursor;
+        // The key of a page is only known once the page before it has been fetched.
+        while (pageKeys.size() <= index) {
+            int previous = pageKeys.size() - 1;
+            Cursor previousPage = pages.get(previous);
+            if (previousPage == null) {
+                previousPage = fetchPage(previous);
+            }
+            if (!recordNextPageKey(previous, previousPage)) {
+                // The data set has shrunk since it was counted.
+                return null;
+            }
+        }
+        return fetchPage(index);
+    }
+
+    @NonNull
+    private Cursor fetchPage(int index) {
+        long[] key = pageKeys.get(index);
+        Cursor cursor = fetcher.fetchPage(key[0], key[1], pageSize);
+        pages.put(index, cursor);
+        return cursor;
+    }
+
+    private boolean recordNextPageKey(int index, @NonNull Cursor cursor) {
+        if (index + 1 < pageKeys.size()) return true;
+        if ((cursor.getCount() < pageSize) || !cursor.moveToLast()) return false;
+        pageKeys.add(new long[]{cursor.getLong(timestampColumn), cursor.getLong(idColumn)});
+        return true;
+    }
+
+    @Override
+    public String getString(int column) {
+        return page.getString(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return page.getShort(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return page.getInt(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return page.getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return page.getFloat(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return page.getDouble(column);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return page.getBlob(column);
+    }
+
+    @Override
+    public int getType(int column) {
+        return page.getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return page.isNull(column);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Iterator<Cursor> iterator = pages.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().close();
+            iterator.remove();
+        }
+    }
+}
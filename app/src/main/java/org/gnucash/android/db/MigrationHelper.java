@@ -17,7 +17,14 @@
 package org.gnucash.android.db;
 
 import static android.database.DatabaseUtils.sqlEscapeString;
+import static org.gnucash.android.db.DatabaseHelper.createDataStampTable;
 import static org.gnucash.android.db.DatabaseHelper.createResetBalancesTriggers;
+import static org.gnucash.android.db.DatabaseHelper.createResetTransactionCountTriggers;
+import static org.gnucash.android.db.DatabaseHelper.createSplitAccountIndex;
+import static org.gnucash.android.db.DatabaseHelper.createTransactionInfoTable;
+import static org.gnucash.android.db.DatabaseHelper.createTransactionSearchTable;
+import static org.gnucash.android.db.DatabaseHelper.createTransactionTimestampIndex;
+import static org.gnucash.android.db.DatabaseHelper.createViews;
 import static org.gnucash.android.db.DatabaseHelper.hasTableColumn;
 import static org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import static org.gnucash.android.db.DatabaseSchema.BudgetAmountEntry;
@@ -25,6 +32,7 @@ import static org.gnucash.android.db.DatabaseSchema.CommodityEntry;
 import static org.gnucash.android.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry;
 
 import android.content.Context;
 import android.database.Cursor;
@@ -103,6 +111,27 @@ public class MigrationHelper {
         if (oldVersion < 24) {
             migrateTo24(db);
         }
+        if (oldVersion < 25) {
+            migrateTo25(db);
+        }
+        if (oldVersion < 26) {
+            migrateTo26(db);
+        }
+        if (oldVersion < 27) {
+            migrateTo27(db);
+        }
+        if (oldVersion < 28) {
+            migrateTo28(db);
+        }
+        if (oldVersion < 29) {
+            migrateTo29(db);
+        }
+        if (oldVersion < 30) {
+            migrateTo30(db);
+        }
+        if (oldVersion < 31) {
+            migrateTo31(db);
+        }
     }
 
     /**
@@ -301,4 +330,88 @@ public class MigrationHelper {
             db.execSQL(sqlAddSchedxActionAccount);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Upgrade the database to version 25.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo25(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 25");
+
+        createTransactionSearchTable(db);
+    }
+
+    /**
+     * Upgrade the database to version 26.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo26(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 26");
+
+        createTransactionTimestampIndex(db);
+    }
+
+    /**
+     * Upgrade the database to version 27.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo27(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 27");
+
+        createViews(db);
+    }
+
+    /**
+     * Upgrade the database to version 28.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo28(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 28");
+
+        createResetBalancesTriggers(db);
+    }
+
+    /**
+     * Upgrade the database to version 29.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo29(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 29");
+
+        if (!hasTableColumn(db, AccountEntry.TABLE_NAME, AccountEntry.COLUMN_TRANSACTION_COUNT)) {
+            String sqlAddTransactionCount = "ALTER TABLE " + AccountEntry.TABLE_NAME
+                + " ADD COLUMN " + AccountEntry.COLUMN_TRANSACTION_COUNT + " integer";
+            db.execSQL(sqlAddTransactionCount);
+        }
+        createSplitAccountIndex(db);
+        createResetTransactionCountTriggers(db);
+    }
+
+    /**
+     * Upgrade the database to version 30.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo30(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 30");
+
+        db.execSQL("DROP VIEW IF EXISTS " + TransactionInfoEntry.TABLE_NAME);
+        createTransactionInfoTable(db);
+    }
+
+    /**
+     * Upgrade the database to version 31.
+     *
+     * @param db the database.
+     */
+    private static void migrateTo31(@NonNull SQLiteDatabase db) {
+        Timber.i("Upgrading database to version 31");
+
+        createDataStampTable(db);
+    }
+}
@@ -0,0 +1,448 @@
+package org.gnucash.android.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.db.adapter.DatabaseAdapter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Records the latency of the database queries, grouped by the code that called them.
+ * <p>For every call site, this keeps a histogram of the latencies, the number of rows, and the time
+ * that the cursors were open. Queries slower than the threshold are kept together with their
+ * query plan. The bind arguments are not recorded, since they may contain the user's data.</p>
+ * <p>When disabled, the queries are passed straight to the database.</p>
+ */
+public final class QueryStats {
+
+    /**
+     * Default threshold for slow queries, in milliseconds.
+     */
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 100;
+
+    /**
+     * Maximum number of slow queries to keep.
+     */
+    private static final int MAX_SLOW_QUERIES = 50;
+
+    /**
+     * Upper bounds of the latency histogram buckets, in milliseconds.
+     * The last bucket holds all the slower queries.
+     */
+    private static final long[] BUCKET_MILLIS = {1, 4, 16, 64, 256, 1024};
+
+    private static final String REPORT_FOLDER = "diagnostics";
+
+    private static final QueryStats instance = new QueryStats();
+
+    private volatile boolean isEnabled;
+    private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_MILLIS);
+    private final ConcurrentMap<String, CallSite> callSites = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private QueryStats() {
+    }
+
+    @NonNull
+    public static QueryStats getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Starts or stops recording the queries. The recorded statistics are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    /**
+     * Sets the latency above which queries are recorded with their query plan.
+     *
+     * @param millis the threshold, in milliseconds
+     */
+    public void setSlowQueryThreshold(long millis) {
+        slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Discards the recorded statistics.
+     */
+    public void reset() {
+        callSites.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * Runs the query, and records its statistics if enabled.
+     *
+     * @see SQLiteDatabase#query(boolean, String, String[], String, String[], String, String, String, String)
+     */
+    @NonNull
+    public Cursor query(
+        @NonNull SQLiteDatabase db,
+        boolean distinct,
+        @NonNull String table,
+        @Nullable String[] columns,
+        @Nullable String selection,
+        @Nullable String[] selectionArgs,
+        @Nullable String groupBy,
+        @Nullable String having,
+        @Nullable String orderBy,
+        @Nullable String limit
+    ) {
+        if (!isEnabled) {
+            return db.query(distinct, table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
+        }
+        String sql = SQLiteQueryBuilder.buildQueryString(distinct, table, columns, selection, groupBy, having, orderBy, limit);
+        return record(db, sql, selectionArgs, null);
+    }
+
+    /**
+     * Runs the query, and records its statistics if enabled.
+     *
+     * @see SQLiteDatabase#rawQuery(String, String[])
+     */
+    @NonNull
+    public Cursor rawQuery(@NonNull SQLiteDatabase db, @NonNull String sql, @Nullable String[] selectionArgs) {
+        return rawQuery(db, sql, selectionArgs, null);
+    }
+
+    /**
+     * Runs the query, which can be cancelled, and records its statistics if enabled.
+     *
+     * @see SQLiteDatabase#rawQuery(String, String[], CancellationSignal)
+     */
+    @NonNull
+    public Cursor rawQuery(
+        @NonNull SQLiteDatabase db,
+        @NonNull String sql,
+        @Nullable String[] selectionArgs,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        if (!isEnabled) {
+            return db.rawQuery(sql, selectionArgs, cancellationSignal);
+        }
+        return record(db, sql, selectionArgs, cancellationSignal);
+    }
+
+    private Cursor record(
+        SQLiteDatabase db,
+        String sql,
+        @Nullable String[] selectionArgs,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        CallSite callSite = getCallSite(findCallSite());
+        long start = System.nanoTime();
+        Cursor cursor = db.rawQuery(sql, selectionArgs, cancellationSignal);
+        final int rows;
+        try {
+            // The query is only run when the cursor is first read.
+            rows = cursor.getCount();
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        callSite.addQuery(elapsed, rows);
+        if (elapsed >= slowQueryNanos) {
+            addSlowQuery(new SlowQuery(callSite.name, sql, explainQueryPlan(db, sql, selectionArgs), elapsed, rows));
+        }
+        return new InstrumentedCursor(cursor, callSite);
+    }
+
+    private CallSite getCallSite(String name) {
+        CallSite callSite = callSites.get(name);
+        if (callSite == null) {
+            callSite = new CallSite(name);
+            CallSite previous = callSites.putIfAbsent(name, callSite);
+            if (previous != null) {
+                callSite = previous;
+            }
+        }
+        return callSite;
+    }
+
+    /**
+     * Returns the method that asked for the query, skipping the query helpers.
+     */
+    private static String findCallSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            String methodName = element.getMethodName();
+            if (className.equals(QueryStats.class.getName())) continue;
+            if (className.equals(DatabaseAdapter.class.getName())
+                && (methodName.equals("query") || methodName.equals("rawQuery"))) continue;
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            return simpleName + "." + methodName + ":" + element.getLineNumber();
+        }
+        return "unknown";
+    }
+
+    @NonNull
+    static String explainQueryPlan(@NonNull SQLiteDatabase db, @NonNull String sql, @Nullable String[] selectionArgs) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, selectionArgs)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) plan.append('\n');
+                plan.append(cursor.getString(detailIndex));
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            Timber.w(e, "Cannot explain the query plan");
+            plan.append(e.getMessage());
+        }
+        return plan.toString();
+    }
+
+    private void addSlowQuery(SlowQuery slowQuery) {
+        Timber.w("Slow query (%d ms) in %s: %s", TimeUnit.NANOSECONDS.toMillis(slowQuery.nanos), slowQuery.callSite, slowQuery.sql);
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= MAX_SLOW_QUERIES) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(slowQuery);
+        }
+    }
+
+    /**
+     * Returns the statistics of the call sites, the slowest in total first.
+     */
+    @NonNull
+    public List<CallSite> getCallSites() {
+        List<CallSite> result = new ArrayList<>(callSites.values());
+        Collections.sort(result, new Comparator<CallSite>() {
+            @Override
+            public int compare(CallSite a, CallSite b) {
+                return Long.compare(b.getTotalNanos(), a.getTotalNanos());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the most recent slow queries, the latest first.
+     */
+    @NonNull
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> result;
+        synchronized (slowQueries) {
+            result = new ArrayList<>(slowQueries);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Writes the statistics as text, for bug reports.
+     */
+    public void dump(@NonNull Writer writer) throws IOException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        writer.write("Query statistics at " + dateFormat.format(new Date()) + "\n");
+        writer.write("Recording: " + isEnabled + ", slow query threshold: "
+            + TimeUnit.NANOSECONDS.toMillis(slowQueryNanos) + " ms\n\n");
+
+        StringBuilder header = new StringBuilder("calls\ttotal ms\tmean ms\tmax ms\trows\topen\tmean cursor ms");
+        for (long bucket : BUCKET_MILLIS) {
+            header.append("\t<").append(bucket).append(" ms");
+        }
+        header.append("\tslower\tcall site\n");
+        writer.write(header.toString());
+        for (CallSite callSite : getCallSites()) {
+            writer.write(callSite.toString());
+            writer.write('\n');
+        }
+
+        writer.write("\nSlow queries\n");
+        for (SlowQuery slowQuery : getSlowQueries()) {
+            writer.write("\n" + dateFormat.format(new Date(slowQuery.time)) + " "
+                + TimeUnit.NANOSECONDS.toMillis(slowQuery.nanos) + " ms, "
+                + slowQuery.rows + " rows, " + slowQuery.callSite + "\n");
+            writer.write(slowQuery.sql + "\n");
+            writer.write(slowQuery.plan + "\n");
+        }
+    }
+
+    /**
+     * Writes the statistics to a file in the cache folder, for sharing.
+     *
+     * @return the file
+     */
+    @NonNull
+    public File writeReport(@NonNull Context context) throws IOException {
+        File folder = new File(context.getCacheDir(), REPORT_FOLDER);
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Cannot create folder " + folder);
+        }
+        File file = new File(folder, "query_stats.txt");
+        try (Writer writer = new FileWriter(file)) {
+            dump(writer);
+        }
+        return file;
+    }
+
+    /**
+     * Statistics of the queries called from the same place in the code.
+     */
+    public static class CallSite {
+        @NonNull
+        public final String name;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long rows;
+        private final long[] histogram = new long[BUCKET_MILLIS.length + 1];
+        private int openCursors;
+        private long closedCursors;
+        private long cursorNanos;
+
+        CallSite(@NonNull String name) {
+            this.name = name;
+        }
+
+        synchronized void addQuery(long nanos, int rows) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.rows += rows;
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_MILLIS.length && millis >= BUCKET_MILLIS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+            openCursors++;
+        }
+
+        synchronized void addClosedCursor(long nanos) {
+            openCursors--;
+            closedCursors++;
+            cursorNanos += nanos;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public synchronized long getRows() {
+            return rows;
+        }
+
+        /**
+         * Returns the number of cursors which have not been closed yet.
+         */
+        public synchronized int getOpenCursors() {
+            return openCursors;
+        }
+
+        /**
+         * Returns the mean time that the closed cursors were open.
+         */
+        public synchronized long getMeanCursorNanos() {
+            return (closedCursors > 0) ? cursorNanos / closedCursors : 0;
+        }
+
+        @NonNull
+        @Override
+        public synchronized String toString() {
+            StringBuilder s = new StringBuilder()
+                .append(count)
+                .append('\t').append(TimeUnit.NANOSECONDS.toMillis(totalNanos))
+                .append('\t').append(String.format(Locale.US, "%.2f", totalNanos / 1e6 / Math.max(1, count)))
+                .append('\t').append(TimeUnit.NANOSECONDS.toMillis(maxNanos))
+                .append('\t').append(rows)
+                .append('\t').append(openCursors)
+                .append('\t').append(String.format(Locale.US, "%.2f", getMeanCursorNanos() / 1e6));
+            for (long bucketCount : histogram) {
+                s.append('\t').append(bucketCount);
+            }
+            return s.append('\t').append(name).toString();
+        }
+    }
+
+    /**
+     * A query that was slower than the threshold.
+     */
+    public static class SlowQuery {
+        @NonNull
+        public final String callSite;
+        @NonNull
+        public final String sql;
+        @NonNull
+        public final String plan;
+        public final long nanos;
+        public final int rows;
+        public final long time = System.currentTimeMillis();
+
+        SlowQuery(@NonNull String callSite, @NonNull String sql, @NonNull String plan, long nanos, int rows) {
+            this.callSite = callSite;
+            this.sql = sql;
+            this.plan = plan;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Cursor that records how long it was open.
+     */
+    private static class InstrumentedCursor extends CursorWrapper {
+        private final CallSite callSite;
+        private final long openedAt = System.nanoTime();
+        private boolean isRecorded;
+
+        InstrumentedCursor(Cursor cursor, CallSite callSite) {
+            super(cursor);
+            this.callSite = callSite;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            synchronized (this) {
+                if (isRecorded) return;
+                isRecorded = true;
+            }
+            callSite.addClosedCursor(System.nanoTime() - openedAt);
+        }
+    }
+}
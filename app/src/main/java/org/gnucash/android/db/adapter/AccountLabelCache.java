@@ -0,0 +1,188 @@
+package org.gnucash.android.db.adapter;
+
+import static org.gnucash.android.db.DatabaseSchema.AccountEntry;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.db.QueryStats;
+import org.gnucash.android.model.Account;
+import org.gnucash.android.model.AccountType;
+import org.gnucash.android.util.ColorExtKt;
+import org.gnucash.android.util.Logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import timber.log.Timber;
+
+/**
+ * In-memory cache of the labels of the accounts in a book, i.e. what is needed to display an
+ * account wherever it is referenced: its name, full name, color and type.
+ * <p>There is one cache per book. All the labels are loaded with a single query the first time
+ * that any label is requested, and discarded whenever the accounts are written to, e.g. renamed
+ * or moved, so that they are loaded again on the next request.</p>
+ */
+public class AccountLabelCache {
+
+    private static final String[] COLUMNS = new String[]{
+        AccountEntry.COLUMN_UID,
+        AccountEntry.COLUMN_PARENT_ACCOUNT_UID,
+        AccountEntry.COLUMN_NAME,
+        AccountEntry.COLUMN_FULL_NAME,
+        AccountEntry.COLUMN_COLOR_CODE,
+        AccountEntry.COLUMN_TYPE
+    };
+
+    private static final Map<String, AccountLabelCache> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Labels by account UID, or {@code null} when not loaded.
+     */
+    @Nullable
+    private Map<String, Label> labels = null;
+
+    /**
+     * Returns the cache for the book
+     *
+     * @param bookUID GUID of the book
+     * @return the labels cache
+     */
+    @NonNull
+    public static AccountLabelCache getInstance(@NonNull String bookUID) {
+        AccountLabelCache cache = instances.get(bookUID);
+        if (cache == null) {
+            cache = new AccountLabelCache();
+            AccountLabelCache previous = instances.putIfAbsent(bookUID, cache);
+            if (previous != null) {
+                cache = previous;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the label of the account.
+     *
+     * @param db         the database to read when the labels have not been loaded yet
+     * @param accountUID GUID of the account
+     * @return the label, or {@code null} if the account does not exist
+     */
+    @Nullable
+    public synchronized Label get(@NonNull SQLiteDatabase db, @Nullable String accountUID) {
+        if (TextUtils.isEmpty(accountUID)) return null;
+        if (labels == null) {
+            labels = load(db);
+        }
+        return labels.get(accountUID);
+    }
+
+    /**
+     * Discards all the labels.
+     */
+    public synchronized void invalidate() {
+        labels = null;
+    }
+
+    @NonNull
+    private static Map<String, Label> load(@NonNull SQLiteDatabase db) {
+        long start = System.nanoTime();
+        Map<String, Label> labels = new HashMap<>();
+        Map<String, String> parents = new HashMap<>();
+        Cursor cursor = QueryStats.getInstance().query(db, false, AccountEntry.TABLE_NAME, COLUMNS, null, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                String uid = cursor.getString(0);
+                String name = cursor.getString(2);
+                String fullName = cursor.getString(3);
+                Label label = new Label(
+                    uid,
+                    name,
+                    TextUtils.isEmpty(fullName) ? name : fullName,
+                    parseColor(cursor.getString(4)),
+                    AccountType.valueOf(cursor.getString(5))
+                );
+                labels.put(uid, label);
+                parents.put(uid, cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        // Accounts without their own color are displayed with the color of their nearest ancestor.
+        for (Label label : labels.values()) {
+            if (label.color != Account.DEFAULT_COLOR) continue;
+            String parentUID = parents.get(label.uid);
+            int depth = labels.size();
+            while (!TextUtils.isEmpty(parentUID) && (depth-- > 0)) {
+                Label parent = labels.get(parentUID);
+                if (parent == null) break;
+                if (parent.ownColor != Account.DEFAULT_COLOR) {
+                    label.color = parent.ownColor;
+                    break;
+                }
+                parentUID = parents.get(parentUID);
+            }
+        }
+        if (Logging.isVerbose()) {
+            Timber.v("Loaded %d account labels in %d ns", labels.size(), System.nanoTime() - start);
+        }
+        return labels;
+    }
+
+    @ColorInt
+    private static int parseColor(@Nullable String colorCode) {
+        if (TextUtils.isEmpty(colorCode) || ColorExtKt.NotSet.equals(colorCode)) {
+            return Account.DEFAULT_COLOR;
+        }
+        Integer color = ColorExtKt.parseColor(colorCode);
+        return (color != null) ? color : Account.DEFAULT_COLOR;
+    }
+
+    /**
+     * The label of an account.
+     */
+    public static class Label {
+        @NonNull
+        public final String uid;
+        @NonNull
+        public final String name;
+        /**
+         * Fully qualified name, with the parent hierarchy.
+         */
+        @NonNull
+        public final String fullName;
+        @NonNull
+        public final AccountType type;
+        @ColorInt
+        private final int ownColor;
+        @ColorInt
+        private int color;
+
+        Label(@NonNull String uid, @NonNull String name, @NonNull String fullName, @ColorInt int color, @NonNull AccountType type) {
+            this.uid = uid;
+            this.name = name;
+            this.fullName = fullName;
+            this.ownColor = color;
+            this.color = color;
+            this.type = type;
+        }
+
+        /**
+         * Returns the color to display the account with, which is inherited from its ancestors
+         * when the account has no color of its own.
+         *
+         * @return the color, or {@link Account#DEFAULT_COLOR} if neither the account nor its ancestors have one.
+         */
+        @ColorInt
+        public int getColor() {
+            return color;
+        }
+    }
+}
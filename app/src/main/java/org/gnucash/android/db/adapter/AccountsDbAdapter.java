@@ -28,6 +28,8 @@ import static org.gnucash.android.db.DatabaseSchema.RecurrenceEntry;
 import static org.gnucash.android.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionSearchEntry;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -35,6 +37,7 @@ import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 
 import androidx.annotation.ColorInt;
@@ -49,16 +52,19 @@ import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
 import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
+import org.gnucash.android.model.MoneySum;
 import org.gnucash.android.model.Price;
 import org.gnucash.android.model.Split;
 import org.gnucash.android.model.Transaction;
 import org.gnucash.android.model.TransactionType;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -67,6 +73,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import kotlin.jvm.functions.Function0;
 import timber.log.Timber;
 
 /**
@@ -108,6 +115,13 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     @NonNull
     final PricesDbAdapter pricesDbAdapter;
 
+    @NonNull
+    private final AccountLabelCache labels;
+    /**
+     * Whether the labels must be discarded again when the current database transaction ends.
+     */
+    private volatile boolean isLabelsInvalidatedOnEnd = false;
+
     @Nullable
     private String rootUID = null;
 
@@ -142,6 +156,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         this.transactionsDbAdapter = transactionsDbAdapter;
         this.commoditiesDbAdapter = transactionsDbAdapter.commoditiesDbAdapter;
         this.pricesDbAdapter = pricesDbAdapter;
+        this.labels = AccountLabelCache.getInstance(holder.name);
     }
 
     /**
@@ -181,16 +196,27 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     @Override
     public void addRecord(@NonNull Account account, UpdateMethod updateMethod) throws SQLException {
-        Timber.d("Replace account to db");
+        if (Logging.isDebug()) {
+            Timber.d("Replace account to db");
+        }
         if (account.isRoot() && !account.isTemplate()) {
             rootUID = account.getUID();
         }
+        // Replacing the account deletes its splits, so load the transactions to save them again.
+        // Updating the account keeps its splits, so transactions that were never read are skipped.
+        final List<Transaction> transactions;
+        if (account.isRoot() || ((updateMethod == UpdateMethod.update) && !account.isTransactionsLoaded())) {
+            transactions = Collections.emptyList();
+        } else {
+            transactions = account.getTransactions();
+        }
         //in-case the account already existed, we want to update the templates based on it as well
         super.addRecord(account, updateMethod);
+        invalidateLabels();
         //now add transactions if there are any
         // NB! Beware of transactions that reference accounts not yet in the db,
         if (!account.isRoot()) {
-            for (Transaction t : account.getTransactions()) {
+            for (Transaction t : transactions) {
                 t.setCommodity(account.getCommodity());
                 transactionsDbAdapter.addRecord(t, updateMethod);
             }
@@ -221,10 +247,14 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         //// TODO: 20.04.2016 Investigate if we can safely remove updating the transactions when bulk updating accounts
         List<Transaction> transactionList = new ArrayList<>(accountList.size() * 2);
         for (Account account : accountList) {
-            transactionList.addAll(account.getTransactions());
+            // Updating the account keeps its splits, so transactions that were never read are skipped.
+            if ((updateMethod != UpdateMethod.update) || account.isTransactionsLoaded()) {
+                transactionList.addAll(account.getTransactions());
+            }
             transactionList.addAll(transactionsDbAdapter.getScheduledTransactionsForAccount(account.getUID()));
         }
         long nRow = super.bulkAddRecords(accountList, updateMethod);
+        invalidateLabels();
 
         if (nRow > 0 && !transactionList.isEmpty()) {
             transactionsDbAdapter.bulkAddRecords(transactionList, updateMethod);
@@ -316,7 +346,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         } else {
             contentValues.put(columnKey, newValue);
         }
-        return mDb.update(AccountEntry.TABLE_NAME, contentValues, null, null);
+        int count = mDb.update(AccountEntry.TABLE_NAME, contentValues, null, null);
+        invalidateLabels();
+        return count;
     }
 
     /**
@@ -328,7 +360,23 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return Number of records affected
      */
     public int updateAccount(long accountId, String columnKey, String newValue) {
-        return updateRecord(mTableName, accountId, columnKey, newValue);
+        int count = updateRecord(mTableName, accountId, columnKey, newValue);
+        invalidateLabels();
+        return count;
+    }
+
+    @Override
+    public int updateRecord(@NonNull String uid, @NonNull ContentValues contentValues) {
+        int count = super.updateRecord(uid, contentValues);
+        invalidateLabels();
+        return count;
+    }
+
+    @Override
+    public int updateRecords(String where, String[] whereArgs, @NonNull String columnKey, String newValue) {
+        int count = super.updateRecords(where, whereArgs, columnKey, newValue);
+        invalidateLabels();
+        return count;
     }
 
     /**
@@ -340,49 +388,40 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     public void reassignDescendantAccounts(@NonNull String parentAccountUID, @NonNull String newParentAccountUID) {
         if (isCached) cache.clear();
-        List<String> descendantAccountUIDs = getDescendantAccountUIDs(parentAccountUID, null, null);
-        if (descendantAccountUIDs.isEmpty()) return;
-        List<Account> descendantAccounts = getSimpleAccounts(
-            AccountEntry.COLUMN_UID + " IN ('" + TextUtils.join("','", descendantAccountUIDs) + "')",
-            null,
-            null
-        );
-        Map<String, Account> accountsByUID = new HashMap<>();
-        for (Account account : descendantAccounts) {
-            accountsByUID.put(account.getUID(), account);
-        }
-        String parentAccountFullName;
+        String fullNamePrefix;
         if (getAccountType(newParentAccountUID) == AccountType.ROOT) {
-            parentAccountFullName = "";
+            fullNamePrefix = "";
         } else {
-            parentAccountFullName = getAccountFullName(newParentAccountUID);
+            fullNamePrefix = getAccountFullName(newParentAccountUID) + ACCOUNT_NAME_SEPARATOR;
         }
-        ContentValues contentValues = new ContentValues();
-        for (Account account : descendantAccounts) {
-            contentValues.clear();
-
-            if (parentAccountUID.equals(account.getParentUID())) {
-                // direct descendant
-                account.setParentUID(newParentAccountUID);
-                if (TextUtils.isEmpty(parentAccountFullName)) {
-                    account.setFullName(account.getName());
-                } else {
-                    account.setFullName(parentAccountFullName + ACCOUNT_NAME_SEPARATOR + account.getName());
-                }
-                contentValues.put(AccountEntry.COLUMN_PARENT_ACCOUNT_UID, newParentAccountUID);
-            } else {
-                // indirect descendant
-                Account parentAccount = accountsByUID.get(account.getParentUID());
-                account.setFullName(parentAccount.getFullName() + ACCOUNT_NAME_SEPARATOR + account.getName());
-            }
-            // update DB
-            contentValues.put(AccountEntry.COLUMN_FULL_NAME, account.getFullName());
-            mDb.update(
-                mTableName,
-                contentValues,
-                AccountEntry.COLUMN_UID + " = ?",
-                new String[]{account.getUID()}
-            );
+        // The new full names of all the descendants, computed from their names in one recursive query.
+        String sqlDescendants = "WITH RECURSIVE descendants(uid, full_name) AS ("
+            + "SELECT " + AccountEntry.COLUMN_UID + ", ? || " + AccountEntry.COLUMN_NAME
+            + " FROM " + mTableName + " WHERE " + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?"
+            + " UNION ALL SELECT a." + AccountEntry.COLUMN_UID
+            + ", d.full_name || '" + ACCOUNT_NAME_SEPARATOR + "' || a." + AccountEntry.COLUMN_NAME
+            + " FROM " + mTableName + " a INNER JOIN descendants d"
+            + " ON a." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = d.uid)"
+            + " INSERT INTO " + TEMP_UIDS_TABLE + " (" + AccountEntry.COLUMN_UID + ", " + TEMP_COLUMN_VALUE + ")"
+            + " SELECT uid, full_name FROM descendants";
+        String sqlFullNames = "UPDATE " + mTableName + " SET " + AccountEntry.COLUMN_FULL_NAME
+            + " = (SELECT " + TEMP_COLUMN_VALUE + " FROM " + TEMP_UIDS_TABLE + " d"
+            + " WHERE d." + AccountEntry.COLUMN_UID + " = " + mTableName + "." + AccountEntry.COLUMN_UID + ")"
+            + " WHERE " + AccountEntry.COLUMN_UID + " IN (SELECT " + AccountEntry.COLUMN_UID + " FROM " + TEMP_UIDS_TABLE + ")";
+
+        beginTransaction();
+        try {
+            clearTempUIDs();
+            mDb.execSQL(sqlDescendants, new Object[]{fullNamePrefix, parentAccountUID});
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(AccountEntry.COLUMN_PARENT_ACCOUNT_UID, newParentAccountUID);
+            mDb.update(mTableName, contentValues,
+                AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?", new String[]{parentAccountUID});
+            mDb.execSQL(sqlFullNames);
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+            invalidateLabels();
         }
     }
 
@@ -407,25 +446,26 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
             return false;
         }
 
-        Timber.d("Delete account with rowId with its transactions and sub-accounts: %s", accountUID);
+        if (Logging.isDebug()) {
+            Timber.d("Delete account with rowId with its transactions and sub-accounts: %s", accountUID);
+        }
         if (isCached) cache.clear();
 
-        List<String> descendantAccountUIDs = getDescendantAccountUIDs(accountUID, null, null);
+        // The account and all its descendants, found with one recursive query.
+        String sqlDescendants = "WITH RECURSIVE descendants(uid) AS (SELECT ?"
+            + " UNION SELECT a." + AccountEntry.COLUMN_UID + " FROM " + mTableName + " a"
+            + " INNER JOIN descendants d ON a." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = d.uid)"
+            + " INSERT INTO " + TEMP_UIDS_TABLE + " (" + AccountEntry.COLUMN_UID + ")"
+            + " SELECT uid FROM descendants";
+        String inDescendants = " IN (SELECT " + AccountEntry.COLUMN_UID + " FROM " + TEMP_UIDS_TABLE + ")";
         try {
             beginTransaction();
-            descendantAccountUIDs.add(accountUID); //add account to descendants list just for convenience
-            for (String descendantAccountUID : descendantAccountUIDs) {
-                transactionsDbAdapter.deleteTransactionsForAccount(descendantAccountUID);
-            }
-
-            String accountUIDList = "'" + TextUtils.join("','", descendantAccountUIDs) + "'";
+            clearTempUIDs();
+            mDb.execSQL(sqlDescendants, new Object[]{accountUID});
+            transactionsDbAdapter.deleteTransactionsForTempAccounts();
 
             // delete accounts
-            long deletedCount = mDb.delete(
-                mTableName,
-                AccountEntry.COLUMN_UID + " IN (" + accountUIDList + ")",
-                null
-            );
+            long deletedCount = mDb.delete(mTableName, AccountEntry.COLUMN_UID + inDescendants, null);
 
             //if we delete some accounts, reset the default transfer account to NULL
             //there is also a database trigger from db version > 12
@@ -433,19 +473,20 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 ContentValues contentValues = new ContentValues();
                 contentValues.putNull(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID);
                 mDb.update(mTableName, contentValues,
-                    AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " IN (" + accountUIDList + ")",
-                    null);
+                    AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + inDescendants, null);
             }
 
             setTransactionSuccessful();
             return true;
         } finally {
             endTransaction();
+            invalidateLabels();
         }
     }
 
     /**
-     * Builds an account instance with the provided cursor and loads its corresponding transactions.
+     * Builds an account instance with the provided cursor.
+     * <p>The transactions of the account are only loaded when they are first read.</p>
      *
      * @param c Cursor pointing to account record in database
      * @return {@link Account} object constructed from database record
@@ -453,7 +494,13 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     @Override
     public Account buildModelInstance(@NonNull final Cursor c) {
         Account account = buildSimpleAccountInstance(c);
-        account.setTransactions(transactionsDbAdapter.getAllTransactionsForAccount(account.getUID()));
+        final String accountUID = account.getUID();
+        account.setTransactionsLoader(new Function0<List<Transaction>>() {
+            @Override
+            public List<Transaction> invoke() {
+                return transactionsDbAdapter.getAllTransactionsForAccount(accountUID);
+            }
+        });
         return account;
     }
 
@@ -507,7 +554,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
             Account account = cache.get(uid);
             if (account != null) return account.getParentUID();
         }
-        Cursor cursor = mDb.query(
+        Cursor cursor = query(
             mTableName,
             new String[]{AccountEntry.COLUMN_PARENT_ACCOUNT_UID},
             AccountEntry.COLUMN_UID + " = ?",
@@ -592,26 +639,19 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
 
     /**
      * Returns a list of accounts which have transactions that have not been exported yet
+     * <p>The accounts are returned without their transactions, so that exporters can read them one at a time.</p>
      *
      * @param lastExportTimeStamp Timestamp after which to any transactions created/modified should be exported
      * @return List of {@link Account}s with unexported transactions
      */
     public List<Account> getExportableAccounts(Timestamp lastExportTimeStamp) {
-        Cursor cursor = mDb.query(
-            TransactionEntry.TABLE_NAME + ", " + SplitEntry.TABLE_NAME +
-                " ON " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " = " +
-                SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID + ", " +
-                AccountEntry.TABLE_NAME + " ON " + AccountEntry.TABLE_NAME + "." +
-                AccountEntry.COLUMN_UID + " = " + SplitEntry.TABLE_NAME + "." +
-                SplitEntry.COLUMN_ACCOUNT_UID,
-            new String[]{AccountEntry.TABLE_NAME + ".*"},
-            TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_MODIFIED_AT + " > ?",
-            new String[]{TimestampHelper.getUtcStringFromTimestamp(lastExportTimeStamp)},
-            AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID,
-            null,
-            null
-        );
-        return getRecords(cursor);
+        String where = AccountEntry.COLUMN_UID + " IN (SELECT s." + SplitEntry.COLUMN_ACCOUNT_UID
+            + " FROM " + SplitEntry.TABLE_NAME + " s"
+            + " INNER JOIN " + TransactionEntry.TABLE_NAME + " t ON"
+            + " t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + " WHERE t." + TransactionEntry.COLUMN_MODIFIED_AT + " > ?)";
+        String[] whereArgs = new String[]{TimestampHelper.getUtcStringFromTimestamp(lastExportTimeStamp)};
+        return getSimpleAccounts(where, whereArgs, AccountEntry.COLUMN_UID);
     }
 
     /**
@@ -728,7 +768,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 }
             }
         }
-        Cursor c = mDb.query(AccountEntry.TABLE_NAME, new String[]{AccountEntry.COLUMN_UID},
+        Cursor c = query(AccountEntry.TABLE_NAME, new String[]{AccountEntry.COLUMN_UID},
             AccountEntry.COLUMN_FULL_NAME + "= ?", new String[]{fullName},
             null, null, null, "1");
         try {
@@ -750,7 +790,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     @Override
     public Cursor fetchAllRecords() {
-        Timber.v("Fetching all accounts from db");
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching all accounts from db");
+        }
         String where = AccountEntry.COLUMN_HIDDEN + " = 0 AND " + AccountEntry.COLUMN_TYPE + " != ?";
         String[] whereArgs = new String[]{AccountType.ROOT.name()};
         String orderBy = AccountEntry.COLUMN_NAME + " ASC";
@@ -904,7 +946,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
 
     @NonNull
     private Money computeBalance(@NonNull Account account, long startTimestamp, long endTimestamp, boolean includeSubAccounts) {
-        Timber.d("Computing account balance for [%s]", account);
+        if (Logging.isDebug()) {
+            Timber.d("Computing account balance for [%s]", account);
+        }
         String accountUID = account.getUID();
         String[] columns = new String[]{AccountEntry.COLUMN_BALANCE};
         String selection = AccountEntry.COLUMN_UID + "=?";
@@ -913,7 +957,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         // Is the value cached?
         boolean useCachedValue = (startTimestamp == ALWAYS) && (endTimestamp == ALWAYS);
         if (useCachedValue) {
-            Cursor cursor = mDb.query(mTableName, columns, selection, selectionArgs, null, null, null);
+            Cursor cursor = query(mTableName, columns, selection, selectionArgs, null, null, null);
             try {
                 if (cursor.moveToFirst()) {
                     BigDecimal amount = getBigDecimal(cursor, 0);
@@ -931,7 +975,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         if (includeSubAccounts) {
             Commodity commodity = account.getCommodity();
             List<String> children = getChildren(accountUID);
-            Timber.d("compute account children : %d", children.size());
+            if (Logging.isDebug()) {
+                Timber.d("compute account children : %d", children.size());
+            }
             for (String childUID : children) {
                 Account child = getSimpleRecord(childUID);
                 final Commodity childCommodity = child.getCommodity();
@@ -1005,7 +1051,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return Money balance of account list
      */
     public Money getAccountsBalance(@NonNull List<Account> accounts, Commodity currency, long startTimestamp, long endTimestamp) {
-        Money balance = Money.createZeroInstance(currency);
+        MoneySum balance = new MoneySum(currency);
         if ((startTimestamp == ALWAYS) && (endTimestamp == ALWAYS)) { // Use cached balances.
             for (Account account : accounts) {
                 Money accountBalance = getAccountBalance(account, startTimestamp, endTimestamp, false);
@@ -1013,7 +1059,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 Price price = pricesDbAdapter.getPrice(accountBalance.getCommodity(), currency);
                 if (price == null) continue;
                 accountBalance = accountBalance.times(price);
-                balance = balance.plus(accountBalance);
+                balance.add(accountBalance);
             }
         } else {
             Map<String, Money> balances = getAccountsBalances(accounts, startTimestamp, endTimestamp);
@@ -1023,9 +1069,228 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 Price price = pricesDbAdapter.getPrice(accountBalance.getCommodity(), currency);
                 if (price == null) continue;
                 accountBalance = accountBalance.times(price);
-                balance = balance.plus(accountBalance);
+                balance.add(accountBalance);
+            }
+        }
+        return balance.toMoney();
+    }
+
+    /**
+     * Returns the balances of all the accounts, including their sub-accounts, for all time.
+     * <p>Unlike calling {@link #getAccountBalance(String)} for each account, the balances of the
+     * splits are summed in one query for all accounts, and then rolled up from the sub-accounts
+     * into their parents in a single pass over the account tree. The balances are also cached
+     * for the next read, like {@link #getAccountBalance(String)} does.</p>
+     *
+     * @return map of account UID to balance, in the account's commodity
+     */
+    @NonNull
+    public Map<String, Money> getAllAccountBalances() {
+        long start = System.nanoTime();
+        Map<String, Commodity> commodities = new HashMap<>();
+        Map<String, AccountType> types = new HashMap<>();
+        Map<String, List<String>> children = new HashMap<>();
+        Map<String, Money> balances = new HashMap<>();
+        List<String> roots = new ArrayList<>();
+
+        boolean isCached = loadAccountTree(commodities, types, children, roots, balances);
+        if (isCached) {
+            return balances;
+        }
+
+        SplitsDbAdapter splitsDbAdapter = transactionsDbAdapter.splitsDbAdapter;
+        Map<String, Money> splitBalances = splitsDbAdapter.computeSplitBalances((String) null, null, ALWAYS, ALWAYS);
+        balances.clear();
+        for (String rootUID : roots) {
+            rollUpBalance(rootUID, commodities, types, children, splitBalances, balances);
+        }
+
+        beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (Map.Entry<String, Money> entry : balances.entrySet()) {
+                values.put(AccountEntry.COLUMN_BALANCE, entry.getValue().toBigDecimal().toString());
+                mDb.update(mTableName, values, AccountEntry.COLUMN_UID + "=?", new String[]{entry.getKey()});
+            }
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        if (Logging.isDebug()) {
+            Timber.d("Computed %d account balances in %d ns", balances.size(), System.nanoTime() - start);
+        }
+        return balances;
+    }
+
+    /**
+     * Returns the balances of all the accounts, including their sub-accounts, within the specified time range.
+     * <p>The balances are computed in one pass like {@link #getAllAccountBalances()},
+     * but are only cached when the range is for all time.</p>
+     *
+     * @param startTimestamp the start timestamp of the time range
+     * @param endTimestamp   the end timestamp of the time range
+     * @return map of account UID to balance, in the account's commodity
+     */
+    @NonNull
+    public Map<String, Money> getAllAccountBalances(long startTimestamp, long endTimestamp) {
+        if ((startTimestamp == ALWAYS) && (endTimestamp == ALWAYS)) {
+            return getAllAccountBalances();
+        }
+        long start = System.nanoTime();
+        Map<String, Commodity> commodities = new HashMap<>();
+        Map<String, AccountType> types = new HashMap<>();
+        Map<String, List<String>> children = new HashMap<>();
+        Map<String, Money> balances = new HashMap<>();
+        List<String> roots = new ArrayList<>();
+
+        loadAccountTree(commodities, types, children, roots, null);
+
+        SplitsDbAdapter splitsDbAdapter = transactionsDbAdapter.splitsDbAdapter;
+        Map<String, Money> splitBalances = splitsDbAdapter.computeSplitBalances((String) null, null, startTimestamp, endTimestamp);
+        for (String rootUID : roots) {
+            rollUpBalance(rootUID, commodities, types, children, splitBalances, balances);
+        }
+        if (Logging.isDebug()) {
+            Timber.d("Computed %d account balances in %d ns", balances.size(), System.nanoTime() - start);
+        }
+        return balances;
+    }
+
+    /**
+     * Returns the balances of the accounts, including their sub-accounts, within the specified time range.
+     * <p>Only the splits of the accounts and of their sub-accounts are read,
+     * so this is cheaper than {@link #getAllAccountBalances(long, long)} for a few accounts.</p>
+     *
+     * @param accountUIDs    the account UIDs
+     * @param startTimestamp the start timestamp of the time range
+     * @param endTimestamp   the end timestamp of the time range
+     * @return map of account UID to balance, in the account's commodity, for the accounts that exist
+     */
+    @NonNull
+    public Map<String, Money> getAccountBalances(@NonNull Collection<String> accountUIDs, long startTimestamp, long endTimestamp) {
+        long start = System.nanoTime();
+        Map<String, Commodity> commodities = new HashMap<>();
+        Map<String, AccountType> types = new HashMap<>();
+        Map<String, List<String>> children = new HashMap<>();
+        List<String> roots = new ArrayList<>();
+
+        loadAccountTree(commodities, types, children, roots, null);
+
+        List<String> subtreeUIDs = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        List<String> pending = new ArrayList<>(accountUIDs);
+        while (!pending.isEmpty()) {
+            String accountUID = pending.remove(pending.size() - 1);
+            if (!commodities.containsKey(accountUID) || !visited.add(accountUID)) continue;
+            subtreeUIDs.add(accountUID);
+            List<String> childUIDs = children.get(accountUID);
+            if (childUIDs != null) {
+                pending.addAll(childUIDs);
+            }
+        }
+
+        SplitsDbAdapter splitsDbAdapter = transactionsDbAdapter.splitsDbAdapter;
+        Map<String, Money> splitBalances = splitsDbAdapter.computeSplitBalancesByUID(subtreeUIDs, startTimestamp, endTimestamp);
+        Map<String, Money> subtreeBalances = new HashMap<>();
+        Map<String, Money> balances = new HashMap<>();
+        for (String accountUID : accountUIDs) {
+            if (!commodities.containsKey(accountUID)) continue;
+            Money balance = subtreeBalances.get(accountUID);
+            if (balance == null) {
+                balance = rollUpBalance(accountUID, commodities, types, children, splitBalances, subtreeBalances);
+            }
+            balances.put(accountUID, balance);
+        }
+        if (Logging.isDebug()) {
+            Timber.d("Computed %d account balances in %d ns", balances.size(), System.nanoTime() - start);
+        }
+        return balances;
+    }
+
+    /**
+     * Reads the tree of all the non-template accounts.
+     *
+     * @param balances the map to fill with the cached balances, or {@code null} to skip them
+     * @return {@code true} if all the accounts have a cached balance
+     */
+    private boolean loadAccountTree(
+        @NonNull Map<String, Commodity> commodities,
+        @NonNull Map<String, AccountType> types,
+        @NonNull Map<String, List<String>> children,
+        @NonNull List<String> roots,
+        @Nullable Map<String, Money> balances
+    ) {
+        String[] columns = new String[]{
+            AccountEntry.COLUMN_UID,
+            AccountEntry.COLUMN_PARENT_ACCOUNT_UID,
+            AccountEntry.COLUMN_COMMODITY_UID,
+            AccountEntry.COLUMN_TYPE,
+            AccountEntry.COLUMN_BALANCE
+        };
+        String where = AccountEntry.COLUMN_TEMPLATE + " = 0";
+        boolean isCached = balances != null;
+
+        Cursor cursor = query(mTableName, columns, where, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                String accountUID = cursor.getString(0);
+                String parentUID = cursor.getString(1);
+                Commodity commodity = commoditiesDbAdapter.getRecord(cursor.getString(2));
+                commodities.put(accountUID, commodity);
+                types.put(accountUID, AccountType.valueOf(cursor.getString(3)));
+                if (balances != null) {
+                    BigDecimal cached = getBigDecimal(cursor, 4);
+                    if (cached != null) {
+                        balances.put(accountUID, new Money(cached, commodity));
+                    } else {
+                        isCached = false;
+                    }
+                }
+                if (TextUtils.isEmpty(parentUID)) {
+                    roots.add(accountUID);
+                } else {
+                    List<String> siblings = children.get(parentUID);
+                    if (siblings == null) {
+                        siblings = new ArrayList<>();
+                        children.put(parentUID, siblings);
+                    }
+                    siblings.add(accountUID);
+                }
             }
+        } finally {
+            cursor.close();
         }
+        return isCached;
+    }
+
+    @NonNull
+    private Money rollUpBalance(
+        @NonNull String accountUID,
+        @NonNull Map<String, Commodity> commodities,
+        @NonNull Map<String, AccountType> types,
+        @NonNull Map<String, List<String>> children,
+        @NonNull Map<String, Money> splitBalances,
+        @NonNull Map<String, Money> balances
+    ) {
+        Commodity commodity = commodities.get(accountUID);
+        Money balance = splitBalances.get(accountUID);
+        if (balance == null) {
+            balance = Money.createZeroInstance(commodity);
+        } else if (!types.get(accountUID).hasDebitNormalBalance) {
+            balance = balance.unaryMinus();
+        }
+
+        List<String> childUIDs = children.get(accountUID);
+        if (childUIDs != null) {
+            for (String childUID : childUIDs) {
+                Money childBalance = rollUpBalance(childUID, commodities, types, children, splitBalances, balances);
+                if (childBalance.isAmountZero()) continue;
+                Price price = pricesDbAdapter.getPrice(commodities.get(childUID), commodity);
+                if (price == null) continue;
+                balance = balance.plus(childBalance.times(price));
+            }
+        }
+        balances.put(accountUID, balance);
         return balance;
     }
 
@@ -1041,38 +1306,29 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     @NonNull
     public List<String> getDescendantAccountUIDs(String accountUID, String where, String[] whereArgs) {
-        // holds accountUID with all descendant accounts.
-        List<String> accounts = new ArrayList<>();
-        // holds descendant accounts of the same level
-        List<String> accountsLevel = new ArrayList<>();
-        final String[] projection = new String[]{AccountEntry.COLUMN_UID};
-        final String whereAnd = (TextUtils.isEmpty(where) ? "" : " AND " + where);
-        final int columnIndexUID = 0;
-
-        accountsLevel.add(accountUID);
-        do {
-            Cursor cursor = mDb.query(
-                mTableName,
-                projection,
-                AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " IN ('" + TextUtils.join("','", accountsLevel) + "')" + whereAnd,
-                whereArgs,
-                null,
-                null,
-                AccountEntry.COLUMN_FULL_NAME
-            );
-            accountsLevel.clear();
-            if (cursor != null && cursor.moveToFirst()) {
-                try {
-                    do {
-                        accountsLevel.add(cursor.getString(columnIndexUID));
-                    } while (cursor.moveToNext());
-                } finally {
-                    cursor.close();
-                }
+        final String accounts = TextUtils.isEmpty(where) ? mTableName
+            : "(SELECT * FROM " + mTableName + " WHERE " + where + ")";
+        // One recursive query, ordered by level and then by full name, with the same SQL for any account.
+        String sql = "WITH RECURSIVE descendants(uid, full_name, depth) AS (SELECT ?, NULL, 0"
+            + " UNION ALL SELECT a." + AccountEntry.COLUMN_UID + ", a." + AccountEntry.COLUMN_FULL_NAME + ", d.depth + 1"
+            + " FROM " + accounts + " a INNER JOIN descendants d"
+            + " ON a." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = d.uid)"
+            + " SELECT uid FROM descendants WHERE depth > 0 ORDER BY depth, full_name";
+        String[] sqlArgs = new String[1 + (whereArgs != null ? whereArgs.length : 0)];
+        sqlArgs[0] = accountUID;
+        if (whereArgs != null) {
+            System.arraycopy(whereArgs, 0, sqlArgs, 1, whereArgs.length);
+        }
+        List<String> descendants = new ArrayList<>();
+        Cursor cursor = rawQuery(sql, sqlArgs);
+        try {
+            while (cursor.moveToNext()) {
+                descendants.add(cursor.getString(0));
             }
-            accounts.addAll(accountsLevel);
-        } while (!accountsLevel.isEmpty());
-        return accounts;
+        } finally {
+            cursor.close();
+        }
+        return descendants;
     }
 
     public List<String> getChildren(String accountUID) {
@@ -1081,7 +1337,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         final int columnIndexUID = 0;
         String where = AccountEntry.COLUMN_PARENT_ACCOUNT_UID + "=?";
         String[] whereArgs = new String[]{accountUID};
-        Cursor cursor = mDb.query(
+        Cursor cursor = query(
             mTableName,
             projection,
             where,
@@ -1110,7 +1366,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return {@link Cursor} to the sub accounts data set
      */
     public Cursor fetchSubAccounts(String accountUID, boolean isShowHiddenAccounts) {
-        Timber.v("Fetching sub accounts for account id %s", accountUID);
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching sub accounts for account id %s", accountUID);
+        }
         String selection = AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?";
         if (!isShowHiddenAccounts) {
             selection += " AND " + AccountEntry.COLUMN_HIDDEN + " = 0";
@@ -1158,7 +1416,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
             }
             selection += "(" + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_NAME + " LIKE " + sqlEscapeLike(filterName) + ")";
         }
-        return mDb.query(TransactionEntry.TABLE_NAME
+        return query(TransactionEntry.TABLE_NAME
                 + " LEFT OUTER JOIN " + SplitEntry.TABLE_NAME + " ON "
                 + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " = "
                 + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID
@@ -1180,7 +1438,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return Cursor holding set of favorite accounts
      */
     public Cursor fetchFavoriteAccounts(@Nullable String filterName, boolean isShowHiddenAccounts) {
-        Timber.v("Fetching favorite accounts from db");
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching favorite accounts from db");
+        }
         String selection = AccountEntry.COLUMN_FAVORITE + " = 1";
         if (!isShowHiddenAccounts) {
             selection += " AND " + AccountEntry.COLUMN_HIDDEN + " = 0";
@@ -1294,7 +1554,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 }
             }
         }
-        Cursor cursor = mDb.query(
+        Cursor cursor = query(
             mTableName,
             new String[]{AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID},
             AccountEntry._ID + " = " + accountID,
@@ -1471,17 +1731,47 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     @ColorInt
     public int getActiveAccountColor(@NonNull Context context, @Nullable String accountUID) {
-        while (!TextUtils.isEmpty(accountUID)) {
-            int color = getAccountColor(accountUID);
-            if (color != Account.DEFAULT_COLOR) {
-                return color;
-            }
-            accountUID = getParentAccountUID(accountUID);
+        AccountLabelCache.Label label = getAccountLabel(accountUID);
+        if (label != null && label.getColor() != Account.DEFAULT_COLOR) {
+            return label.getColor();
         }
 
         return ContextCompat.getColor(context, R.color.theme_primary);
     }
 
+    /**
+     * Discards the labels after the accounts were written.
+     * <p>Inside a database transaction, the labels are discarded again when it ends, because a
+     * reader connection could have loaded the uncommitted accounts' previous labels meanwhile.</p>
+     */
+    private void invalidateLabels() {
+        labels.invalidate();
+        if (mDb.inTransaction()) {
+            isLabelsInvalidatedOnEnd = true;
+        }
+    }
+
+    @Override
+    public void endTransaction() {
+        super.endTransaction();
+        if (isLabelsInvalidatedOnEnd && !mDb.inTransaction()) {
+            isLabelsInvalidatedOnEnd = false;
+            labels.invalidate();
+        }
+    }
+
+    /**
+     * Returns the label of the account, i.e. its name, full name, color and type, from the book's
+     * in-memory cache of labels.
+     *
+     * @param accountUID GUID of the account
+     * @return the label, or {@code null} if the account does not exist
+     */
+    @Nullable
+    public AccountLabelCache.Label getAccountLabel(@Nullable String accountUID) {
+        return labels.get(mDb, accountUID);
+    }
+
     /**
      * Returns the list of commodities in use in the database.
      *
@@ -1492,7 +1782,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     public List<Commodity> getCommoditiesInUse() {
         String[] columns = new String[]{AccountEntry.COLUMN_COMMODITY_UID};
         String where = AccountEntry.COLUMN_TEMPLATE + " = 0";
-        Cursor cursor = mDb.query(true, mTableName, columns, where, null, null, null, null, null);
+        Cursor cursor = query(true, mTableName, columns, where, null, null, null, null, null);
         Set<Commodity> accountCommodities = new HashSet<>();
         try {
             if (cursor.moveToFirst()) {
@@ -1537,19 +1827,31 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         mDb.delete(PriceEntry.TABLE_NAME, null, null);
         mDb.delete(SplitEntry.TABLE_NAME, null, null);
         mDb.delete(TransactionEntry.TABLE_NAME, null, null);
+        mDb.delete(TransactionSearchEntry.TABLE_NAME, null, null);
         mDb.delete(ScheduledActionEntry.TABLE_NAME, null, null);
         mDb.delete(BudgetAmountEntry.TABLE_NAME, null, null);
         mDb.delete(BudgetEntry.TABLE_NAME, null, null);
         mDb.delete(RecurrenceEntry.TABLE_NAME, null, null);
+        transactionsDbAdapter.invalidateSuggestions();
         rootUID = null;
 
-        return super.deleteAllRecords();
+        int count = super.deleteAllRecords();
+        invalidateLabels();
+        return count;
+    }
+
+    @Override
+    public boolean deleteRecord(long rowId) throws SQLException {
+        boolean result = super.deleteRecord(rowId);
+        invalidateLabels();
+        return result;
     }
 
     @Override
     public boolean deleteRecord(@NonNull String uid) throws SQLException {
         boolean result = super.deleteRecord(uid);
         if (result) {
+            invalidateLabels();
             if (uid.equals(rootUID)) rootUID = null;
             ContentValues contentValues = new ContentValues();
             contentValues.putNull(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID);
@@ -1572,11 +1874,10 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     }
 
     public int getTransactionMaxSplitNum(@NonNull String accountUID) {
-        Cursor cursor = mDb.query("trans_extra_info",
-            new String[]{"MAX(trans_split_count)"},
-            "trans_acct_t_uid IN ( SELECT DISTINCT " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID +
-                " FROM trans_split_acct WHERE " + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID +
-                " = ? )",
+        Cursor cursor = query(TransactionInfoEntry.TABLE_NAME,
+            new String[]{"MAX(" + TransactionInfoEntry.COLUMN_SPLIT_COUNT + ")"},
+            TransactionInfoEntry.COLUMN_TRANSACTION_UID + " IN (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID
+                + " FROM " + SplitEntry.TABLE_NAME + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?)",
             new String[]{accountUID},
             null,
             null,
@@ -1602,7 +1903,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
             // TODO avoid race-condition when multiple simultaneous calls for same record.
         }
 
-        Timber.v("Fetching simple account %s", uid);
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching simple account %s", uid);
+        }
         Cursor cursor = fetchRecord(uid);
         try {
             if (cursor.moveToFirst()) {
@@ -1617,8 +1920,88 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         }
     }
 
+    /**
+     * Returns the number of transactions with splits in the account,
+     * including the templates of scheduled transactions.
+     * <p>The count is cached in the accounts table, until the splits are changed.</p>
+     *
+     * @param uid GUID of the account
+     * @return Number of transactions in the account
+     */
     public long getTransactionCount(@NonNull String uid) {
-        return transactionsDbAdapter.getTransactionsCountForAccount(uid);
+        String[] columns = new String[]{AccountEntry.COLUMN_TRANSACTION_COUNT};
+        String selection = AccountEntry.COLUMN_UID + "=?";
+        String[] selectionArgs = new String[]{uid};
+        Cursor cursor = query(mTableName, columns, selection, selectionArgs, null, null, null);
+        try {
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        long count = transactionsDbAdapter.getTransactionsCount(uid, true);
+        // Cache for next read.
+        ContentValues values = new ContentValues();
+        values.put(AccountEntry.COLUMN_TRANSACTION_COUNT, count);
+        mDb.update(mTableName, values, selection, selectionArgs);
+        return count;
+    }
+
+    /**
+     * Returns the number of transactions of all the non-template accounts,
+     * including the templates of scheduled transactions.
+     * <p>Unlike calling {@link #getTransactionCount(String)} for each account, the counts that are
+     * not cached are computed in one query for all accounts, and then cached together.</p>
+     *
+     * @return map of account UID to the number of transactions in the account
+     */
+    @NonNull
+    public Map<String, Long> getAllTransactionCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        boolean isCached = true;
+        String[] columns = new String[]{AccountEntry.COLUMN_UID, AccountEntry.COLUMN_TRANSACTION_COUNT};
+        String where = AccountEntry.COLUMN_TEMPLATE + " = 0";
+        Cursor cursor = query(mTableName, columns, where, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                if (cursor.isNull(1)) {
+                    isCached = false;
+                    break;
+                }
+                counts.put(cursor.getString(0), cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        if (isCached) {
+            return counts;
+        }
+
+        Map<String, Long> transactionCounts = transactionsDbAdapter.getAllTransactionsCounts(true);
+        counts.clear();
+        beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            cursor = query(mTableName, new String[]{AccountEntry.COLUMN_UID}, where, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    String accountUID = cursor.getString(0);
+                    Long count = transactionCounts.get(accountUID);
+                    if (count == null) count = 0L;
+                    counts.put(accountUID, count);
+                    values.put(AccountEntry.COLUMN_TRANSACTION_COUNT, count);
+                    mDb.update(mTableName, values, AccountEntry.COLUMN_UID + "=?", new String[]{accountUID});
+                }
+            } finally {
+                cursor.close();
+            }
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        return counts;
     }
 
     /**
@@ -1656,6 +2039,49 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         return balances;
     }
 
+    /**
+     * Returns the balances of the accounts for consecutive periods, with a single query.
+     *
+     * @param accounts the accounts
+     * @param periods  the boundaries of the periods
+     * @return the balances per account UID, for each period
+     * @see SplitsDbAdapter#computeSplitBalances(List, long[])
+     */
+    @NonNull
+    public List<Map<String, Money>> getAccountsBalances(@NonNull List<Account> accounts, @NonNull long[] periods) {
+        return getAccountsBalances(accounts, periods, null);
+    }
+
+    /**
+     * Returns the balances of the accounts for consecutive periods, with a single query.
+     *
+     * @param accounts           the accounts
+     * @param periods            the boundaries of the periods
+     * @param cancellationSignal signal to cancel the query, if any
+     * @return the balances per account UID, for each period
+     * @throws android.os.OperationCanceledException if the signal is cancelled
+     * @see SplitsDbAdapter#computeSplitBalances(List, long[], CancellationSignal)
+     */
+    @NonNull
+    public List<Map<String, Money>> getAccountsBalances(
+        @NonNull List<Account> accounts,
+        @NonNull long[] periods,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        SplitsDbAdapter splitsDbAdapter = transactionsDbAdapter.splitsDbAdapter;
+        List<Map<String, Money>> periodBalances = splitsDbAdapter.computeSplitBalances(accounts, periods, cancellationSignal);
+        for (Map<String, Money> balances : periodBalances) {
+            for (Account account : accounts) {
+                Money balance = balances.get(account.getUID());
+                if (balance == null) continue;
+                if (!account.getAccountType().hasDebitNormalBalance) {
+                    balances.put(account.getUID(), balance.unaryMinus());
+                }
+            }
+        }
+        return periodBalances;
+    }
+
     public List<Account> getDescendants(@NonNull Account account) {
         return getDescendants(account.getUID());
     }
@@ -21,6 +21,8 @@ import static java.lang.Math.max;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 import android.provider.BaseColumns;
@@ -29,15 +31,23 @@ import android.text.TextUtils;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.db.DatabaseHelper;
 import org.gnucash.android.db.DatabaseHolder;
+import org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import org.gnucash.android.db.DatabaseSchema.BookEntry;
+import org.gnucash.android.db.DatabaseSchema.BookStatsEntry;
+import org.gnucash.android.db.DatabaseSchema.SplitEntry;
+import org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import org.gnucash.android.db.QueryStats;
 import org.gnucash.android.model.Book;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -124,6 +134,7 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
         if (result) //delete the db entry only if the file deletion was successful
             result &= deleteRecord(bookUID);
 
+        mDb.delete(BookStatsEntry.TABLE_NAME, BookStatsEntry.COLUMN_BOOK_UID + " = ?", new String[]{bookUID});
         GnuCashApplication.getBookPreferences(context, bookUID).edit().clear().apply();
 
         return result;
@@ -169,7 +180,7 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
      * @throws NoActiveBookFoundException
      */
     public @NonNull String getActiveBookUID() throws NoActiveBookFoundException {
-        try (Cursor cursor = mDb.query(mTableName,
+        try (Cursor cursor = query(mTableName,
             new String[]{BookEntry.COLUMN_UID},
             BookEntry.COLUMN_ACTIVE + " = 1",
             null,
@@ -217,7 +228,9 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
      */
     @Nullable
     public String fixBooksDatabase() {
-        Timber.v("Looking for books to set as active...");
+        if (Logging.isVerbose()) {
+            Timber.v("Looking for books to set as active...");
+        }
         if (getRecordsCount() <= 0) {
             Timber.w("No books found in the database. Recovering books records...");
             recoverBookRecords();
@@ -295,7 +308,7 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
 
     public @NonNull List<String> getAllBookUIDs() {
         List<String> bookUIDs = new ArrayList<>();
-        try (Cursor cursor = mDb.query(true, mTableName, new String[]{BookEntry.COLUMN_UID},
+        try (Cursor cursor = query(true, mTableName, new String[]{BookEntry.COLUMN_UID},
             null, null, null, null, null, null)) {
             while (cursor.moveToNext()) {
                 bookUIDs.add(cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_UID)));
@@ -305,6 +318,104 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
         return bookUIDs;
     }
 
+    /**
+     * Fetches all the books, together with their statistics from the catalog.
+     * <p>The statistics columns are {@code null} for the books whose statistics were never computed.</p>
+     *
+     * @return Cursor over all the books
+     * @see #refreshBookStats(String)
+     */
+    public Cursor fetchAllBooksWithStats() {
+        String table = mTableName + " b LEFT OUTER JOIN " + BookStatsEntry.TABLE_NAME + " s ON b."
+            + BookEntry.COLUMN_UID + " = s." + BookStatsEntry.COLUMN_BOOK_UID;
+        return query(table, new String[]{"b.*",
+                "s." + BookStatsEntry.COLUMN_ACCOUNT_COUNT,
+                "s." + BookStatsEntry.COLUMN_TRANSACTION_COUNT,
+                "s." + BookStatsEntry.COLUMN_SPLIT_COUNT,
+                "s." + BookStatsEntry.COLUMN_DATABASE_SIZE,
+                "s." + BookStatsEntry.COLUMN_LAST_MODIFIED},
+            null, null, null, null, "b." + BookEntry._ID + " ASC");
+    }
+
+    /**
+     * Returns the books whose statistics are missing, or out of date because their database
+     * files were modified since the statistics were computed.
+     *
+     * @return GUIDs of the books whose statistics should be refreshed
+     */
+    @WorkerThread
+    public @NonNull List<String> getStaleBookStatsUIDs() {
+        List<String> bookUIDs = new ArrayList<>();
+        try (Cursor cursor = fetchAllBooksWithStats()) {
+            int uidIndex = cursor.getColumnIndexOrThrow(BookEntry.COLUMN_UID);
+            int sizeIndex = cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_DATABASE_SIZE);
+            int lastModifiedIndex = cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_LAST_MODIFIED);
+            while (cursor.moveToNext()) {
+                String bookUID = cursor.getString(uidIndex);
+                File file = holder.context.getDatabasePath(bookUID);
+                if (!file.exists()) continue;
+                if (cursor.isNull(lastModifiedIndex)
+                    || cursor.getLong(sizeIndex) != getDatabaseSize(file)
+                    || cursor.getLong(lastModifiedIndex) != getDatabaseLastModified(file)) {
+                    bookUIDs.add(bookUID);
+                }
+            }
+        }
+        return bookUIDs;
+    }
+
+    /**
+     * Computes the statistics of a book, and saves them in the catalog.
+     * <p>The book database is opened read-only, so that it is not upgraded.</p>
+     *
+     * @param bookUID GUID of the book
+     * @return {@code true} if the statistics were saved, {@code false} otherwise
+     */
+    @WorkerThread
+    public boolean refreshBookStats(@NonNull String bookUID) {
+        File file = holder.context.getDatabasePath(bookUID);
+        if (!file.exists()) {
+            return false;
+        }
+        ContentValues values = new ContentValues();
+        String sql = "SELECT (SELECT COUNT(*) FROM " + AccountEntry.TABLE_NAME + ")"
+            + ", (SELECT COUNT(*) FROM " + TransactionEntry.TABLE_NAME
+            + " WHERE " + TransactionEntry.COLUMN_TEMPLATE + " = 0)"
+            + ", (SELECT COUNT(*) FROM " + SplitEntry.TABLE_NAME + ")";
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+             Cursor cursor = QueryStats.getInstance().rawQuery(db, sql, null)) {
+            if (!cursor.moveToFirst()) {
+                return false;
+            }
+            values.put(BookStatsEntry.COLUMN_ACCOUNT_COUNT, cursor.getLong(0));
+            values.put(BookStatsEntry.COLUMN_TRANSACTION_COUNT, cursor.getLong(1));
+            values.put(BookStatsEntry.COLUMN_SPLIT_COUNT, cursor.getLong(2));
+        } catch (SQLiteException e) {
+            Timber.e(e, "Error computing the statistics of book %s", bookUID);
+            return false;
+        }
+        // Measure the files after the database is closed, because closing may checkpoint the log.
+        values.put(BookStatsEntry.COLUMN_BOOK_UID, bookUID);
+        values.put(BookStatsEntry.COLUMN_DATABASE_SIZE, getDatabaseSize(file));
+        values.put(BookStatsEntry.COLUMN_LAST_MODIFIED, getDatabaseLastModified(file));
+        mDb.insertWithOnConflict(BookStatsEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        return true;
+    }
+
+    /**
+     * Returns the size of the database, including its write-ahead log.
+     */
+    private static long getDatabaseSize(@NonNull File file) {
+        return file.length() + new File(file.getPath() + "-wal").length();
+    }
+
+    /**
+     * Returns the last modified time of the database, including its write-ahead log.
+     */
+    private static long getDatabaseLastModified(@NonNull File file) {
+        return max(file.lastModified(), new File(file.getPath() + "-wal").lastModified());
+    }
+
     /**
      * Return the name of the currently active book.
      * Or a generic name if there is no active book (should never happen)
@@ -312,7 +423,7 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
      * @return Display name of the book
      */
     public @NonNull String getActiveBookDisplayName() {
-        Cursor cursor = mDb.query(mTableName,
+        Cursor cursor = query(mTableName,
             new String[]{BookEntry.COLUMN_DISPLAY_NAME}, BookEntry.COLUMN_ACTIVE + " = 1",
             null, null, null, null);
         try {
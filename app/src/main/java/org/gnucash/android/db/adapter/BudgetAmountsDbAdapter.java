@@ -156,7 +156,7 @@ public class BudgetAmountsDbAdapter extends DatabaseAdapter<BudgetAmount> {
      * @return Commodity of the account.
      */
     public Commodity getCommodity(@NonNull String accountUID) {
-        Cursor cursor = mDb.query(
+        Cursor cursor = query(
             DatabaseSchema.AccountEntry.TABLE_NAME,
             new String[]{DatabaseSchema.AccountEntry.COLUMN_COMMODITY_UID},
             DatabaseSchema.AccountEntry.COLUMN_UID + "= ?",
@@ -140,7 +140,7 @@ public class CommoditiesDbAdapter extends DatabaseAdapter<Commodity> {
      * @return Cursor holding all commodity records
      */
     public Cursor fetchAllRecords(String orderBy) {
-        return mDb.query(mTableName, null, null, null, null, null, orderBy);
+        return query(mTableName, null, null, null, null, null, orderBy);
     }
 
     /**
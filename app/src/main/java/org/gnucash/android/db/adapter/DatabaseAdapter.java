@@ -22,7 +22,9 @@ import android.database.Cursor;
 import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
@@ -33,15 +35,17 @@ import org.gnucash.android.db.DatabaseHolder;
 import org.gnucash.android.db.DatabaseSchema;
 import org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import org.gnucash.android.db.DatabaseSchema.CommonColumns;
-import org.gnucash.android.db.DatabaseSchema.SplitEntry;
-import org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import org.gnucash.android.db.DatabaseSchema.DataStampEntry;
+import org.gnucash.android.db.QueryStats;
 import org.gnucash.android.model.BaseModel;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -76,6 +80,24 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
     protected final Map<String, Model> cache = new ConcurrentHashMap<>();
     protected final boolean isCached;
 
+    /**
+     * Temporary table of unique identifiers, for statements which affect many records at once.
+     *
+     * @see #fillTempUIDs(Collection)
+     */
+    protected static final String TEMP_UIDS_TABLE = "temp.bulk_uids";
+    /**
+     * Column of the temporary table for a value that goes with each unique identifier, if any.
+     */
+    protected static final String TEMP_COLUMN_VALUE = "value";
+    /**
+     * The maximum number of unique identifiers to bind in one {@code IN} list,
+     * well below the SQLite limit of 999 variables per statement.
+     *
+     * @see #bindPlaceholders(int)
+     */
+    protected static final int MAX_BIND_UIDS = 500;
+
     public enum UpdateMethod {
         insert, update, replace
     }
@@ -107,94 +129,6 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
         if (db.isReadOnly()) {
             throw new IllegalArgumentException("Database read-only. Writeable database required!");
         }
-
-        if (db.getVersion() >= 9) {
-            createTempView();
-        }
-    }
-
-    private void createTempView() {
-        //the multiplication by 1.0 is to cause sqlite to handle the value as REAL and not to round off
-
-        // Create some temporary views. Temporary views only exists in one DB session, and will not
-        // be saved in the DB
-        //
-        // TODO: Useful views should be add to the DB
-        //
-        // create a temporary view, combining accounts, transactions and splits, as this is often used
-        // in the queries
-
-        //todo: would it be useful to add the split reconciled_state and reconciled_date to this view?
-        mDb.execSQL("CREATE TEMP VIEW IF NOT EXISTS trans_split_acct AS SELECT "
-            + TransactionEntry.TABLE_NAME + "." + CommonColumns.COLUMN_MODIFIED_AT + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + CommonColumns.COLUMN_MODIFIED_AT + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_DESCRIPTION + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_DESCRIPTION + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_NOTES + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_NOTES + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TIMESTAMP + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_EXPORTED + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_EXPORTED + ", "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + " AS "
-            + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TEMPLATE + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ID + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_ID + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_UID + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_UID + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TYPE + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_NUM + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_NUM + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_DENOM + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_DENOM + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_NUM + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_DENOM + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM + ", "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_MEMO + " AS "
-            + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_MEMO + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_NAME + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_NAME + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_COMMODITY_UID + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COMMODITY_UID + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PLACEHOLDER + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PLACEHOLDER + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_COLOR_CODE + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COLOR_CODE + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FAVORITE + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FAVORITE + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FULL_NAME + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FULL_NAME + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_TYPE + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_TYPE + ", "
-            + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " AS "
-            + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
-            + " FROM " + TransactionEntry.TABLE_NAME + ", " + SplitEntry.TABLE_NAME + " ON "
-            + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + "=" + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID
-            + ", " + AccountEntry.TABLE_NAME + " ON "
-            + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ACCOUNT_UID + "=" + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID
-        );
-
-        mDb.execSQL("CREATE TEMP VIEW IF NOT EXISTS trans_extra_info AS SELECT " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID +
-            " AS trans_acct_t_uid, SUBSTR ( MIN ( ( CASE WHEN IFNULL ( " + SplitEntry.TABLE_NAME + "_" +
-            SplitEntry.COLUMN_MEMO + ", '' ) == '' THEN 'a' ELSE 'b' END ) || " +
-            AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID +
-            " ), 2 ) AS trans_acct_a_uid, TOTAL ( CASE WHEN " + SplitEntry.TABLE_NAME + "_" +
-            SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN " + SplitEntry.TABLE_NAME + "_" +
-            SplitEntry.COLUMN_VALUE_NUM + " ELSE - " + SplitEntry.TABLE_NAME + "_" +
-            SplitEntry.COLUMN_VALUE_NUM + " END ) * 1.0 / " + SplitEntry.TABLE_NAME + "_" +
-            SplitEntry.COLUMN_VALUE_DENOM + " AS trans_acct_balance, COUNT ( DISTINCT " +
-            AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COMMODITY_UID +
-            " ) AS trans_currency_count, COUNT (*) AS trans_split_count FROM trans_split_acct " +
-            " GROUP BY " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID
-        );
     }
 
     /**
@@ -206,6 +140,84 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
         return mDb.isOpen();
     }
 
+    /**
+     * Queries the database, and records the statistics of the query when enabled.
+     *
+     * @see SQLiteDatabase#query(String, String[], String, String[], String, String, String)
+     * @see QueryStats
+     */
+    protected Cursor query(
+        @NonNull String table,
+        @Nullable String[] columns,
+        @Nullable String selection,
+        @Nullable String[] selectionArgs,
+        @Nullable String groupBy,
+        @Nullable String having,
+        @Nullable String orderBy
+    ) {
+        return query(false, table, columns, selection, selectionArgs, groupBy, having, orderBy, null);
+    }
+
+    /**
+     * Queries the database, and records the statistics of the query when enabled.
+     *
+     * @see SQLiteDatabase#query(String, String[], String, String[], String, String, String, String)
+     * @see QueryStats
+     */
+    protected Cursor query(
+        @NonNull String table,
+        @Nullable String[] columns,
+        @Nullable String selection,
+        @Nullable String[] selectionArgs,
+        @Nullable String groupBy,
+        @Nullable String having,
+        @Nullable String orderBy,
+        @Nullable String limit
+    ) {
+        return query(false, table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
+    }
+
+    /**
+     * Queries the database, and records the statistics of the query when enabled.
+     *
+     * @see SQLiteDatabase#query(boolean, String, String[], String, String[], String, String, String, String)
+     * @see QueryStats
+     */
+    protected Cursor query(
+        boolean distinct,
+        @NonNull String table,
+        @Nullable String[] columns,
+        @Nullable String selection,
+        @Nullable String[] selectionArgs,
+        @Nullable String groupBy,
+        @Nullable String having,
+        @Nullable String orderBy,
+        @Nullable String limit
+    ) {
+        return QueryStats.getInstance().query(mDb, distinct, table, columns, selection, selectionArgs, groupBy, having, orderBy, limit);
+    }
+
+    /**
+     * Runs the SQL query, and records the statistics of the query when enabled.
+     *
+     * @see SQLiteDatabase#rawQuery(String, String[])
+     * @see QueryStats
+     */
+    protected Cursor rawQuery(@NonNull String sql, @Nullable String[] selectionArgs) {
+        return QueryStats.getInstance().rawQuery(mDb, sql, selectionArgs);
+    }
+
+    /**
+     * Runs the SQL query, which stops with an {@link android.os.OperationCanceledException}
+     * when the signal is cancelled, and records the statistics of the query when enabled.
+     *
+     * @see SQLiteDatabase#rawQuery(String, String[], CancellationSignal)
+     * @see QueryStats
+     */
+    protected Cursor rawQuery(@NonNull String sql, @Nullable String[] selectionArgs, @Nullable CancellationSignal cancellationSignal) {
+        return QueryStats.getInstance().rawQuery(mDb, sql, selectionArgs, cancellationSignal);
+    }
+
     /**
      * Adds a record to the database with the data contained in the model.
      * <p>This method uses the SQL REPLACE instructions to replace any record with a matching GUID.
@@ -225,7 +237,9 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
      * @param updateMethod Method to use for adding the record
      */
     public void addRecord(@NonNull final Model model, UpdateMethod updateMethod) throws SQLException {
-        Timber.d("Adding record to database: %s %s", model.getClass().getSimpleName(), model.getUID());
+        if (Logging.isDebug()) {
+            Timber.d("Adding record to database: %s %s", model.getClass().getSimpleName(), model.getUID());
+        }
         final SQLiteStatement statement;
         switch (updateMethod) {
             case insert:
@@ -449,7 +463,9 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
             Model model = cache.get(uid);
             if (model != null) return model;
         }
-        Timber.v("Fetching record from %s with UID %s", mTableName, uid);
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching record from %s with UID %s", mTableName, uid);
+        }
         Cursor cursor = fetchRecord(uid);
         try {
             if (cursor.moveToFirst()) {
@@ -589,7 +605,7 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
         }
         String where = CommonColumns.COLUMN_UID + "=?";
         String[] whereArgs = new String[]{uid};
-        return mDb.query(mTableName, null, where, whereArgs, null, null, null);
+        return query(mTableName, null, where, whereArgs, null, null, null);
     }
 
     /**
@@ -610,8 +626,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
      * @return Cursor to records matching conditions
      */
     public Cursor fetchAllRecords(String where, String[] whereArgs, String orderBy) {
-        Timber.v("Fetching all accounts from db where " + where + "/" + Arrays.toString(whereArgs) + " order by " + orderBy);
-        return mDb.query(mTableName, null, where, whereArgs, null, null, orderBy);
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching all accounts from db where " + where + "/" + Arrays.toString(whereArgs) + " order by " + orderBy);
+        }
+        return query(mTableName, null, where, whereArgs, null, null, orderBy);
     }
 
     /**
@@ -621,7 +639,9 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
      * @return <code>true</code> if deletion was successful, <code>false</code> otherwise
      */
     public boolean deleteRecord(long rowId) throws SQLException {
-        Timber.d("Deleting record with id " + rowId + " from " + mTableName);
+        if (Logging.isDebug()) {
+            Timber.d("Deleting record with id " + rowId + " from " + mTableName);
+        }
         return mDb.delete(mTableName, DatabaseSchema.CommonColumns._ID + "=" + rowId, null) > 0;
     }
 
@@ -647,22 +667,13 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
             Model model = cache.get(uid);
             if (model != null) return model.id;
         }
-        Cursor cursor = mDb.query(mTableName,
-            new String[]{DatabaseSchema.CommonColumns._ID},
-            DatabaseSchema.CommonColumns.COLUMN_UID + " = ?",
-            new String[]{uid},
-            null, null, null);
-        final long result;
-        try {
-            if (cursor.moveToFirst()) {
-                result = cursor.getLong(0);
-            } else {
-                throw new IllegalArgumentException("Record not found in " + mTableName);
-            }
-        } finally {
-            cursor.close();
+        String sql = "SELECT " + CommonColumns._ID + " FROM " + mTableName
+            + " WHERE " + CommonColumns.COLUMN_UID + " = ?";
+        String result = queryForString(sql, uid);
+        if (result == null) {
+            throw new IllegalArgumentException("Record not found in " + mTableName);
         }
-        return result;
+        return Long.parseLong(result);
     }
 
     /**
@@ -680,20 +691,13 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
                 }
             }
         }
-        Cursor cursor = mDb.query(mTableName,
-            new String[]{DatabaseSchema.CommonColumns.COLUMN_UID},
-            DatabaseSchema.CommonColumns._ID + " = " + id,
-            null, null, null, null);
-
-        try {
-            if (cursor.moveToFirst()) {
-                return cursor.getString(0);
-            } else {
-                throw new IllegalArgumentException("Record not found in " + mTableName);
-            }
-        } finally {
-            cursor.close();
+        String sql = "SELECT " + CommonColumns.COLUMN_UID + " FROM " + mTableName
+            + " WHERE " + CommonColumns._ID + " = ?";
+        String result = queryForString(sql, id);
+        if (result == null) {
+            throw new IllegalArgumentException("Record not found in " + mTableName);
         }
+        return result;
     }
 
     /**
@@ -773,6 +777,99 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
         return mDb.update(mTableName, contentValues, where, whereArgs);
     }
 
+    /**
+     * Fills the temporary table of unique identifiers, so that a single statement can select
+     * the records to affect from {@link #TEMP_UIDS_TABLE}.
+     * <p>The temporary table belongs to the database connection, so this must be called inside
+     * the same database transaction as the statement.</p>
+     *
+     * @param uids the unique identifiers
+     */
+    protected void fillTempUIDs(@NonNull Collection<String> uids) {
+        clearTempUIDs();
+        try (SQLiteStatement statement = mDb.compileStatement("INSERT OR IGNORE INTO " + TEMP_UIDS_TABLE
+            + " (" + CommonColumns.COLUMN_UID + ") VALUES (?)")) {
+            for (String uid : uids) {
+                statement.bindString(1, uid);
+                statement.executeInsert();
+            }
+        }
+    }
+
+    /**
+     * Returns the placeholders of a bound {@code IN} list, such as {@code "?,?,?"}.
+     * <p>Reads select their records with a bound list rather than with {@link #TEMP_UIDS_TABLE},
+     * which needs a write transaction. Lists longer than {@link #MAX_BIND_UIDS} should be queried in chunks.</p>
+     *
+     * @param count the number of values
+     * @return the placeholders
+     */
+    @NonNull
+    protected static String bindPlaceholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs a query for a single value.
+     * <p>The statement is compiled for each call and then closed. The SQL must bind its values as
+     * arguments, so that its text stays the same and each connection's statement cache reuses its plan.</p>
+     *
+     * @param sql  the parameterized SQL
+     * @param args the arguments to bind
+     * @return the value of the first column of the first row, or {@code null} if there are no rows
+     */
+    @Nullable
+    protected String queryForString(@NonNull String sql, Object... args) {
+        try (SQLiteStatement statement = mDb.compileStatement(sql)) {
+            bindArguments(statement, args);
+            return statement.simpleQueryForString();
+        } catch (SQLiteDoneException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a query for a single number.
+     * <p>The statement is compiled for each call and then closed. The SQL must bind its values as
+     * arguments, so that its text stays the same and each connection's statement cache reuses its plan.</p>
+     *
+     * @param sql  the parameterized SQL
+     * @param args the arguments to bind
+     * @return the value of the first column of the first row, or {@code 0} if there are no rows
+     */
+    protected long queryForLong(@NonNull String sql, Object... args) {
+        try (SQLiteStatement statement = mDb.compileStatement(sql)) {
+            bindArguments(statement, args);
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return 0L;
+        }
+    }
+
+    private static void bindArguments(@NonNull SQLiteStatement statement, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            DatabaseUtils.bindObjectToProgram(statement, i + 1, args[i]);
+        }
+    }
+
+    /**
+     * Creates the temporary table of unique identifiers if needed, and empties it.
+     * <p>Must be called inside the same database transaction as the statements which use the table.</p>
+     *
+     * @see #fillTempUIDs(Collection)
+     */
+    protected void clearTempUIDs() {
+        mDb.execSQL("CREATE TEMP TABLE IF NOT EXISTS bulk_uids ("
+            + CommonColumns.COLUMN_UID + " varchar(255) PRIMARY KEY, "
+            + TEMP_COLUMN_VALUE + " text)");
+        mDb.execSQL("DELETE FROM " + TEMP_UIDS_TABLE);
+    }
+
     /**
      * Deletes a record from the database given its unique identifier.
      * <p>Overload of the method {@link #deleteRecord(long)}</p>
@@ -843,7 +940,7 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
      * @throws IllegalArgumentException if either the {@code recordUID} or {@code columnName} do not exist in the database
      */
     protected String getAttribute(@NonNull String tableName, @NonNull String recordUID, @NonNull String columnName) {
-        Cursor cursor = mDb.query(tableName,
+        Cursor cursor = query(tableName,
             new String[]{columnName},
             AccountEntry.COLUMN_UID + " = ?",
             new String[]{recordUID}, null, null, null);
@@ -864,7 +961,7 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
      * @return Total number of records in the database
      */
     public long getRecordsCount() {
-        return getRecordsCount(null, null);
+        return queryForLong("SELECT COUNT(*) FROM " + mTableName);
     }
 
     /**
@@ -878,6 +975,16 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
         return DatabaseUtils.queryNumEntries(mDb, mTableName, where, whereArgs);
     }
 
+    /**
+     * Returns the modification stamp of the book, which changes whenever the accounts, transactions,
+     * splits or prices are written.
+     *
+     * @return the stamp
+     */
+    public long getDataStamp() {
+        return queryForLong("SELECT " + DataStampEntry.COLUMN_VERSION + " FROM " + DataStampEntry.TABLE_NAME);
+    }
+
     /**
      * Expose mDb.beginTransaction()
      */
@@ -932,7 +1039,7 @@ public abstract class DatabaseAdapter<Model extends BaseModel> implements Closea
             mUpdateStatement = null;
         }
         if (mDb.isOpen()) {
-            mDb.close();
+            holder.close();
         }
         cache.clear();
     }
@@ -156,7 +156,7 @@ public class PricesDbAdapter extends DatabaseAdapter<Price> {
         String[] whereArgs = new String[]{commodityUID, currencyUID, currencyUID, commodityUID};
         // only get the latest price
         String orderBy = PriceEntry.COLUMN_DATE + " DESC";
-        Cursor cursor = mDb.query(PriceEntry.TABLE_NAME, null, where, whereArgs, null, null, orderBy, "1");
+        Cursor cursor = query(PriceEntry.TABLE_NAME, null, where, whereArgs, null, null, orderBy, "1");
         try {
             if (cursor.moveToFirst()) {
                 Price price = buildModelInstance(cursor);
@@ -29,6 +29,7 @@ import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.db.DatabaseSchema;
 import org.gnucash.android.model.Recurrence;
 import org.gnucash.android.model.ScheduledAction;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 import org.jetbrains.annotations.NotNull;
 
@@ -100,7 +101,9 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
 
         //first add the recurrences, they have no dependencies (foreign key constraints)
         long nRecurrences = recurrenceDbAdapter.bulkAddRecords(recurrenceList, updateMethod);
-        Timber.d("Added %d recurrences for scheduled actions", nRecurrences);
+        if (Logging.isDebug()) {
+            Timber.d("Added %d recurrences for scheduled actions", nRecurrences);
+        }
 
         return super.bulkAddRecords(scheduledActions, updateMethod);
     }
@@ -131,7 +134,9 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
         contentValues.put(ScheduledActionEntry.COLUMN_TAG, scheduledAction.getTag());
         contentValues.put(ScheduledActionEntry.COLUMN_TOTAL_FREQUENCY, scheduledAction.getTotalPlannedExecutionCount());
 
-        Timber.d("Updating scheduled event recurrence attributes");
+        if (Logging.isDebug()) {
+            Timber.d("Updating scheduled event recurrence attributes");
+        }
         String where = ScheduledActionEntry.COLUMN_UID + "=?";
         String[] whereArgs = new String[]{scheduledAction.getUID()};
         return mDb.update(ScheduledActionEntry.TABLE_NAME, contentValues, where, whereArgs);
@@ -217,7 +222,7 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
      * @return List of ScheduledEvents
      */
     public List<ScheduledAction> getScheduledActionsWithUID(@NonNull String actionUID) {
-        Cursor cursor = mDb.query(ScheduledActionEntry.TABLE_NAME, null,
+        Cursor cursor = query(ScheduledActionEntry.TABLE_NAME, null,
             ScheduledActionEntry.COLUMN_ACTION_UID + "= ?",
             new String[]{actionUID}, null, null, null);
         return getRecords(cursor);
@@ -229,7 +234,7 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
      * @return List of enabled scheduled actions
      */
     public List<ScheduledAction> getAllEnabledScheduledActions() {
-        Cursor cursor = mDb.query(mTableName,
+        Cursor cursor = query(mTableName,
             null, ScheduledActionEntry.COLUMN_ENABLED + "=1", null, null, null, null);
         return getRecords(cursor);
     }
@@ -22,11 +22,13 @@ import static org.gnucash.android.db.DatabaseSchema.CommonColumns;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
 import static org.gnucash.android.db.adapter.AccountsDbAdapter.ALWAYS;
-import static org.gnucash.android.math.MathExtKt.toBigDecimal;
 
+import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
@@ -34,16 +36,19 @@ import androidx.annotation.Nullable;
 
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.db.DatabaseHolder;
+import org.gnucash.android.math.ExactSum;
 import org.gnucash.android.model.Account;
 import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
 import org.gnucash.android.model.Split;
 import org.gnucash.android.model.TransactionType;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -62,10 +67,32 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
     @NonNull
     final CommoditiesDbAdapter commoditiesDbAdapter;
+    /**
+     * The search index of the transactions, which is shared with the transactions adapter.
+     */
+    @NonNull
+    final TransactionSearchIndex searchIndex;
     private final Map<String, Commodity> accountCommodities = new HashMap<>();
 
     private static final String credit = TransactionType.CREDIT.value;
 
+    /**
+     * The number of rows to read between checks for cancellation.
+     */
+    private static final int CANCEL_CHECK_ROWS = 1000;
+    /**
+     * The signed quantity of a split, in the commodity of its account.
+     */
+    private static final String SQL_AMOUNT = "CASE WHEN s." + SplitEntry.COLUMN_TYPE + " = '" + credit + "'"
+        + " THEN -s." + SplitEntry.COLUMN_QUANTITY_NUM
+        + " ELSE s." + SplitEntry.COLUMN_QUANTITY_NUM + " END";
+    /**
+     * The splits, with their transactions {@code t} and accounts {@code a}.
+     */
+    private static final String SQL_FROM = " FROM " + TransactionEntry.TABLE_NAME + " t"
+        + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+        + " INNER JOIN " + AccountEntry.TABLE_NAME + " a ON s." + SplitEntry.COLUMN_ACCOUNT_UID + " = a." + AccountEntry.COLUMN_UID;
+
     public SplitsDbAdapter(@NonNull DatabaseHolder holder) {
         this(new CommoditiesDbAdapter(holder));
     }
@@ -86,6 +113,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
             SplitEntry.COLUMN_SCHEDX_ACTION_ACCOUNT_UID
         });
         this.commoditiesDbAdapter = commoditiesDbAdapter;
+        this.searchIndex = new TransactionSearchIndex(mDb);
     }
 
     /**
@@ -110,6 +138,18 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @param split {@link org.gnucash.android.model.Split} to be recorded in DB
      */
     public void addRecord(@NonNull final Split split, UpdateMethod updateMethod) {
+        addSplit(split, updateMethod);
+        // The memo and the amount of the split are part of the transaction's document.
+        searchIndex.update(split.getTransactionUID());
+    }
+
+    /**
+     * Adds a split to the database, without indexing its transaction again.
+     * <p>Used when saving a transaction, which is indexed once with all of its splits.</p>
+     *
+     * @param split {@link org.gnucash.android.model.Split} to be recorded in DB
+     */
+    void addSplit(@NonNull final Split split, UpdateMethod updateMethod) {
         super.addRecord(split, updateMethod);
 
         if (updateMethod != UpdateMethod.insert) {
@@ -196,80 +236,240 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
     @NonNull
     public Map<String, Money> computeSplitBalances(@NonNull List<Account> accounts, long startTimestamp, long endTimestamp) {
-        final int length = accounts.size();
-        String[] selectionArgs = new String[length];
-        for (int i = 0; i < length; i++) {
-            selectionArgs[i] = accounts.get(i).getUID();
+        List<String> accountUIDs = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            accountUIDs.add(account.getUID());
         }
-        String selection = "a." + CommonColumns.COLUMN_UID + " IN ('" + TextUtils.join("','", selectionArgs) + "')";
+        return computeSplitBalancesByUID(accountUIDs, startTimestamp, endTimestamp);
+    }
 
-        return computeSplitBalances(selection, null, startTimestamp, endTimestamp);
+    /**
+     * Computes the sums of the splits of the accounts within the specified time range.
+     *
+     * @param accountUIDs    the account UIDs
+     * @param startTimestamp the start timestamp of the time range
+     * @param endTimestamp   the end timestamp of the time range
+     * @return the sums per account UID, debits minus credits
+     */
+    @NonNull
+    public Map<String, Money> computeSplitBalancesByUID(@NonNull List<String> accountUIDs, long startTimestamp, long endTimestamp) {
+        // Bind the accounts, so that the read needs no write transaction for a temporary table.
+        Map<String, Money> balances = new HashMap<>();
+        final int size = accountUIDs.size();
+        for (int i = 0; i < size; i += MAX_BIND_UIDS) {
+            List<String> chunk = accountUIDs.subList(i, Math.min(size, i + MAX_BIND_UIDS));
+            String selection = "a." + CommonColumns.COLUMN_UID + " IN (" + bindPlaceholders(chunk.size()) + ")";
+            String[] selectionArgs = chunk.toArray(new String[0]);
+            balances.putAll(computeSplitBalances(selection, selectionArgs, startTimestamp, endTimestamp));
+        }
+        return balances;
     }
 
     public Map<String, Money> computeSplitBalances(@Nullable String accountsWhere, @Nullable String[] accountsWhereArgs, long startTimestamp, long endTimestamp) {
         String selection = "t." + TransactionEntry.COLUMN_TEMPLATE + " = 0"
             + " AND s." + SplitEntry.COLUMN_QUANTITY_DENOM + " > 0";
 
+        List<String> selectionArgs = new ArrayList<>();
         if (!TextUtils.isEmpty(accountsWhere)) {
             selection += " AND (" + accountsWhere + ")";
+            if (accountsWhereArgs != null) {
+                selectionArgs.addAll(Arrays.asList(accountsWhereArgs));
+            }
         }
 
+        // Bind the timestamps, so that the query is the same for any period.
         boolean validStart = startTimestamp != ALWAYS;
         boolean validEnd = endTimestamp != ALWAYS;
         if (validStart && validEnd) {
-            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " BETWEEN " + startTimestamp + " AND " + endTimestamp;
+            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " BETWEEN ? AND ?";
+            selectionArgs.add(Long.toString(startTimestamp));
+            selectionArgs.add(Long.toString(endTimestamp));
         } else if (validEnd) {
-            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " <= " + endTimestamp;
+            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " <= ?";
+            selectionArgs.add(Long.toString(endTimestamp));
         } else if (validStart) {
-            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " >= " + startTimestamp;
+            selection += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " >= ?";
+            selectionArgs.add(Long.toString(startTimestamp));
         }
+        String[] args = selectionArgs.toArray(new String[0]);
 
-        String sql = "SELECT SUM(s." + SplitEntry.COLUMN_QUANTITY_NUM + ")"
-            + ", s." + SplitEntry.COLUMN_QUANTITY_DENOM
-            + ", s." + SplitEntry.COLUMN_TYPE
+        String amount = SQL_AMOUNT;
+        String from = SQL_FROM + " WHERE " + selection;
+        String columns = ", s." + SplitEntry.COLUMN_QUANTITY_DENOM
             + ", a." + AccountEntry.COLUMN_UID
-            + ", a." + AccountEntry.COLUMN_COMMODITY_UID
-            + " FROM " + TransactionEntry.TABLE_NAME + " t"
-            + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
-            + " INNER JOIN " + AccountEntry.TABLE_NAME + " a ON s." + SplitEntry.COLUMN_ACCOUNT_UID + " = a." + AccountEntry.COLUMN_UID
-            + " WHERE " + selection
+            + ", a." + AccountEntry.COLUMN_COMMODITY_UID;
+        String sql = "SELECT SUM(" + amount + ")" + columns + from
             + " GROUP BY a." + AccountEntry.COLUMN_UID
-            + ", s." + SplitEntry.COLUMN_TYPE
             + ", s." + SplitEntry.COLUMN_QUANTITY_DENOM;
-        Cursor cursor = mDb.rawQuery(sql, accountsWhereArgs);
 
-        Map<String, Money> totals = new HashMap<>();
+        Map<String, ExactSum> sums = new HashMap<>();
+        Map<String, String> commodityUIDs = new HashMap<>();
         try {
-            if (!cursor.moveToFirst()) {
-                return totals;
+            sumSplitAmounts(rawQuery(sql, args), sums, commodityUIDs);
+        } catch (SQLiteException e) {
+            // SQLite fails the SUM when it overflows 64 bits, so add up the splits one by one instead.
+            Timber.w(e, "Split amounts overflow, summing each split");
+            sums.clear();
+            sql = "SELECT " + amount + columns + from;
+            sumSplitAmounts(rawQuery(sql, args), sums, commodityUIDs);
+        }
+
+        Map<String, Money> totals = new HashMap<>();
+        for (Map.Entry<String, ExactSum> entry : sums.entrySet()) {
+            String accountUID = entry.getKey();
+            Commodity commodity = commoditiesDbAdapter.getRecord(commodityUIDs.get(accountUID));
+            totals.put(accountUID, new Money(entry.getValue().toBigDecimal(), commodity));
+        }
+        return totals;
+    }
+
+    /**
+     * Computes the balances of the accounts for consecutive periods, with a single pass over their splits.
+     * <p>Period {@code i} starts at {@code periods[i]} inclusive, and ends at {@code periods[i + 1]} exclusive,
+     * except for the last period whose end is inclusive. The first start, and the last end, may be
+     * {@link AccountsDbAdapter#ALWAYS}.</p>
+     *
+     * @param accounts the accounts
+     * @param periods  the boundaries of the periods, in ascending order
+     * @return the balances per account UID, for each period
+     */
+    @NonNull
+    public List<Map<String, Money>> computeSplitBalances(@NonNull List<Account> accounts, @NonNull long[] periods) {
+        return computeSplitBalances(accounts, periods, null);
+    }
+
+    /**
+     * Computes the balances of the accounts for consecutive periods, with a single pass over their splits.
+     *
+     * @param accounts           the accounts
+     * @param periods            the boundaries of the periods, in ascending order
+     * @param cancellationSignal signal to cancel the computation, if any
+     * @return the balances per account UID, for each period
+     * @throws android.os.OperationCanceledException if the signal is cancelled
+     * @see #computeSplitBalances(List, long[])
+     */
+    @NonNull
+    public List<Map<String, Money>> computeSplitBalances(
+        @NonNull List<Account> accounts,
+        @NonNull long[] periods,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        final int count = periods.length - 1;
+        List<String> accountUIDs = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            accountUIDs.add(account.getUID());
+        }
+        long startTimestamp = periods[0];
+        long endTimestamp = periods[count];
+        String where = "";
+        List<String> timestampArgs = new ArrayList<>();
+        if (startTimestamp != ALWAYS) {
+            where += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " >= ?";
+            timestampArgs.add(Long.toString(startTimestamp));
+        }
+        if (endTimestamp != ALWAYS) {
+            where += " AND t." + TransactionEntry.COLUMN_TIMESTAMP + " <= ?";
+            timestampArgs.add(Long.toString(endTimestamp));
+        }
+
+        List<Map<String, ExactSum>> sums = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sums.add(new HashMap<String, ExactSum>());
+        }
+        Map<String, String> commodityUIDs = new HashMap<>();
+        // Bind the accounts, so that the read needs no write transaction for a temporary table.
+        final int size = accountUIDs.size();
+        for (int i = 0; i < size; i += MAX_BIND_UIDS) {
+            List<String> chunk = accountUIDs.subList(i, Math.min(size, i + MAX_BIND_UIDS));
+            String sql = "SELECT " + SQL_AMOUNT
+                + ", s." + SplitEntry.COLUMN_QUANTITY_DENOM
+                + ", a." + AccountEntry.COLUMN_UID
+                + ", a." + AccountEntry.COLUMN_COMMODITY_UID
+                + ", t." + TransactionEntry.COLUMN_TIMESTAMP
+                + SQL_FROM
+                + " WHERE t." + TransactionEntry.COLUMN_TEMPLATE + " = 0"
+                + " AND s." + SplitEntry.COLUMN_QUANTITY_DENOM + " > 0"
+                + " AND a." + CommonColumns.COLUMN_UID + " IN (" + bindPlaceholders(chunk.size()) + ")"
+                + where;
+            List<String> selectionArgs = new ArrayList<>(chunk);
+            selectionArgs.addAll(timestampArgs);
+            String[] args = selectionArgs.toArray(new String[0]);
+
+            Cursor cursor = rawQuery(sql, args, cancellationSignal);
+            try {
+                while (cursor.moveToNext()) {
+                    if ((cancellationSignal != null) && ((cursor.getPosition() % CANCEL_CHECK_ROWS) == 0)) {
+                        cancellationSignal.throwIfCanceled();
+                    }
+                    int period = findPeriod(periods, cursor.getLong(4));
+                    String accountUID = cursor.getString(2);
+                    Map<String, ExactSum> periodSums = sums.get(period);
+                    ExactSum sum = periodSums.get(accountUID);
+                    if (sum == null) {
+                        sum = new ExactSum();
+                        periodSums.put(accountUID, sum);
+                        commodityUIDs.put(accountUID, cursor.getString(3));
+                    }
+                    sum.add(cursor.getLong(0), cursor.getLong(1));
+                }
+            } finally {
+                cursor.close();
             }
-            do {
-                //FIXME beware of 64-bit overflow - get as BigInteger
+        }
+
+        List<Map<String, Money>> balances = new ArrayList<>(count);
+        for (Map<String, ExactSum> periodSums : sums) {
+            Map<String, Money> totals = new HashMap<>();
+            for (Map.Entry<String, ExactSum> entry : periodSums.entrySet()) {
+                String accountUID = entry.getKey();
+                Commodity commodity = commoditiesDbAdapter.getRecord(commodityUIDs.get(accountUID));
+                totals.put(accountUID, new Money(entry.getValue().toBigDecimal(), commodity));
+            }
+            balances.add(totals);
+        }
+        return balances;
+    }
+
+    /**
+     * Finds the period which contains the time.
+     *
+     * @param periods   the boundaries of the periods, in ascending order
+     * @param timestamp the time, which is within the bounds of the periods
+     * @return the index of the period
+     */
+    private static int findPeriod(@NonNull long[] periods, long timestamp) {
+        final int count = periods.length - 1;
+        int index = Arrays.binarySearch(periods, 1, count, timestamp);
+        // An exact match starts the next period, otherwise the insertion point is after the start.
+        int period = (index >= 0) ? index : (-index - 2);
+        return Math.max(0, Math.min(period, count - 1));
+    }
+
+    /**
+     * Adds up the amounts of the splits per account.
+     *
+     * @param cursor        cursor with the amount numerator, amount denominator, account UID and commodity UID columns
+     * @param sums          the sums per account UID
+     * @param commodityUIDs the commodity UIDs per account UID
+     */
+    private void sumSplitAmounts(@NonNull Cursor cursor, @NonNull Map<String, ExactSum> sums, @NonNull Map<String, String> commodityUIDs) {
+        try {
+            while (cursor.moveToNext()) {
                 long amount_num = cursor.getLong(0);
                 long amount_denom = cursor.getLong(1);
-                String splitType = cursor.getString(2);
-                String accountUID = cursor.getString(3);
-                String commodityUID = cursor.getString(4);
+                String accountUID = cursor.getString(2);
 
-                if (credit.equals(splitType)) {
-                    amount_num = -amount_num;
-                }
-                BigDecimal amount = toBigDecimal(amount_num, amount_denom);
-                Commodity commodity = commoditiesDbAdapter.getRecord(commodityUID);
-                Money balance = new Money(amount, commodity);
-                Money total = totals.get(accountUID);
-                if (total == null) {
-                    total = balance;
-                } else {
-                    total = total.plus(balance);
+                ExactSum sum = sums.get(accountUID);
+                if (sum == null) {
+                    sum = new ExactSum();
+                    sums.put(accountUID, sum);
+                    commodityUIDs.put(accountUID, cursor.getString(3));
                 }
-                totals.put(accountUID, total);
-            } while (cursor.moveToNext());
+                sum.add(amount_num, amount_denom);
+            }
         } finally {
             cursor.close();
         }
-
-        return totals;
     }
 
     /**
@@ -316,7 +516,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return Cursor to split records
      */
     public Cursor fetchSplits(String where, String[] whereArgs, String sortOrder) {
-        return mDb.query(SplitEntry.TABLE_NAME, null, where, whereArgs, null, null, sortOrder);
+        return query(SplitEntry.TABLE_NAME, null, where, whereArgs, null, null, sortOrder);
     }
 
     /**
@@ -326,11 +526,13 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return Cursor to splits
      */
     public Cursor fetchSplitsForTransaction(String transactionUID) {
-        Timber.v("Fetching all splits for transaction UID %s", transactionUID);
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching all splits for transaction UID %s", transactionUID);
+        }
         String where = SplitEntry.COLUMN_TRANSACTION_UID + " = ?";
         String[] whereArgs = new String[]{transactionUID};
         String orderBy = SplitEntry.COLUMN_ID + " ASC";
-        return mDb.query(mTableName, null, where, whereArgs, null, null, orderBy);
+        return query(mTableName, null, where, whereArgs, null, null, orderBy);
     }
 
     /**
@@ -340,7 +542,9 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return Cursor containing splits dataset
      */
     public Cursor fetchSplitsForAccount(String accountUID) {
-        Timber.d("Fetching all splits for account UID %s", accountUID);
+        if (Logging.isDebug()) {
+            Timber.d("Fetching all splits for account UID %s", accountUID);
+        }
 
         //This is more complicated than a simple "where account_uid=?" query because
         // we need to *not* return any splits which belong to recurring transactions
@@ -371,9 +575,11 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
         if (transactionUID == null || accountUID == null)
             return null;
 
-        Timber.v("Fetching all splits for transaction ID " + transactionUID
-            + "and account ID " + accountUID);
-        return mDb.query(SplitEntry.TABLE_NAME,
+        if (Logging.isVerbose()) {
+            Timber.v("Fetching all splits for transaction ID " + transactionUID
+                + "and account ID " + accountUID);
+        }
+        return query(SplitEntry.TABLE_NAME,
             null, SplitEntry.COLUMN_TRANSACTION_UID + " = ? AND "
                 + SplitEntry.COLUMN_ACCOUNT_UID + " = ?",
             new String[]{transactionUID, accountUID},
@@ -387,7 +593,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return String unique ID of the transaction or null if transaction with the ID cannot be found.
      */
     public String getTransactionUID(long transactionId) {
-        Cursor cursor = mDb.query(TransactionEntry.TABLE_NAME,
+        Cursor cursor = query(TransactionEntry.TABLE_NAME,
             new String[]{TransactionEntry.COLUMN_UID},
             TransactionEntry._ID + " = " + transactionId,
             null, null, null, null);
@@ -410,14 +616,18 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
         if (!result) //we didn't delete for whatever reason, invalid rowId etc
             return false;
+        TransactionSuggestionIndex.getInstance(holder.name).invalidate();
 
         //if we just deleted the last split, then remove the transaction from db
         Cursor cursor = fetchSplitsForTransaction(transactionUID);
         try {
             if (cursor.getCount() > 0) {
                 long transactionID = getTransactionID(transactionUID);
+                searchIndex.remove(transactionID);
                 result = mDb.delete(TransactionEntry.TABLE_NAME,
                     TransactionEntry._ID + "=" + transactionID, null) > 0;
+            } else {
+                searchIndex.update(transactionUID);
             }
         } finally {
             cursor.close();
@@ -432,7 +642,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return Database record ID for the transaction
      */
     public long getTransactionID(String transactionUID) {
-        Cursor c = mDb.query(TransactionEntry.TABLE_NAME,
+        Cursor c = query(TransactionEntry.TABLE_NAME,
             new String[]{TransactionEntry._ID},
             TransactionEntry.COLUMN_UID + "=?",
             new String[]{transactionUID}, null, null, null);
@@ -447,7 +657,47 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
         }
     }
 
+    /**
+     * Moves the splits of the transactions from one account to another, with a single statement.
+     *
+     * @param transactionUIDs GUIDs of the transactions whose splits are to be moved
+     * @param srcAccountUID   GUID of the account from which the splits are to be moved
+     * @param dstAccountUID   GUID of the account to which the splits will be assigned
+     * @return Number of splits moved
+     */
+    public int moveSplits(@NonNull Collection<String> transactionUIDs, @NonNull String srcAccountUID, @NonNull String dstAccountUID) {
+        if (transactionUIDs.isEmpty()) {
+            return 0;
+        }
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(SplitEntry.COLUMN_ACCOUNT_UID, dstAccountUID);
+        String where = SplitEntry.COLUMN_ACCOUNT_UID + " = ? AND " + SplitEntry.COLUMN_TRANSACTION_UID
+            + " IN (SELECT " + CommonColumns.COLUMN_UID + " FROM " + TEMP_UIDS_TABLE + ")";
+        int moved;
+        beginTransaction();
+        try {
+            fillTempUIDs(transactionUIDs);
+            moved = mDb.update(mTableName, contentValues, where, new String[]{srcAccountUID});
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        if (isCached) {
+            cache.clear();
+        }
+        TransactionSuggestionIndex.getInstance(holder.name).invalidate();
+        if (moved > 0) {
+            // Keeps the documents of the moved transactions in step with their splits.
+            List<String> movedUIDs = new ArrayList<>(transactionUIDs);
+            searchIndex.removeAll(movedUIDs);
+            searchIndex.addAll(movedUIDs);
+        }
+        Timber.i("Moved %d splits from account %s to account %s", moved, srcAccountUID, dstAccountUID);
+        return moved;
+    }
+
     public void reassignAccount(@NonNull String oldAccountUID, @NonNull String newAccountUID) {
+        TransactionSuggestionIndex.getInstance(holder.name).invalidate();
         updateRecords(
             SplitEntry.COLUMN_ACCOUNT_UID + " = ?",
             new String[]{oldAccountUID},
@@ -468,7 +718,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
         if (commodity != null) {
             return commodity;
         }
-        Cursor cursor = mDb.query(
+        Cursor cursor = query(
             AccountEntry.TABLE_NAME,
             new String[]{AccountEntry.COLUMN_COMMODITY_UID},
             AccountEntry.COLUMN_UID + "= ?",
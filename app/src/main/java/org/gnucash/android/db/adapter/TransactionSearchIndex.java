@@ -0,0 +1,274 @@
+package org.gnucash.android.db.adapter;
+
+import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionSearchEntry;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.gnucash.android.db.QueryStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * Full-text search index of the transactions in a book.
+ * <p>Each non-template transaction has one document in the {@link TransactionSearchEntry#TABLE_NAME}
+ * table, with its description, notes, split memos and split amounts. The document id is the record ID
+ * of the transaction, so the index is kept up to date by the adapters whenever they write transactions
+ * or splits. While a whole book is imported, the index can be suspended and then rebuilt once.</p>
+ * <p>Search terms are matched as word prefixes, and quoted terms are matched as phrases.
+ * Amounts are indexed as plain numbers, e.g. {@code 1234.50}, so they can be searched for too.</p>
+ */
+public class TransactionSearchIndex {
+
+    /**
+     * Selects the documents to index: record ID, description, notes, memos and amounts of the transactions.
+     */
+    private static final String SQL_SELECT_DOCUMENTS = "SELECT t." + TransactionEntry._ID
+        + ", t." + TransactionEntry.COLUMN_DESCRIPTION
+        + ", t." + TransactionEntry.COLUMN_NOTES
+        + ", (SELECT group_concat(s." + SplitEntry.COLUMN_MEMO + ", ' ')"
+        + " FROM " + SplitEntry.TABLE_NAME + " s"
+        + " WHERE s." + SplitEntry.COLUMN_TRANSACTION_UID + " = t." + TransactionEntry.COLUMN_UID + ")"
+        + ", (SELECT group_concat(printf('%.' || (length(s." + SplitEntry.COLUMN_VALUE_DENOM + ") - 1) || 'f',"
+        + " abs(s." + SplitEntry.COLUMN_VALUE_NUM + ") * 1.0 / s." + SplitEntry.COLUMN_VALUE_DENOM + "), ' ')"
+        + " FROM " + SplitEntry.TABLE_NAME + " s"
+        + " WHERE s." + SplitEntry.COLUMN_TRANSACTION_UID + " = t." + TransactionEntry.COLUMN_UID + ")"
+        + " FROM " + TransactionEntry.TABLE_NAME + " t"
+        + " WHERE t." + TransactionEntry.COLUMN_TEMPLATE + " = 0";
+
+    private static final String SQL_INSERT_DOCUMENTS = "INSERT INTO " + TransactionSearchEntry.TABLE_NAME
+        + " (docid"
+        + ", " + TransactionSearchEntry.COLUMN_DESCRIPTION
+        + ", " + TransactionSearchEntry.COLUMN_NOTES
+        + ", " + TransactionSearchEntry.COLUMN_MEMOS
+        + ", " + TransactionSearchEntry.COLUMN_AMOUNTS + ") "
+        + SQL_SELECT_DOCUMENTS;
+
+    @NonNull
+    private final SQLiteDatabase db;
+    private boolean isSuspended = false;
+
+    public TransactionSearchIndex(@NonNull SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Discards the whole index, and indexes all the transactions again.
+     *
+     * @param db the database.
+     */
+    public static void rebuild(@NonNull SQLiteDatabase db) {
+        long start = System.nanoTime();
+        db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME);
+        db.execSQL(SQL_INSERT_DOCUMENTS);
+        Timber.i("Rebuilt transactions search index in %d ns", System.nanoTime() - start);
+    }
+
+    /**
+     * Stops updating the index on every write, e.g. while a book is imported.
+     * <p>Call {@link #rebuild()} when done, to index all the transactions at once.</p>
+     */
+    public void suspend() {
+        isSuspended = true;
+    }
+
+    /**
+     * Indexes all the transactions again, and resumes updating the index on every write.
+     */
+    public void rebuild() {
+        rebuild(db);
+        isSuspended = false;
+    }
+
+    /**
+     * Indexes a saved transaction.
+     *
+     * @param transactionId record ID of the transaction
+     */
+    public void add(long transactionId) {
+        if (isSuspended) return;
+        db.execSQL(SQL_INSERT_DOCUMENTS + " AND t." + TransactionEntry._ID + " = ?",
+            new Object[]{transactionId});
+    }
+
+    /**
+     * Removes a transaction from the index.
+     *
+     * @param transactionId record ID of the transaction
+     */
+    public void remove(long transactionId) {
+        if (isSuspended) return;
+        db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME + " WHERE docid = ?",
+            new Object[]{transactionId});
+    }
+
+    /**
+     * Indexes a transaction again, after its splits have changed.
+     *
+     * @param transactionUID GUID of the transaction
+     */
+    public void update(@NonNull String transactionUID) {
+        if (isSuspended) return;
+        db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME + " WHERE docid IN"
+                + " (SELECT " + TransactionEntry._ID + " FROM " + TransactionEntry.TABLE_NAME
+                + " WHERE " + TransactionEntry.COLUMN_UID + " = ?)",
+            new Object[]{transactionUID});
+        db.execSQL(SQL_INSERT_DOCUMENTS + " AND t." + TransactionEntry.COLUMN_UID + " = ?",
+            new Object[]{transactionUID});
+    }
+
+    /**
+     * Removes the transactions from the index, before they are written in bulk.
+     * <p>Replacing a transaction changes its record ID, so its document must be removed first.</p>
+     *
+     * @param transactionUIDs GUIDs of the transactions
+     */
+    public void removeAll(@NonNull List<String> transactionUIDs) {
+        if (isSuspended) return;
+        final int size = transactionUIDs.size();
+        for (int i = 0; i < size; i += DatabaseAdapter.MAX_BIND_UIDS) {
+            List<String> chunk = transactionUIDs.subList(i, Math.min(size, i + DatabaseAdapter.MAX_BIND_UIDS));
+            db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME + " WHERE docid IN"
+                    + " (SELECT " + TransactionEntry._ID + " FROM " + TransactionEntry.TABLE_NAME
+                    + " WHERE " + TransactionEntry.COLUMN_UID + " IN (" + DatabaseAdapter.bindPlaceholders(chunk.size()) + "))",
+                chunk.toArray());
+        }
+    }
+
+    /**
+     * Indexes the transactions, after they were written in bulk, with one statement per chunk.
+     *
+     * @param transactionUIDs GUIDs of the transactions
+     */
+    public void addAll(@NonNull List<String> transactionUIDs) {
+        if (isSuspended) return;
+        final int size = transactionUIDs.size();
+        for (int i = 0; i < size; i += DatabaseAdapter.MAX_BIND_UIDS) {
+            List<String> chunk = transactionUIDs.subList(i, Math.min(size, i + DatabaseAdapter.MAX_BIND_UIDS));
+            db.execSQL(SQL_INSERT_DOCUMENTS + " AND t." + TransactionEntry.COLUMN_UID
+                    + " IN (" + DatabaseAdapter.bindPlaceholders(chunk.size()) + ")",
+                chunk.toArray());
+        }
+    }
+
+    /**
+     * Removes the documents of transactions which no longer exist.
+     * <p>Should be called after deleting transactions in bulk, or when their deletion cascades from
+     * other tables.</p>
+     */
+    public void purge() {
+        if (isSuspended) return;
+        db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME + " WHERE docid NOT IN"
+            + " (SELECT " + TransactionEntry._ID + " FROM " + TransactionEntry.TABLE_NAME + ")");
+    }
+
+    /**
+     * Removes all the documents from the index.
+     */
+    public void clear() {
+        db.execSQL("DELETE FROM " + TransactionSearchEntry.TABLE_NAME);
+    }
+
+    /**
+     * Searches for transactions.
+     * <p>The results are ordered by date, newest first, so that the pages are stable.</p>
+     *
+     * @param query      the text to search for. When empty, only the other filters apply.
+     * @param accountUID GUID of the account which the transactions must have a split in, or {@code null} for all accounts
+     * @param startTime  the earliest time of the transactions, inclusive, or {@link Long#MIN_VALUE}
+     * @param endTime    the latest time of the transactions, inclusive, or {@link Long#MAX_VALUE}
+     * @param limit      maximum number of transactions per page
+     * @param offset     number of transactions to skip, i.e. of the previous pages
+     * @return cursor with all the columns of the matching transactions
+     */
+    @NonNull
+    public Cursor search(
+        @NonNull String query,
+        @Nullable String accountUID,
+        long startTime,
+        long endTime,
+        int limit,
+        int offset
+    ) {
+        List<String> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT t.* FROM " + TransactionEntry.TABLE_NAME + " t")
+            .append(" WHERE t.").append(TransactionEntry.COLUMN_TEMPLATE).append(" = 0")
+            .append(" AND t.").append(TransactionEntry.COLUMN_TIMESTAMP).append(" >= ?")
+            .append(" AND t.").append(TransactionEntry.COLUMN_TIMESTAMP).append(" <= ?");
+        args.add(Long.toString(startTime));
+        args.add(Long.toString(endTime));
+
+        String match = toMatchQuery(query);
+        if (!match.isEmpty()) {
+            sql.append(" AND t.").append(TransactionEntry._ID).append(" IN (SELECT docid FROM ")
+                .append(TransactionSearchEntry.TABLE_NAME).append(" WHERE ")
+                .append(TransactionSearchEntry.TABLE_NAME).append(" MATCH ?)");
+            args.add(match);
+        }
+        if (!TextUtils.isEmpty(accountUID)) {
+            sql.append(" AND t.").append(TransactionEntry.COLUMN_UID).append(" IN (SELECT ")
+                .append(SplitEntry.COLUMN_TRANSACTION_UID).append(" FROM ").append(SplitEntry.TABLE_NAME)
+                .append(" WHERE ").append(SplitEntry.COLUMN_ACCOUNT_UID).append(" = ?)");
+            args.add(accountUID);
+        }
+        sql.append(" ORDER BY t.").append(TransactionEntry.COLUMN_TIMESTAMP).append(" DESC")
+            .append(", t.").append(TransactionEntry._ID).append(" DESC")
+            .append(" LIMIT ").append(limit)
+            .append(" OFFSET ").append(offset);
+
+        return QueryStats.getInstance().rawQuery(db, sql.toString(), args.toArray(new String[0]));
+    }
+
+    /**
+     * Converts the text that the user typed into an FTS query expression.
+     * <p>Every term is quoted so that the user cannot enter any operators. Unquoted terms are
+     * matched as word prefixes, and quoted terms are matched as phrases. All terms must match.</p>
+     *
+     * @param text the search text
+     * @return the query expression, or an empty string if there is nothing to search for
+     */
+    @VisibleForTesting
+    @NonNull
+    static String toMatchQuery(@NonNull String text) {
+        StringBuilder match = new StringBuilder();
+        String[] parts = text.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].replace("*", " ");
+            boolean isPhrase = (i % 2) == 1;
+            if (isPhrase) {
+                appendTerm(match, part.trim(), false);
+            } else {
+                for (String word : part.trim().split("\\s+")) {
+                    appendTerm(match, word, true);
+                }
+            }
+        }
+        return match.toString();
+    }
+
+    private static void appendTerm(@NonNull StringBuilder match, @NonNull String term, boolean isPrefix) {
+        if (!hasLetterOrDigit(term)) return;
+        if (match.length() > 0) match.append(' ');
+        match.append('"').append(term);
+        if (isPrefix) match.append('*');
+        match.append('"');
+    }
+
+    private static boolean hasLetterOrDigit(@NonNull String term) {
+        final int length = term.length();
+        for (int i = 0; i < length; i++) {
+            if (Character.isLetterOrDigit(term.charAt(i))) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,265 @@
+package org.gnucash.android.db.adapter;
+
+import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.db.QueryStats;
+import org.gnucash.android.model.Split;
+import org.gnucash.android.model.Transaction;
+import org.gnucash.android.util.Logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import timber.log.Timber;
+
+/**
+ * In-memory index of distinct transaction descriptions, used for auto-completing the description
+ * when entering a new transaction.
+ * <p>There is one index per book. Descriptions are indexed per account the first time that
+ * suggestions are requested for the account, and then kept up to date as new transactions are
+ * saved. Any other kind of write to the transactions or splits tables invalidates the index,
+ * so that it is rebuilt on the next request.</p>
+ * <p>Every word of a description is a prefix key, so that typing "coffee" suggests "Starbucks coffee".
+ * Suggestions are ranked by recency, and then by frequency.</p>
+ */
+public class TransactionSuggestionIndex {
+
+    /**
+     * Maximum number of suggestions to return
+     */
+    public static final int SUGGESTIONS_LIMIT = 10;
+
+    /**
+     * Separates the indexed word from the description within the keys of the sorted map.
+     * It sorts before any other character so that a key never falls outside its prefix range.
+     */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final String[] COLUMNS = new String[]{
+        TransactionEntry._ID,
+        TransactionEntry.COLUMN_UID,
+        TransactionEntry.COLUMN_DESCRIPTION,
+        TransactionEntry.COLUMN_TIMESTAMP
+    };
+
+    private static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            int result = Long.compare(o2.timestamp, o1.timestamp);
+            if (result != 0) return result;
+            return Integer.compare(o2.count, o1.count);
+        }
+    };
+
+    private static final Map<String, TransactionSuggestionIndex> instances = new ConcurrentHashMap<>();
+
+    /**
+     * Descriptions indexed per account UID
+     */
+    private final Map<String, AccountIndex> accounts = new HashMap<>();
+
+    /**
+     * Returns the index for the book
+     *
+     * @param bookUID GUID of the book
+     * @return the suggestions index
+     */
+    @NonNull
+    public static TransactionSuggestionIndex getInstance(@NonNull String bookUID) {
+        TransactionSuggestionIndex index = instances.get(bookUID);
+        if (index == null) {
+            index = new TransactionSuggestionIndex();
+            TransactionSuggestionIndex previous = instances.putIfAbsent(bookUID, index);
+            if (previous != null) {
+                index = previous;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns a cursor with the suggestions for descriptions which contain a word starting with {@code prefix}.
+     *
+     * @param db         the database to read when the account has not been indexed yet
+     * @param prefix     starting characters of the description
+     * @param accountUID GUID of the account within which to search for transactions
+     * @return cursor with the columns {@code _id}, {@code uid}, {@code name} and {@code timestamp}
+     */
+    @NonNull
+    public synchronized Cursor query(@NonNull SQLiteDatabase db, @Nullable String prefix, @NonNull String accountUID) {
+        AccountIndex index = accounts.get(accountUID);
+        if (index == null) {
+            index = loadAccount(db, accountUID);
+            accounts.put(accountUID, index);
+        }
+        List<Entry> entries = index.find(normalize(prefix), SUGGESTIONS_LIMIT);
+
+        MatrixCursor cursor = new MatrixCursor(COLUMNS, entries.size());
+        for (Entry entry : entries) {
+            cursor.addRow(new Object[]{entry.transactionId, entry.transactionUID, entry.description, entry.timestamp});
+        }
+        return cursor;
+    }
+
+    /**
+     * Adds a newly inserted transaction to the indexes of the accounts that it has splits in.
+     * <p>Accounts which have not been indexed yet are skipped, since they will be loaded from the database.</p>
+     *
+     * @param transaction the saved transaction
+     */
+    public synchronized void add(@NonNull Transaction transaction) {
+        if (transaction.isTemplate() || transaction.id == 0) return;
+        String description = transaction.getDescription();
+        if (TextUtils.isEmpty(description)) return;
+
+        Set<String> accountUIDs = new HashSet<>();
+        for (Split split : transaction.getSplits()) {
+            accountUIDs.add(split.getAccountUID());
+        }
+        for (String accountUID : accountUIDs) {
+            AccountIndex index = accounts.get(accountUID);
+            if (index != null) {
+                index.add(description, transaction.id, transaction.getUID(), transaction.getTimeMillis(), 1);
+            }
+        }
+    }
+
+    /**
+     * Discards all the indexed descriptions.
+     */
+    public synchronized void invalidate() {
+        accounts.clear();
+    }
+
+    @NonNull
+    private AccountIndex loadAccount(@NonNull SQLiteDatabase db, @NonNull String accountUID) {
+        long start = System.nanoTime();
+        String sql = "SELECT t." + TransactionEntry._ID
+            + ", t." + TransactionEntry.COLUMN_UID
+            + ", t." + TransactionEntry.COLUMN_DESCRIPTION
+            + ", MAX(t." + TransactionEntry.COLUMN_TIMESTAMP + ")"
+            + ", COUNT(DISTINCT t." + TransactionEntry.COLUMN_UID + ")"
+            + " FROM " + TransactionEntry.TABLE_NAME + " t"
+            + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON"
+            + " t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + " WHERE s." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+            + " AND t." + TransactionEntry.COLUMN_TEMPLATE + " = 0"
+            + " AND t." + TransactionEntry.COLUMN_DESCRIPTION + " != ''"
+            + " GROUP BY t." + TransactionEntry.COLUMN_DESCRIPTION;
+        AccountIndex index = new AccountIndex();
+        Cursor cursor = QueryStats.getInstance().rawQuery(db, sql, new String[]{accountUID});
+        try {
+            while (cursor.moveToNext()) {
+                index.add(cursor.getString(2), cursor.getLong(0), cursor.getString(1), cursor.getLong(3), cursor.getInt(4));
+            }
+        } finally {
+            cursor.close();
+        }
+        if (Logging.isVerbose()) {
+            Timber.v("Indexed %d descriptions for account %s in %d ns", index.byDescription.size(), accountUID, System.nanoTime() - start);
+        }
+        return index;
+    }
+
+    @NonNull
+    private static String normalize(@Nullable String text) {
+        return (text == null) ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+        @NonNull
+        final String description;
+        long transactionId;
+        @NonNull
+        String transactionUID;
+        long timestamp;
+        int count;
+
+        Entry(@NonNull String description, long transactionId, @NonNull String transactionUID, long timestamp, int count) {
+            this.description = description;
+            this.transactionId = transactionId;
+            this.transactionUID = transactionUID;
+            this.timestamp = timestamp;
+            this.count = count;
+        }
+    }
+
+    private static class AccountIndex {
+        /**
+         * Entries by their exact description, like {@code GROUP BY description}.
+         */
+        final Map<String, Entry> byDescription = new HashMap<>();
+        /**
+         * Entries keyed by each word-start suffix of the normalized description.
+         */
+        final TreeMap<String, Entry> byWord = new TreeMap<>();
+
+        void add(@NonNull String description, long transactionId, @NonNull String transactionUID, long timestamp, int count) {
+            Entry entry = byDescription.get(description);
+            if (entry != null) {
+                entry.count += count;
+                if (timestamp >= entry.timestamp) {
+                    entry.timestamp = timestamp;
+                    entry.transactionId = transactionId;
+                    entry.transactionUID = transactionUID;
+                }
+                return;
+            }
+            entry = new Entry(description, transactionId, transactionUID, timestamp, count);
+            byDescription.put(description, entry);
+
+            String normalized = normalize(description);
+            final int length = normalized.length();
+            for (int i = 0; i < length; i++) {
+                if ((i == 0) || (!Character.isLetterOrDigit(normalized.charAt(i - 1)) && Character.isLetterOrDigit(normalized.charAt(i)))) {
+                    byWord.put(normalized.substring(i) + KEY_SEPARATOR + description, entry);
+                }
+            }
+        }
+
+        @NonNull
+        List<Entry> find(@NonNull String prefix, int limit) {
+            final Iterable<Entry> candidates;
+            if (prefix.isEmpty()) {
+                candidates = byDescription.values();
+            } else {
+                SortedMap<String, Entry> range = byWord.subMap(prefix, prefix + Character.MAX_VALUE);
+                candidates = range.values();
+            }
+
+            // Bounded selection of the best ranked entries, with the worst at the head of the queue.
+            PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder(RANKING));
+            Set<Entry> seen = new HashSet<>();
+            for (Entry entry : candidates) {
+                if (!seen.add(entry)) continue;
+                best.offer(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Entry> result = new ArrayList<>(best);
+            Collections.sort(result, RANKING);
+            return result;
+        }
+    }
+}
@@ -18,11 +18,11 @@
 
 package org.gnucash.android.db.adapter;
 
-import static org.gnucash.android.db.DatabaseHelper.sqlEscapeLike;
 import static org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import static org.gnucash.android.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -38,16 +38,22 @@ import androidx.annotation.Nullable;
 
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.db.DatabaseHolder;
+import org.gnucash.android.db.KeysetPagedCursor;
 import org.gnucash.android.model.AccountType;
 import org.gnucash.android.model.Money;
 import org.gnucash.android.model.Split;
 import org.gnucash.android.model.Transaction;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -69,6 +75,12 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
     @NonNull
     public final CommoditiesDbAdapter commoditiesDbAdapter;
 
+    @NonNull
+    private final TransactionSuggestionIndex suggestionIndex;
+
+    @NonNull
+    private final TransactionSearchIndex searchIndex;
+
     /**
      * Overloaded constructor. Creates adapter for already open db
      *
@@ -95,6 +107,8 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         });
         this.splitsDbAdapter = splitsDbAdapter;
         this.commoditiesDbAdapter = splitsDbAdapter.commoditiesDbAdapter;
+        this.suggestionIndex = TransactionSuggestionIndex.getInstance(holder.name);
+        this.searchIndex = splitsDbAdapter.searchIndex;
     }
 
     public TransactionsDbAdapter(@NonNull CommoditiesDbAdapter commoditiesDbAdapter) {
@@ -123,6 +137,10 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         final boolean didChange = transaction.id != 0;
         try {
             beginTransaction();
+            if (didChange) {
+                // Replacing the record also changes its ID.
+                searchIndex.remove(transaction.id);
+            }
             Split imbalanceSplit = transaction.createAutoBalanceSplit();
             if (imbalanceSplit != null) {
                 Context context = GnuCashApplication.getAppContext();
@@ -133,13 +151,15 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
             super.addRecord(transaction, updateMethod);
 
             List<Split> splits = transaction.getSplits();
-            Timber.d("Adding %d splits for transaction", splits.size());
+            if (Logging.isDebug()) {
+                Timber.d("Adding %d splits for transaction", splits.size());
+            }
             List<String> splitUIDs = new ArrayList<>(splits.size());
             for (Split split : splits) {
                 if (imbalanceSplit == split) {
-                    splitsDbAdapter.addRecord(split, UpdateMethod.insert);
+                    splitsDbAdapter.addSplit(split, UpdateMethod.insert);
                 } else {
-                    splitsDbAdapter.addRecord(split, updateMethod);
+                    splitsDbAdapter.addSplit(split, updateMethod);
                 }
                 splitUIDs.add(split.getUID());
             }
@@ -149,13 +169,23 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
                     + SplitEntry.COLUMN_UID + " NOT IN ('" + TextUtils.join("','", splitUIDs) + "')";
                 String[] deleteArgs = new String[]{transaction.getUID()};
                 long deleted = mDb.delete(SplitEntry.TABLE_NAME, deleteWhere, deleteArgs);
-                Timber.d("%d splits deleted", deleted);
+                if (Logging.isDebug()) {
+                    Timber.d("%d splits deleted", deleted);
+                }
             }
+            searchIndex.add(transaction.id);
 
             setTransactionSuccessful();
         } finally {
             endTransaction();
         }
+
+        if (didChange) {
+            // The description, or the accounts, may have changed.
+            suggestionIndex.invalidate();
+        } else {
+            suggestionIndex.add(transaction);
+        }
     }
 
     /**
@@ -170,27 +200,44 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      */
     @Override
     public long bulkAddRecords(@NonNull List<Transaction> transactionList, UpdateMethod updateMethod) throws SQLException {
-        long start = System.nanoTime();
-        long rowInserted = super.bulkAddRecords(transactionList, updateMethod);
-        long end = System.nanoTime();
-        Timber.d("bulk add transaction time %d", end - start);
-        List<Split> splitList = new ArrayList<>(transactionList.size() * 3);
+        suggestionIndex.invalidate();
+        List<String> transactionUIDs = new ArrayList<>(transactionList.size());
         for (Transaction transaction : transactionList) {
-            splitList.addAll(transaction.getSplits());
+            transactionUIDs.add(transaction.getUID());
         }
-        if (rowInserted != 0 && !splitList.isEmpty()) {
-            try {
-                start = System.nanoTime();
-                long nSplits = splitsDbAdapter.bulkAddRecords(splitList, updateMethod);
-                Timber.d("%d splits inserted in %d ns", nSplits, System.nanoTime() - start);
-            } finally {
-                SQLiteStatement deleteEmptyTransaction = mDb.compileStatement("DELETE FROM " +
-                    TransactionEntry.TABLE_NAME + " WHERE NOT EXISTS ( SELECT * FROM " +
-                    SplitEntry.TABLE_NAME +
-                    " WHERE " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID +
-                    " = " + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID + " ) ");
-                deleteEmptyTransaction.execute();
+        // Replacing a transaction changes its record ID, so its document is removed first.
+        searchIndex.removeAll(transactionUIDs);
+        long rowInserted;
+        try {
+            long start = System.nanoTime();
+            rowInserted = super.bulkAddRecords(transactionList, updateMethod);
+            long end = System.nanoTime();
+            if (Logging.isDebug()) {
+                Timber.d("bulk add transaction time %d", end - start);
+            }
+            List<Split> splitList = new ArrayList<>(transactionList.size() * 3);
+            for (Transaction transaction : transactionList) {
+                splitList.addAll(transaction.getSplits());
+            }
+            if (rowInserted != 0 && !splitList.isEmpty()) {
+                try {
+                    start = System.nanoTime();
+                    long nSplits = splitsDbAdapter.bulkAddRecords(splitList, updateMethod);
+                    if (Logging.isDebug()) {
+                        Timber.d("%d splits inserted in %d ns", nSplits, System.nanoTime() - start);
+                    }
+                } finally {
+                    SQLiteStatement deleteEmptyTransaction = mDb.compileStatement("DELETE FROM " +
+                        TransactionEntry.TABLE_NAME + " WHERE NOT EXISTS ( SELECT * FROM " +
+                        SplitEntry.TABLE_NAME +
+                        " WHERE " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID +
+                        " = " + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID + " ) ");
+                    deleteEmptyTransaction.execute();
+                }
             }
+        } finally {
+            // Indexes the transactions that were saved, with one statement per chunk.
+            searchIndex.addAll(transactionUIDs);
         }
         return rowInserted;
     }
@@ -213,6 +260,42 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return stmt;
     }
 
+    /**
+     * Returns a cursor to the transactions which have a split belonging to the account with unique ID
+     * <code>accountUID</code>, which fetches the transactions a page at a time as it is moved.
+     * <p>Unlike {@link #fetchAllTransactionsForAccount(String)}, only the first page is read before returning.
+     * The transactions are ordered by date, newest first.</p>
+     *
+     * @param accountUID UID of the account whose transactions are to be retrieved
+     * @param pageSize   Number of transactions per page
+     * @return Cursor holding the transactions for the account
+     * @see KeysetPagedCursor
+     */
+    public Cursor fetchPagedTransactionsForAccount(final String accountUID, int pageSize) {
+        final String selection = "t." + TransactionEntry.COLUMN_TEMPLATE + " = 0"
+            + " AND t." + TransactionEntry.COLUMN_UID + " IN (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID
+            + " FROM " + SplitEntry.TABLE_NAME + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?)";
+        final int count = (int) DatabaseUtils.longForQuery(mDb,
+            "SELECT COUNT(*) FROM " + TransactionEntry.TABLE_NAME + " t WHERE " + selection,
+            new String[]{accountUID});
+
+        final String sql = "SELECT t.* FROM " + TransactionEntry.TABLE_NAME + " t"
+            + " WHERE " + selection
+            + " AND (t." + TransactionEntry.COLUMN_TIMESTAMP + " < ?"
+            + " OR (t." + TransactionEntry.COLUMN_TIMESTAMP + " = ? AND t." + TransactionEntry._ID + " < ?))"
+            + " ORDER BY t." + TransactionEntry.COLUMN_TIMESTAMP + " DESC, t." + TransactionEntry._ID + " DESC"
+            + " LIMIT ?";
+        KeysetPagedCursor.PageFetcher fetcher = new KeysetPagedCursor.PageFetcher() {
+            @NonNull
+            @Override
+            public Cursor fetchPage(long timestamp, long id, int limit) {
+                String ts = Long.toString(timestamp);
+                return rawQuery(sql, new String[]{accountUID, ts, ts, Long.toString(id), Integer.toString(limit)});
+            }
+        };
+        return new KeysetPagedCursor(fetcher, count, pageSize, TransactionEntry.COLUMN_TIMESTAMP);
+    }
+
     /**
      * Returns a cursor to a set of all transactions which have a split belonging to the account with unique ID
      * <code>accountUID</code>.
@@ -237,6 +320,34 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return queryBuilder.query(mDb, projectionIn, selection, selectionArgs, null, null, sortOrder);
     }
 
+    /**
+     * Returns a cursor to the transactions of the account which were modified since a time, for exporting.
+     * <p>The transactions are filtered by the database, so that the older transactions are not read.
+     * Template transactions are not included.</p>
+     *
+     * @param accountUID    UID of the account whose transactions are to be retrieved
+     * @param modifiedSince time from which the transactions were created or modified, or {@code null} for all
+     * @return Cursor holding the transactions, newest first
+     */
+    public Cursor fetchTransactionsToExport(@NonNull String accountUID, @Nullable Timestamp modifiedSince) {
+        String table = TransactionEntry.TABLE_NAME + " t"
+            + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON "
+            + "t." + TransactionEntry.COLUMN_UID + " = "
+            + "s." + SplitEntry.COLUMN_TRANSACTION_UID;
+        String selection = "s." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+            + " AND t." + TransactionEntry.COLUMN_TEMPLATE + " = 0";
+        String[] selectionArgs;
+        if (modifiedSince != null) {
+            selection += " AND t." + TransactionEntry.COLUMN_MODIFIED_AT + " >= ?";
+            selectionArgs = new String[]{accountUID, TimestampHelper.getUtcStringFromTimestamp(modifiedSince)};
+        } else {
+            selectionArgs = new String[]{accountUID};
+        }
+        String orderBy = "t." + TransactionEntry.COLUMN_TIMESTAMP + " DESC";
+
+        return query(true, table, new String[]{"t.*"}, selection, selectionArgs, null, null, orderBy, null);
+    }
+
     /**
      * Returns a cursor to all scheduled transactions which have at least one split in the account
      * <p>This is basically a set of all template transactions for this account</p>
@@ -272,6 +383,56 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
             + " (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID + " FROM " + SplitEntry.TABLE_NAME + " WHERE "
             + SplitEntry.COLUMN_ACCOUNT_UID + " = ?)";
         mDb.execSQL(rawDeleteQuery, new String[]{accountUID});
+        suggestionIndex.invalidate();
+        searchIndex.purge();
+    }
+
+    /**
+     * Deletes all transactions which contain a split in any of the accounts in the temporary table
+     * of unique identifiers, with a single statement.
+     * <p>Must be called inside the database transaction which filled the table.</p>
+     *
+     * @return Number of transactions deleted
+     * @see #deleteTransactionsForAccount(String)
+     */
+    int deleteTransactionsForTempAccounts() {
+        String where = TransactionEntry.COLUMN_UID + " IN (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID
+            + " FROM " + SplitEntry.TABLE_NAME + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID
+            + " IN (SELECT " + TransactionEntry.COLUMN_UID + " FROM " + TEMP_UIDS_TABLE + "))";
+        int deleted = mDb.delete(mTableName, where, null);
+        suggestionIndex.invalidate();
+        if (deleted > 0) searchIndex.purge();
+        return deleted;
+    }
+
+    /**
+     * Deletes the transactions, and their splits, with a single statement.
+     *
+     * @param transactionUIDs GUIDs of the transactions
+     * @return Number of transactions deleted
+     */
+    public int deleteTransactions(@NonNull Collection<String> transactionUIDs) {
+        if (transactionUIDs.isEmpty()) {
+            return 0;
+        }
+        String where = TransactionEntry.COLUMN_UID
+            + " IN (SELECT " + TransactionEntry.COLUMN_UID + " FROM " + TEMP_UIDS_TABLE + ")";
+        int deleted;
+        beginTransaction();
+        try {
+            fillTempUIDs(transactionUIDs);
+            deleted = mDb.delete(mTableName, where, null);
+            setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        if (isCached) {
+            cache.clear();
+        }
+        suggestionIndex.invalidate();
+        if (deleted > 0) searchIndex.purge();
+        Timber.i("Deleted %d transactions", deleted);
+        return deleted;
     }
 
     /**
@@ -280,13 +441,16 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Number of records deleted
      */
     public int deleteTransactionsWithNoSplits() {
-        return mDb.delete(
+        suggestionIndex.invalidate();
+        int deleted = mDb.delete(
             TransactionEntry.TABLE_NAME,
             "NOT EXISTS ( SELECT * FROM " + SplitEntry.TABLE_NAME +
                 " WHERE " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID +
                 " = " + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID + " ) ",
             null
         );
+        if (deleted > 0) searchIndex.purge();
+        return deleted;
     }
 
     /**
@@ -333,8 +497,9 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         String table = TransactionEntry.TABLE_NAME + ", " + SplitEntry.TABLE_NAME +
             " ON " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID +
             " = " + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID +
-            ", trans_extra_info ON trans_extra_info.trans_acct_t_uid = " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID;
-        return mDb.query(table, columns, where, whereArgs, null, null, orderBy);
+            ", " + TransactionInfoEntry.TABLE_NAME + " ON " + TransactionInfoEntry.TABLE_NAME + "." + TransactionInfoEntry.COLUMN_TRANSACTION_UID
+            + " = " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID;
+        return query(table, columns, where, whereArgs, null, null, orderBy);
     }
 
     /**
@@ -363,11 +528,12 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         // can be eliminated with a WHERE clause. Transactions in QIF can be auto balanced.
         //
         // Account, transaction and split Information can be retrieve in a single query.
-        return mDb.query(
-            "trans_split_acct, trans_extra_info ON trans_extra_info.trans_acct_t_uid = trans_split_acct." +
+        return query(
+            "trans_split_acct, " + TransactionInfoEntry.TABLE_NAME + " ON " + TransactionInfoEntry.TABLE_NAME + "."
+                + TransactionInfoEntry.COLUMN_TRANSACTION_UID + " = trans_split_acct." +
                 TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID + ", " +
                 AccountEntry.TABLE_NAME + " AS account1 ON account1." + AccountEntry.COLUMN_UID +
-                " = trans_extra_info.trans_acct_a_uid",
+                " = " + TransactionInfoEntry.TABLE_NAME + "." + TransactionInfoEntry.COLUMN_ACCOUNT_UID,
             columns, where, whereArgs, null, null, orderBy);
     }
 
@@ -378,9 +544,9 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
 
     @Override
     public long getRecordsCount(@Nullable String where, @Nullable String[] whereArgs) {
-        String table = mTableName + ", trans_extra_info ON "
+        String table = mTableName + ", " + TransactionInfoEntry.TABLE_NAME + " ON "
             + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID
-            + " = trans_extra_info.trans_acct_t_uid";
+            + " = " + TransactionInfoEntry.TABLE_NAME + "." + TransactionInfoEntry.COLUMN_TRANSACTION_UID;
         return DatabaseUtils.queryNumEntries(mDb, table, where, whereArgs);
     }
 
@@ -435,31 +601,90 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
     public int moveTransaction(String transactionUID, String srcAccountUID, String dstAccountUID) {
         Timber.i("Moving transaction ID " + transactionUID
             + " splits from " + srcAccountUID + " to account " + dstAccountUID);
+        return moveTransactions(Collections.singletonList(transactionUID), srcAccountUID, dstAccountUID);
+    }
 
-        List<Split> splits = splitsDbAdapter.getSplitsForTransactionInAccount(transactionUID, srcAccountUID);
-        for (Split split : splits) {
-            split.setAccountUID(dstAccountUID);
-        }
-        splitsDbAdapter.bulkAddRecords(splits, UpdateMethod.update);
-        return splits.size();
+    /**
+     * Assigns the splits of the transactions in one account to another account, with a single statement.
+     *
+     * @param transactionUIDs GUIDs of the transactions
+     * @param srcAccountUID   GUID of the account from which the transactions are to be moved
+     * @param dstAccountUID   GUID of the account to which the transactions will be assigned
+     * @return Number of transactions splits affected
+     * @see SplitsDbAdapter#moveSplits(Collection, String, String)
+     */
+    public int moveTransactions(@NonNull Collection<String> transactionUIDs, @NonNull String srcAccountUID, @NonNull String dstAccountUID) {
+        int moved = splitsDbAdapter.moveSplits(transactionUIDs, srcAccountUID, dstAccountUID);
+        suggestionIndex.invalidate();
+        return moved;
     }
 
     /**
      * Returns the number of transactions belonging to an account
+     * <p>The transactions are counted with the index of the splits by account, without reading them.</p>
      *
      * @param accountUID GUID of the account
      * @return Number of transactions with splits in the account
+     * @see #getTransactionsCount(String, boolean)
      */
     public int getTransactionsCount(String accountUID) {
-        Cursor cursor = fetchAllTransactionsForAccount(accountUID);
-        int count = 0;
-        if (cursor == null)
-            return count;
-        else {
-            count = cursor.getCount();
+        return (int) getTransactionsCount(accountUID, false);
+    }
+
+    /**
+     * Returns the number of transactions belonging to an account
+     * <p>The transactions are counted with the index of the splits by account, without reading them.</p>
+     *
+     * @param accountUID       GUID of the account
+     * @param includeTemplates whether to also count the templates of scheduled transactions
+     * @return Number of transactions with splits in the account
+     * @see AccountsDbAdapter#getTransactionCount(String)
+     */
+    public long getTransactionsCount(String accountUID, boolean includeTemplates) {
+        if (includeTemplates) {
+            String sql = "SELECT COUNT(DISTINCT " + SplitEntry.COLUMN_TRANSACTION_UID + ")"
+                + " FROM " + SplitEntry.TABLE_NAME
+                + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?";
+            return queryForLong(sql, accountUID);
+        }
+        String sql = "SELECT COUNT(DISTINCT s." + SplitEntry.COLUMN_TRANSACTION_UID + ")"
+            + " FROM " + SplitEntry.TABLE_NAME + " s"
+            + " INNER JOIN " + TransactionEntry.TABLE_NAME + " t"
+            + " ON t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+            + " WHERE s." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+            + " AND t." + TransactionEntry.COLUMN_TEMPLATE + " = 0";
+        return queryForLong(sql, accountUID);
+    }
+
+    /**
+     * Returns the number of transactions belonging to each account, in one query.
+     * <p>Accounts without transactions are not in the map.</p>
+     *
+     * @param includeTemplates whether to also count the templates of scheduled transactions
+     * @return map of account UID to the number of transactions with splits in the account
+     * @see #getTransactionsCount(String, boolean)
+     */
+    @NonNull
+    public Map<String, Long> getAllTransactionsCounts(boolean includeTemplates) {
+        String sql = "SELECT s." + SplitEntry.COLUMN_ACCOUNT_UID
+            + ", COUNT(DISTINCT s." + SplitEntry.COLUMN_TRANSACTION_UID + ")"
+            + " FROM " + SplitEntry.TABLE_NAME + " s";
+        if (!includeTemplates) {
+            sql += " INNER JOIN " + TransactionEntry.TABLE_NAME + " t"
+                + " ON t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
+                + " WHERE t." + TransactionEntry.COLUMN_TEMPLATE + " = 0";
+        }
+        sql += " GROUP BY s." + SplitEntry.COLUMN_ACCOUNT_UID;
+        Map<String, Long> counts = new HashMap<>();
+        Cursor cursor = rawQuery(sql, null);
+        try {
+            while (cursor.moveToNext()) {
+                counts.put(cursor.getString(0), cursor.getLong(1));
+            }
+        } finally {
             cursor.close();
         }
-        return count;
+        return counts;
     }
 
     /**
@@ -499,30 +724,52 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
     }
 
     /**
-     * Returns a cursor to transactions whose name (UI: description) start with the <code>prefix</code>
+     * Returns a cursor to transactions whose name (UI: description) contains a word starting with the <code>prefix</code>
      * <p>This method is used for autocomplete suggestions when creating new transactions. <br/>
-     * The suggestions are either transactions which have at least one split with {@code accountUID} or templates.</p>
+     * The suggestions are transactions which have at least one split with {@code accountUID}.
+     * They are served from the book's {@link TransactionSuggestionIndex}, so only the first call
+     * per account reads the database.</p>
      *
      * @param prefix     Starting characters of the transaction name
      * @param accountUID GUID of account within which to search for transactions
      * @return Cursor to the data set containing all matching transactions
      */
     public Cursor fetchTransactionSuggestions(String prefix, String accountUID) {
-        SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
-        queryBuilder.setTables(
-            TransactionEntry.TABLE_NAME + " t"
-            + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON "
-            + "t." + TransactionEntry.COLUMN_UID + " = s." + SplitEntry.COLUMN_TRANSACTION_UID
-        );
-        String[] projectionIn = new String[]{"t.*", "MAX(t." + TransactionEntry.COLUMN_TIMESTAMP + ")"};
-        String selection = "s." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
-            + " AND t." + TransactionEntry.COLUMN_TEMPLATE + " = 0"
-            + " AND t." + TransactionEntry.COLUMN_DESCRIPTION + " LIKE " + sqlEscapeLike(prefix);
-        String[] selectionArgs = new String[]{accountUID};
-        String groupBy = TransactionEntry.COLUMN_DESCRIPTION;
-        String sortOrder = "t." + TransactionEntry.COLUMN_TIMESTAMP + " DESC";
-        String limit = Integer.toString(10);
-        return queryBuilder.query(mDb, projectionIn, selection, selectionArgs, groupBy, null, sortOrder, limit);
+        return suggestionIndex.query(mDb, prefix, accountUID);
+    }
+
+    /**
+     * Stops updating the search index on every write, e.g. while a book is imported.
+     * <p>Call {@link #rebuildSearchIndex()} when done, to index all the transactions at once.</p>
+     */
+    public void suspendSearchIndex() {
+        searchIndex.suspend();
+    }
+
+    /**
+     * Indexes all the transactions again, and resumes updating the search index on every write.
+     */
+    public void rebuildSearchIndex() {
+        searchIndex.rebuild();
+    }
+
+    /**
+     * Returns a page of the transactions which match the search {@code query}.
+     * <p>The query is matched against the description, notes, split memos and split amounts,
+     * using the book's {@link TransactionSearchIndex}. Unquoted words match as prefixes,
+     * and quoted words match as phrases.</p>
+     *
+     * @param query      Text to search for
+     * @param accountUID GUID of the account which the transactions must have a split in, or {@code null}
+     * @param startTime  Earliest time of the transactions, or {@link Long#MIN_VALUE}
+     * @param endTime    Latest time of the transactions, or {@link Long#MAX_VALUE}
+     * @param limit      Number of transactions per page
+     * @param offset     Number of transactions in the previous pages
+     * @return Cursor to the matching transactions, newest first
+     */
+    public Cursor searchTransactions(@NonNull String query, @Nullable String accountUID,
+                                     long startTime, long endTime, int limit, int offset) {
+        return searchIndex.search(query, accountUID, startTime, endTime, limit, offset);
     }
 
     /**
@@ -534,6 +781,7 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Number of records affected
      */
     public int updateTransaction(ContentValues contentValues, String whereClause, String[] whereArgs) {
+        suggestionIndex.invalidate();
         return mDb.update(TransactionEntry.TABLE_NAME, contentValues, whereClause, whereArgs);
     }
 
@@ -544,6 +792,9 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Number of records deleted
      */
     public int deleteAllNonTemplateTransactions() {
+        suggestionIndex.invalidate();
+        // Template transactions are not indexed.
+        searchIndex.clear();
         String where = TransactionEntry.COLUMN_TEMPLATE + "=0";
         return mDb.delete(mTableName, where, null);
     }
@@ -576,7 +827,7 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Last modified time in milliseconds or current time if there is none in the database
      */
     public Timestamp getTimestampOfLastModification() {
-        Cursor cursor = mDb.query(TransactionEntry.TABLE_NAME,
+        Cursor cursor = query(TransactionEntry.TABLE_NAME,
             new String[]{"MAX(" + TransactionEntry.COLUMN_MODIFIED_AT + ")"},
             null, null, null, null, null);
 
@@ -614,7 +865,7 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
             + " WHERE a." + AccountEntry.COLUMN_TYPE + " = ?"
             + " AND a." + AccountEntry.COLUMN_COMMODITY_UID + " = ?"
             + " AND t." + TransactionEntry.COLUMN_TEMPLATE + " = 0";
-        Cursor cursor = mDb.rawQuery(sql, new String[]{type.name(), commodityUID});
+        Cursor cursor = rawQuery(sql, new String[]{type.name(), commodityUID});
         long timestamp = INVALID_DATE;
         try {
             if (cursor.moveToFirst()) {
@@ -626,27 +877,26 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return timestamp;
     }
 
-    public long getTransactionsCountForAccount(String accountUID) {
-        SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
-        queryBuilder.setTables(
-            TransactionEntry.TABLE_NAME + " t "
-                + " INNER JOIN " + SplitEntry.TABLE_NAME + " s ON"
-                + " t." + TransactionEntry.COLUMN_UID + " ="
-                + " s." + SplitEntry.COLUMN_TRANSACTION_UID
-        );
-        String[] projectionIn = new String[]{"COUNT(*)"};
-        String selection = "s." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?";
-        String[] selectionArgs = new String[]{accountUID};
+    @Override
+    public boolean deleteRecord(long rowId) throws SQLException {
+        suggestionIndex.invalidate();
+        searchIndex.remove(rowId);
+        return super.deleteRecord(rowId);
+    }
 
-        Cursor cursor = queryBuilder.query(mDb, projectionIn, selection, selectionArgs, null, null, null);
-        try {
-            if (cursor != null && cursor.moveToFirst()) {
-                return cursor.getLong(0);
-            }
-        } finally {
-            cursor.close();
-        }
-        return 0L;
+    @Override
+    public int deleteAllRecords() {
+        suggestionIndex.invalidate();
+        searchIndex.clear();
+        return super.deleteAllRecords();
+    }
+
+    /**
+     * Discards the transaction descriptions indexed for auto-completion in this book.
+     * <p>Should be called by writes to the transactions or splits tables that bypass this adapter.</p>
+     */
+    public void invalidateSuggestions() {
+        suggestionIndex.invalidate();
     }
 
     @Override
@@ -23,11 +23,11 @@ import org.gnucash.android.R
 import org.gnucash.android.export.ExportParams
 import org.gnucash.android.export.Exporter
 import org.gnucash.android.gnc.GncProgressListener
-import org.gnucash.android.model.Account
 import org.gnucash.android.model.Money
 import org.gnucash.android.model.Split
 import org.gnucash.android.model.Transaction
 import org.gnucash.android.model.TransactionType
+import org.gnucash.android.util.Logging
 import org.gnucash.android.util.PreferencesHelper
 import org.gnucash.android.util.TimestampHelper
 import org.joda.time.format.ISODateTimeFormat
@@ -49,7 +49,6 @@ class CsvTransactionsExporter(
 ) : Exporter(context, params, bookUID, listener) {
     // TODO add option in export form for date format: US, UK, Europe, ISO, Locale
     private val dateFormat = ISODateTimeFormat.date()
-    private val accountCache = mutableMapOf<String, Account>()
     private val rateFormat = DecimalFormat.getNumberInstance().apply {
         minimumFractionDigits = 4
         maximumFractionDigits = 4
@@ -64,20 +63,29 @@ class CsvTransactionsExporter(
         csvWriter.close()
     }
 
+    /**
+     * Returns the full name and the name of the account, from the cached labels if possible.
+     *
+     * @throws IllegalArgumentException if the account does not exist.
+     */
+    private fun getAccountNames(accountUID: String?): Pair<String, String> {
+        val label = mAccountsDbAdapter.getAccountLabel(accountUID)
+        if (label != null) return label.fullName to label.name
+        val account = mAccountsDbAdapter.getSimpleRecord(accountUID)
+            ?: throw IllegalArgumentException("Account not found")
+        return account.fullName.orEmpty() to account.name
+    }
+
     private fun writeSplitsToCsv(writer: ICSVWriter, fields: Array<String>, splits: List<Split>) {
         // Sort splits by account name.
-        val splitToAccount =
-            splits.associate { it.uid to mAccountsDbAdapter.getAccountFullName(it.accountUID) }
-        val splitsByAccount = splits.sortedBy { splitToAccount[it.uid] }
+        val splitToAccount = splits.associate { it.uid to getAccountNames(it.accountUID) }
+        val splitsByAccount = splits.sortedBy { splitToAccount[it.uid]!!.first }
 
         for (split in splitsByAccount) {
             fields[8] = split.memo.orEmpty()
-            val accountUID = split.accountUID!!
-            val account = accountCache.getOrPut(accountUID) {
-                mAccountsDbAdapter.getSimpleRecord(accountUID)!!
-            }
-            fields[9] = account.fullName.orEmpty()
-            fields[10] = account.name
+            val (fullName, name) = splitToAccount[split.uid]!!
+            fields[9] = fullName
+            fields[10] = name
 
             val sign = if (split.type == TransactionType.CREDIT) "-" else ""
             val quantity = split.quantity
@@ -106,7 +114,9 @@ class CsvTransactionsExporter(
 
         val cursor =
             mTransactionsDbAdapter.fetchTransactionsModifiedSince(mExportParams.exportStartTime)
-        Timber.d("Exporting %d transactions to CSV", cursor.count)
+        if (Logging.isDebug()) {
+            Timber.d("Exporting %d transactions to CSV", cursor.count)
+        }
         val fields = Array(headers.size) { "" }
         try {
             if (cursor.moveToFirst()) {
@@ -0,0 +1,113 @@
+package org.gnucash.android.export.ofx
+
+import java.io.Writer
+
+/**
+ * Streams an OFX document to a writer, one element at a time.
+ *
+ * The layout is the same as that of an identity XML transformer with indentation:
+ * every element starts on a new line indented by 2 spaces per level,
+ * elements with only text are written on a single line,
+ * and elements without any content are self-closed.
+ */
+internal class OfxWriter(private val writer: Writer) {
+    private val openTags = ArrayList<String>()
+    private var isStartTagOpen = false
+    private var hasText = false
+
+    /**
+     * Writes the XML declaration and the OFX processing instruction.
+     */
+    fun writeXmlHeader() {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>")
+        writer.write(LINE_SEPARATOR)
+        writer.write("<?OFX ")
+        writer.write(OfxHelper.OFX_HEADER)
+        writer.write("?>")
+    }
+
+    /**
+     * Writes the SGML header, for compatibility with desktop GnuCash.
+     */
+    fun writeSgmlHeader() {
+        writer.write(OfxHelper.OFX_SGML_HEADER)
+        writer.write(LINE_SEPARATOR)
+    }
+
+    fun startTag(name: String) {
+        closeStartTag()
+        if (openTags.isNotEmpty()) {
+            indent(openTags.size)
+        }
+        writer.write("<")
+        writer.write(name)
+        openTags.add(name)
+        isStartTagOpen = true
+        hasText = false
+    }
+
+    fun endTag() {
+        val name = openTags.removeAt(openTags.lastIndex)
+        if (isStartTagOpen) {
+            writer.write("/>")
+            isStartTagOpen = false
+        } else {
+            if (!hasText) {
+                indent(openTags.size)
+            }
+            writer.write("</")
+            writer.write(name)
+            writer.write(">")
+        }
+        hasText = false
+        if (openTags.isEmpty()) {
+            writer.write(LINE_SEPARATOR)
+        }
+    }
+
+    fun text(text: String?) {
+        if (text.isNullOrEmpty()) return
+        closeStartTag()
+        for (c in text) {
+            when (c) {
+                '&' -> writer.write("&amp;")
+                '<' -> writer.write("&lt;")
+                '>' -> writer.write("&gt;")
+                else -> writer.write(c.code)
+            }
+        }
+        hasText = true
+    }
+
+    /**
+     * Writes an element which only has text.
+     */
+    fun element(name: String, text: String?) {
+        startTag(name)
+        text(text)
+        endTag()
+    }
+
+    fun flush() {
+        writer.flush()
+    }
+
+    private fun closeStartTag() {
+        if (isStartTagOpen) {
+            writer.write(">")
+            isStartTagOpen = false
+        }
+    }
+
+    private fun indent(depth: Int) {
+        writer.write(LINE_SEPARATOR)
+        for (i in 0 until depth * INDENT) {
+            writer.write(' '.code)
+        }
+    }
+
+    companion object {
+        private const val INDENT = 2
+        private const val LINE_SEPARATOR = "\n"
+    }
+}
@@ -19,6 +19,7 @@ package org.gnucash.android.export.qif;
 import static org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import static org.gnucash.android.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.db.DatabaseSchema.TransactionEntry;
+import static org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry;
 import static org.gnucash.android.export.qif.QifHelper.ACCOUNT_DESCRIPTION_PREFIX;
 import static org.gnucash.android.export.qif.QifHelper.ACCOUNT_NAME_PREFIX;
 import static org.gnucash.android.export.qif.QifHelper.ACCOUNT_SECTION;
@@ -163,8 +164,8 @@ public class QifExporter extends Exporter {
             SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM + " AS split_quantity_denom",
             SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + " AS split_type",
             SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_MEMO + " AS split_memo",
-            "trans_extra_info.trans_acct_balance AS trans_acct_balance",
-            "trans_extra_info.trans_split_count AS trans_split_count",
+            TransactionInfoEntry.TABLE_NAME + "." + TransactionInfoEntry.COLUMN_BALANCE + " AS trans_acct_balance",
+            TransactionInfoEntry.TABLE_NAME + "." + TransactionInfoEntry.COLUMN_SPLIT_COUNT + " AS trans_split_count",
             "account1." + AccountEntry.COLUMN_UID + " AS acct1_uid",
             AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID + " AS acct2_uid"
         };
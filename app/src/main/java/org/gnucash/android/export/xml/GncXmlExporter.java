@@ -54,6 +54,7 @@ import org.gnucash.android.model.Slot;
 import org.gnucash.android.model.Transaction;
 import org.gnucash.android.model.TransactionType;
 import org.gnucash.android.model.WeekendAdjust;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.TimestampHelper;
 import org.xmlpull.v1.XmlPullParserFactory;
 import org.xmlpull.v1.XmlSerializer;
@@ -293,7 +294,9 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.text(parentUID);
             xmlSerializer.endTag(NS_ACCOUNT, TAG_PARENT);
         } else {
-            Timber.d("root account : %s", account.getUID());
+            if (Logging.isDebug()) {
+                Timber.d("root account : %s", account.getUID());
+            }
         }
         xmlSerializer.endTag(NS_GNUCASH, TAG_ACCOUNT);
 
@@ -1073,7 +1076,9 @@ public class GncXmlExporter extends Exporter {
             throw new ExporterException(mExportParams, e);
         }
         final long timeFinish = SystemClock.elapsedRealtime();
-        Timber.v("exported in %d ms", timeFinish - timeStart);
+        if (Logging.isVerbose()) {
+            Timber.v("exported in %d ms", timeFinish - timeStart);
+        }
     }
 
     private void writeBook(XmlSerializer xmlSerializer, Book book) throws IOException {
@@ -153,6 +153,7 @@ import org.gnucash.android.model.Split;
 import org.gnucash.android.model.Transaction;
 import org.gnucash.android.model.TransactionType;
 import org.gnucash.android.model.WeekendAdjust;
+import org.gnucash.android.util.Logging;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -340,7 +341,9 @@ public class GncXmlHandler extends DefaultHandler implements Closeable {
         mScheduledActionsDbAdapter = new ScheduledActionDbAdapter(recurrenceDbAdapter);
         mBudgetsDbAdapter = new BudgetsDbAdapter(recurrenceDbAdapter);
 
-        Timber.d("before clean up db");
+        if (Logging.isDebug()) {
+            Timber.d("before clean up db");
+        }
         // disable foreign key. The database structure should be ensured by the data inserted.
         // it will make insertion much faster.
         mAccountsDbAdapter.enableForeignKey(false);
@@ -351,6 +354,8 @@ public class GncXmlHandler extends DefaultHandler implements Closeable {
         mScheduledActionsDbAdapter.deleteAllRecords();
         mTransactionsDbAdapter.deleteAllRecords();
         mAccountsDbAdapter.deleteAllRecords();
+        // Index all the imported transactions at once, when the book is saved.
+        mTransactionsDbAdapter.suspendSearchIndex();
 
         mCommodities.clear();
         List<Commodity> commodities = mCommoditiesDbAdapter.getAllRecords();
@@ -361,6 +366,7 @@ public class GncXmlHandler extends DefaultHandler implements Closeable {
 
     private void maybeInitDb(@Nullable String bookUIDOld, @NonNull String bookUIDNew) {
         if (bookUIDOld != null && !bookUIDOld.equals(bookUIDNew)) {
+            mTransactionsDbAdapter.rebuildSearchIndex();
             holder.close();
             initDb(bookUIDNew);
         }
@@ -655,7 +661,9 @@ public class GncXmlHandler extends DefaultHandler implements Closeable {
      */
     private void saveToDatabase() {
         mAccountsDbAdapter.enableForeignKey(true);
+        mTransactionsDbAdapter.rebuildSearchIndex();
         maybeClose(); //close it after import
+        booksDbAdapter.refreshBookStats(mBook.getUID());
     }
 
     @Override
@@ -1428,7 +1436,9 @@ public class GncXmlHandler extends DefaultHandler implements Closeable {
                 } else {
                     mPrice.setValueNum(Long.parseLong(parts[0]));
                     mPrice.setValueDenom(Long.parseLong(parts[1]));
-                    Timber.d("price " + value + " .. " + mPrice.getValueNum() + "/" + mPrice.getValueDenom());
+                    if (Logging.isDebug()) {
+                        Timber.d("price " + value + " .. " + mPrice.getValueNum() + "/" + mPrice.getValueDenom());
+                    }
                 }
             }
         } else if (NS_SLOT.equals(uri)) {
@@ -27,6 +27,7 @@ import androidx.annotation.Nullable;
 import org.gnucash.android.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.gnc.GncProgressListener;
 import org.gnucash.android.model.Book;
+import org.gnucash.android.util.Logging;
 import org.gnucash.android.util.PreferencesHelper;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -137,7 +138,9 @@ public class GncXmlImporter {
 
     public Book parse() throws IOException, ParserConfigurationException, SAXException {
         //TODO: Set an error handler which can log errors
-        Timber.d("Start import");
+        if (Logging.isDebug()) {
+            Timber.d("Start import");
+        }
         InputStream input = getInputStream(inputStream);
         GncXmlHandler handler = new GncXmlHandler(context, listener, cancellationSignal);
         XMLReader reader = createXMLReader(handler);
@@ -145,7 +148,9 @@ public class GncXmlImporter {
         long startTime = System.nanoTime();
         reader.parse(new InputSource(input));
         long endTime = System.nanoTime();
-        Timber.d("%d ns spent on importing the file", endTime - startTime);
+        if (Logging.isDebug()) {
+            Timber.d("%d ns spent on importing the file", endTime - startTime);
+        }
 
         Book book = handler.getImportedBook();
         String bookUID = book.getUID();
@@ -0,0 +1,111 @@
+package org.gnucash.android.math
+
+import java.math.BigDecimal
+import java.math.BigInteger
+
+/**
+ * Exact sum of fractions, such as split amounts.
+ *
+ * The sum is accumulated as a `long` numerator over a common denominator,
+ * and is promoted to a [BigInteger] numerator only when the `long` would overflow.
+ * Fractions with different denominators are scaled to their least common denominator.
+ */
+class ExactSum {
+    private var numerator = 0L
+    private var bigNumerator: BigInteger? = null
+
+    /**
+     * The common denominator of all the fractions added so far.
+     */
+    var denominator = 1L
+        private set
+
+    /**
+     * Adds the fraction `numerator / denominator` to the sum.
+     */
+    fun add(numerator: Long, denominator: Long) {
+        require(denominator > 0) { "Denominator must be positive" }
+        if (denominator != this.denominator) {
+            val common = lcm(this.denominator, denominator)
+            rescale(common)
+            if (common != denominator) {
+                val factor = common / denominator
+                try {
+                    addNumerator(Math.multiplyExact(numerator, factor))
+                } catch (e: ArithmeticException) {
+                    addNumerator(BigInteger.valueOf(numerator).multiply(BigInteger.valueOf(factor)))
+                }
+                return
+            }
+        }
+        addNumerator(numerator)
+    }
+
+    /**
+     * Returns `true` if the sum is zero.
+     */
+    val isZero: Boolean
+        get() {
+            val big = bigNumerator
+            return if (big == null) numerator == 0L else big.signum() == 0
+        }
+
+    private fun toBigInteger(): BigInteger = bigNumerator ?: BigInteger.valueOf(numerator)
+
+    fun toBigDecimal(): BigDecimal {
+        val big = bigNumerator
+        return if (big == null) {
+            org.gnucash.android.math.toBigDecimal(numerator, denominator)
+        } else {
+            org.gnucash.android.math.toBigDecimal(big, denominator)
+        }
+    }
+
+    private fun addNumerator(value: Long) {
+        val big = bigNumerator
+        if (big != null) {
+            bigNumerator = big.add(BigInteger.valueOf(value))
+            return
+        }
+        try {
+            numerator = Math.addExact(numerator, value)
+        } catch (e: ArithmeticException) {
+            bigNumerator = BigInteger.valueOf(numerator).add(BigInteger.valueOf(value))
+        }
+    }
+
+    private fun addNumerator(value: BigInteger) {
+        bigNumerator = toBigInteger().add(value)
+    }
+
+    private fun rescale(common: Long) {
+        if (common == denominator) return
+        val factor = common / denominator
+        val big = bigNumerator
+        if (big != null) {
+            bigNumerator = big.multiply(BigInteger.valueOf(factor))
+        } else {
+            try {
+                numerator = Math.multiplyExact(numerator, factor)
+            } catch (e: ArithmeticException) {
+                bigNumerator = BigInteger.valueOf(numerator).multiply(BigInteger.valueOf(factor))
+            }
+        }
+        denominator = common
+    }
+
+    private fun gcd(a: Long, b: Long): Long {
+        var x = a
+        var y = b
+        while (y != 0L) {
+            val t = x % y
+            x = y
+            y = t
+        }
+        return x
+    }
+
+    private fun lcm(a: Long, b: Long): Long {
+        return Math.multiplyExact(a / gcd(a, b), b)
+    }
+}
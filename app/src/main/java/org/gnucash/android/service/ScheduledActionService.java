@@ -20,9 +20,11 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
@@ -43,12 +45,15 @@ import org.gnucash.android.model.Book;
 import org.gnucash.android.model.ScheduledAction;
 import org.gnucash.android.model.Transaction;
 import org.gnucash.android.util.BackupManager;
+import org.gnucash.android.util.BookTaskRunner;
 import org.gnucash.android.util.DateExtKt;
 import org.gnucash.android.work.ActionWorker;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -90,38 +95,72 @@ public class ScheduledActionService {
     }
 
     public void doWork(@NonNull Context context) {
+        doWork(context, null);
+    }
+
+    /**
+     * Runs the scheduled actions of all the books.
+     *
+     * @param context            the context.
+     * @param cancellationSignal signal to stop processing the books, if any
+     * @return {@code true} if the scheduled actions of all the books were processed
+     */
+    public boolean doWork(@NonNull Context context, @Nullable CancellationSignal cancellationSignal) {
         Timber.i("Starting scheduled action service");
         try {
-            processScheduledBooks(context);
+            BookTaskRunner.Result result = processScheduledBooks(context, cancellationSignal);
             Timber.i("Completed service @ %s", DateExtKt.formatLongDateTime(System.currentTimeMillis()));
+            return result.isSuccessful();
         } catch (Throwable e) {
             Timber.e(e, "Scheduled service error: %s", e.getMessage());
         }
+        return false;
     }
 
-    private void processScheduledBooks(@NonNull Context context) {
+    /**
+     * Processes the books concurrently, each with its own database.
+     */
+    @NonNull
+    private BookTaskRunner.Result processScheduledBooks(@NonNull final Context context, @Nullable CancellationSignal cancellationSignal) {
         BooksDbAdapter booksDbAdapter = BooksDbAdapter.getInstance();
-        List<Book> books = booksDbAdapter.getAllRecords();
-        for (Book book : books) {
-            processScheduledBook(context, book);
+        final Map<String, Book> books = new LinkedHashMap<>();
+        for (Book book : booksDbAdapter.getAllRecords()) {
+            books.put(book.getUID(), book);
         }
+        final String activeBookUID = GnuCashApplication.getActiveBookUID();
+        return BookTaskRunner.run(new ArrayList<>(books.keySet()), new BookTaskRunner.BookTask() {
+            @Override
+            public boolean run(@NonNull String bookUID, @NonNull CancellationSignal signal) {
+                processScheduledBook(context, books.get(bookUID), activeBookUID, signal);
+                return true;
+            }
+        }, cancellationSignal);
     }
 
-    private void processScheduledBook(@NonNull Context context, @NonNull Book book) {
-        final String activeBookUID = GnuCashApplication.getActiveBookUID();
+    private void processScheduledBook(
+        @NonNull Context context,
+        @NonNull Book book,
+        @Nullable String activeBookUID,
+        @NonNull CancellationSignal cancellationSignal
+    ) {
         DatabaseHelper dbHelper = new DatabaseHelper(context, book.getUID());
-        DatabaseHolder dbHolder = dbHelper.getHolder();
-        RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(dbHolder);
-        ScheduledActionDbAdapter scheduledActionDbAdapter = new ScheduledActionDbAdapter(recurrenceDbAdapter);
-
-        List<ScheduledAction> scheduledActions = scheduledActionDbAdapter.getAllEnabledScheduledActions();
-        Timber.i("Processing %d total scheduled actions for Book: %s",
-            scheduledActions.size(), book.getDisplayName());
-        processScheduledActions(dbHolder, scheduledActions);
-
-        //close all databases except the currently active database
-        if (!book.getUID().equals(activeBookUID)) {
-            dbHelper.close();
+        try {
+            DatabaseHolder dbHolder = dbHelper.getHolder();
+            RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(dbHolder);
+            ScheduledActionDbAdapter scheduledActionDbAdapter = new ScheduledActionDbAdapter(recurrenceDbAdapter);
+
+            List<ScheduledAction> scheduledActions = scheduledActionDbAdapter.getAllEnabledScheduledActions();
+            Timber.i("Processing %d total scheduled actions for Book: %s",
+                scheduledActions.size(), book.getDisplayName());
+            for (ScheduledAction scheduledAction : scheduledActions) {
+                cancellationSignal.throwIfCanceled();
+                processScheduledAction(dbHolder, scheduledAction);
+            }
+        } finally {
+            //close all databases except the currently active database
+            if (!book.getUID().equals(activeBookUID)) {
+                dbHelper.close();
+            }
         }
     }
 
@@ -16,6 +16,8 @@
 
 package org.gnucash.android.ui.account;
 
+import static org.gnucash.android.ui.util.TextViewExtKt.displayBalance;
+
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.ContentValues;
@@ -61,15 +63,16 @@ import org.gnucash.android.db.DatabaseCursorLoader;
 import org.gnucash.android.db.DatabaseSchema;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.Account;
+import org.gnucash.android.model.AccountType;
+import org.gnucash.android.model.Money;
 import org.gnucash.android.ui.common.FormActivity;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.common.UxArgument;
-import org.gnucash.android.ui.util.AccountBalanceTask;
 import org.gnucash.android.ui.util.CursorRecyclerAdapter;
 import org.gnucash.android.util.BackupManager;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Map;
 
 import timber.log.Timber;
 
@@ -127,7 +130,6 @@ public class AccountsListFragment extends MenuFragment implements
     private boolean isShowHiddenAccounts = false;
 
     private FragmentAccountsListBinding mBinding;
-    private final List<AccountBalanceTask> accountBalanceTasks = new ArrayList<>();
 
     public static AccountsListFragment newInstance(DisplayMode displayMode) {
         Bundle args = new Bundle();
@@ -338,14 +340,6 @@ public class AccountsListFragment extends MenuFragment implements
         if (mAccountRecyclerAdapter != null) {
             mAccountRecyclerAdapter.changeCursor(null);
         }
-        cancelBalances();
-    }
-
-    private void cancelBalances() {
-        for (AccountBalanceTask task : accountBalanceTasks) {
-            task.cancel(true);
-        }
-        accountBalanceTasks.clear();
     }
 
     /**
@@ -377,6 +371,7 @@ public class AccountsListFragment extends MenuFragment implements
     @Override
     public void onLoadFinished(@NonNull Loader<Cursor> loader, Cursor cursor) {
         Timber.d("Accounts loader finished. Swapping in cursor");
+        mAccountRecyclerAdapter.setBalances(((AccountsCursorLoader) loader).getBalances());
         mAccountRecyclerAdapter.changeCursor(cursor);
         if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
             if (mBinding.list.getAdapter() == null) {
@@ -427,6 +422,8 @@ public class AccountsListFragment extends MenuFragment implements
         private final String mFilter;
         private final DisplayMode mDisplayMode;
         private final boolean isShowHiddenAccounts;
+        @NonNull
+        private Map<String, Money> balances = Collections.emptyMap();
 
         /**
          * Initializes the loader to load accounts from the database.
@@ -470,9 +467,20 @@ public class AccountsListFragment extends MenuFragment implements
                         break;
                 }
             }
+            balances = dbAdapter.getAllAccountBalances();
 
             return cursor;
         }
+
+        /**
+         * Returns the balances of all the accounts, which were computed along with the last loaded cursor
+         *
+         * @return map of account UID to balance
+         */
+        @NonNull
+        public Map<String, Money> getBalances() {
+            return balances;
+        }
     }
 
     @Override
@@ -493,11 +501,23 @@ public class AccountsListFragment extends MenuFragment implements
 
     class AccountRecyclerAdapter extends CursorRecyclerAdapter<AccountRecyclerAdapter.AccountViewHolder> {
 
+        @NonNull
+        private Map<String, Money> balances = Collections.emptyMap();
+
         public AccountRecyclerAdapter(@Nullable Cursor cursor) {
             super(cursor);
             setHasStableIds(true);
         }
 
+        /**
+         * Sets the balances of the accounts, which are bound together with the rows of the cursor
+         *
+         * @param balances map of account UID to balance
+         */
+        public void setBalances(@NonNull Map<String, Money> balances) {
+            this.balances = balances;
+        }
+
         @NonNull
         @Override
         public AccountViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -563,11 +583,14 @@ public class AccountsListFragment extends MenuFragment implements
                 }
 
                 // add a summary of transactions to the account view
-
-                // Make sure the balance task is truly multi-thread
-                AccountBalanceTask task = new AccountBalanceTask(accountsDbAdapter, accountBalance, description.getCurrentTextColor());
-                accountBalanceTasks.add(task);
-                task.execute(accountUID);
+                Money balance = balances.get(accountUID);
+                if (balance != null) {
+                    AccountType accountType = account.getAccountType();
+                    if (accountType.hasDebitNormalBalance != accountType.hasDebitDisplayBalance) {
+                        balance = balance.unaryMinus();
+                    }
+                }
+                displayBalance(accountBalance, balance, description.getCurrentTextColor());
 
                 @ColorInt int accountColor = getColor(account, accountsDbAdapter);
                 colorStripView.setBackgroundColor(accountColor);
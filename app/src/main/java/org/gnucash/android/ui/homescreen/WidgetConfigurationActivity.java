@@ -18,45 +18,30 @@ package org.gnucash.android.ui.homescreen;
 
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.text.TextUtils;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.CompoundButton;
-import android.widget.RemoteViews;
-
-import androidx.core.content.ContextCompat;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashActivity;
-import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.databinding.WidgetConfigurationBinding;
-import org.gnucash.android.db.BookDbHelper;
 import org.gnucash.android.db.DatabaseHelper;
 import org.gnucash.android.db.DatabaseHolder;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.db.adapter.BooksDbAdapter;
-import org.gnucash.android.model.Account;
 import org.gnucash.android.model.Book;
-import org.gnucash.android.model.Money;
-import org.gnucash.android.receivers.TransactionAppWidgetProvider;
-import org.gnucash.android.ui.account.AccountsActivity;
 import org.gnucash.android.ui.adapter.QualifiedAccountNameAdapter;
-import org.gnucash.android.ui.common.FormActivity;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.passcode.PasscodeHelper;
-import org.gnucash.android.ui.transaction.TransactionsActivity;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import timber.log.Timber;
-
 /**
  * Activity for configuration which account to display on a widget.
  * The activity is opened each time a widget is added to the homescreen
@@ -65,8 +50,8 @@ import timber.log.Timber;
  */
 public class WidgetConfigurationActivity extends GnuCashActivity {
 
-    private static final String PREFS_PREFIX = "widget:";
-    private static final int FLAGS_UPDATE = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+    static final String PREFS_PREFIX = "widget:";
+    static final int FLAGS_UPDATE = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
 
     private int mAppWidgetId = AppWidgetManager.INVALID_APPWIDGET_ID;
     private String selectedBookUID = null;
@@ -240,6 +225,7 @@ public class WidgetConfigurationActivity extends GnuCashActivity {
      * @param appWidgetId ID of the widget whose configuration should be removed
      */
     public static void removeWidgetConfiguration(final Context context, int appWidgetId) {
+        WidgetUpdater.getInstance(context).forget(appWidgetId);
         context.getSharedPreferences(PREFS_PREFIX + appWidgetId, MODE_PRIVATE).edit()
             .clear()
             .apply();
@@ -249,112 +235,22 @@ public class WidgetConfigurationActivity extends GnuCashActivity {
      * Updates the widget with id <code>appWidgetId</code> with information from the
      * account with record ID <code>accountId</code>
      * If the account has been deleted, then a notice is posted in the widget
+     * <p>The update is done asynchronously, together with any other pending widget updates.</p>
      *
      * @param appWidgetId ID of the widget to be updated
      */
     public static void updateWidget(final Context context, int appWidgetId) {
-        Timber.i("Updating widget: %s", appWidgetId);
-        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-        final RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_4x1);
-
-        SharedPreferences preferences = context.getSharedPreferences(PREFS_PREFIX + appWidgetId, MODE_PRIVATE);
-        String bookUID = preferences.getString(UxArgument.BOOK_UID, null);
-        String accountUID = preferences.getString(UxArgument.SELECTED_ACCOUNT_UID, null);
-        boolean hideAccountBalance = preferences.getBoolean(UxArgument.HIDE_ACCOUNT_BALANCE_IN_WIDGET, false);
-
-        if (TextUtils.isEmpty(bookUID) || TextUtils.isEmpty(accountUID)) {
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-            return;
-        }
-
-        DatabaseHolder holder = new DatabaseHolder(context, BookDbHelper.getDatabase(bookUID), bookUID);
-        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(holder);
-
-        Account account = null;
-        try {
-            account = accountsDbAdapter.getSimpleRecord(accountUID);
-        } catch (IllegalArgumentException e) {
-            Timber.e(e, "Account not found, resetting widget");
-        }
-        if (account == null) {
-            accountsDbAdapter.closeQuietly();
-
-            //if account has been deleted, let the user know
-            views.setTextViewText(R.id.account_name, context.getString(R.string.toast_account_deleted));
-            views.setTextViewText(R.id.transactions_summary, "");
-            //set it to simply open the app
-            PendingIntent pendingIntent = PendingIntent.getActivity(context, 0,
-                new Intent(context, AccountsActivity.class), FLAGS_UPDATE);
-            views.setOnClickPendingIntent(R.id.widget_layout, pendingIntent);
-            views.setOnClickPendingIntent(R.id.btn_new_transaction, pendingIntent);
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-
-            GnuCashApplication.getBookPreferences(context)
-                .edit()
-                .remove(UxArgument.SELECTED_ACCOUNT_UID + appWidgetId)
-                .apply();
-            return;
-        }
-
-        views.setTextViewText(R.id.account_name, account.getName());
-
-        if (hideAccountBalance) {
-            views.setViewVisibility(R.id.transactions_summary, View.GONE);
-        } else {
-            Money accountBalance = accountsDbAdapter.getCurrentAccountBalance(account);
-            views.setTextViewText(R.id.transactions_summary,
-                accountBalance.formattedString());
-            int color = accountBalance.isNegative() ? R.color.debit_red : R.color.credit_green;
-            views.setTextColor(R.id.transactions_summary, ContextCompat.getColor(context, color));
-        }
-
-        Intent accountViewIntent = new Intent(context, TransactionsActivity.class)
-            .setAction(Intent.ACTION_VIEW)
-            .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK)
-            .putExtra(UxArgument.SELECTED_ACCOUNT_UID, accountUID)
-            .putExtra(UxArgument.BOOK_UID, bookUID);
-        PendingIntent accountPendingIntent = PendingIntent
-            .getActivity(context, appWidgetId, accountViewIntent, FLAGS_UPDATE);
-        views.setOnClickPendingIntent(R.id.widget_layout, accountPendingIntent);
-
-        if (accountsDbAdapter.isPlaceholderAccount(accountUID)) {
-            views.setViewVisibility(R.id.btn_new_transaction, View.GONE);
-        } else {
-            Intent newTransactionIntent = new Intent(context, FormActivity.class)
-                .setAction(Intent.ACTION_INSERT_OR_EDIT)
-                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
-                .putExtra(UxArgument.FORM_TYPE, FormActivity.FormType.TRANSACTION.name())
-                .putExtra(UxArgument.BOOK_UID, bookUID)
-                .putExtra(UxArgument.SELECTED_ACCOUNT_UID, accountUID);
-            PendingIntent pendingIntent = PendingIntent
-                .getActivity(context, appWidgetId, newTransactionIntent, FLAGS_UPDATE);
-            views.setOnClickPendingIntent(R.id.btn_new_transaction, pendingIntent);
-        }
-
-        accountsDbAdapter.closeQuietly();
-        appWidgetManager.updateAppWidget(appWidgetId, views);
+        WidgetUpdater.getInstance(context).requestUpdate(appWidgetId);
     }
 
     /**
      * Updates all widgets belonging to the application
+     * <p>Requests that are made in quick succession are coalesced into a single update,
+     * which is done asynchronously so as not to block the caller.</p>
      *
      * @param context Application context
      */
     public static void updateAllWidgets(final Context context) {
-        Timber.i("Updating all widgets");
-        AppWidgetManager widgetManager = AppWidgetManager.getInstance(context);
-        ComponentName componentName = new ComponentName(context, TransactionAppWidgetProvider.class);
-        final int[] appWidgetIds = widgetManager.getAppWidgetIds(componentName);
-
-        //update widgets asynchronously so as not to block method which called the update
-        //inside the computation of the account balance
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                for (final int widgetId : appWidgetIds) {
-                    updateWidget(context, widgetId);
-                }
-            }
-        }).start();
+        WidgetUpdater.getInstance(context).requestUpdateAll();
     }
 }
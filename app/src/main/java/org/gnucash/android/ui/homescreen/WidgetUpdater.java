@@ -0,0 +1,397 @@
+package org.gnucash.android.ui.homescreen;
+
+import static android.content.Context.MODE_PRIVATE;
+import static org.gnucash.android.ui.homescreen.WidgetConfigurationActivity.FLAGS_UPDATE;
+import static org.gnucash.android.ui.homescreen.WidgetConfigurationActivity.PREFS_PREFIX;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import org.gnucash.android.R;
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.db.DatabaseHelper;
+import org.gnucash.android.db.DatabaseHolder;
+import org.gnucash.android.db.adapter.AccountLabelCache;
+import org.gnucash.android.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.Money;
+import org.gnucash.android.receivers.TransactionAppWidgetProvider;
+import org.gnucash.android.ui.account.AccountsActivity;
+import org.gnucash.android.ui.common.FormActivity;
+import org.gnucash.android.ui.common.UxArgument;
+import org.gnucash.android.ui.transaction.TransactionsActivity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Coordinates the updates of the home-screen widgets.
+ * <p>Requests to update the widgets are coalesced for a short while, and then all the pending
+ * widgets are updated together on a background thread. The balances of the accounts shown by the
+ * widgets of a book are computed together, using the database of the active book when it is already open,
+ * or else a reader connection of the book database.
+ * A widget is only sent to the launcher again if what it shows has changed since its last update.</p>
+ */
+class WidgetUpdater {
+    /**
+     * Delay for coalescing the update requests, in milliseconds.
+     */
+    private static final long UPDATE_DELAY = 500;
+
+    @Nullable
+    private static WidgetUpdater instance;
+
+    private final Context context;
+    private final Handler handler;
+    private final Set<Integer> pendingWidgetIds = new HashSet<>();
+    private final Set<Integer> forcedWidgetIds = new HashSet<>();
+    /**
+     * The state that was last rendered for each widget.
+     */
+    private final Map<Integer, WidgetState> renderedStates = new HashMap<>();
+    private boolean isAllPending = false;
+    private boolean isScheduled = false;
+
+    private final Runnable updateRunnable = this::updatePendingWidgets;
+
+    private WidgetUpdater(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("WidgetUpdater");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    @NonNull
+    static synchronized WidgetUpdater getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new WidgetUpdater(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Requests an update of a widget, e.g. after it was configured.
+     * The widget is rendered even if its state has not changed.
+     *
+     * @param appWidgetId ID of the widget to be updated
+     */
+    synchronized void requestUpdate(int appWidgetId) {
+        pendingWidgetIds.add(appWidgetId);
+        forcedWidgetIds.add(appWidgetId);
+        schedule();
+    }
+
+    /**
+     * Requests an update of all the widgets, e.g. after the data has changed.
+     */
+    synchronized void requestUpdateAll() {
+        isAllPending = true;
+        schedule();
+    }
+
+    /**
+     * Forgets the state of a widget that has been removed.
+     */
+    synchronized void forget(int appWidgetId) {
+        pendingWidgetIds.remove(appWidgetId);
+        forcedWidgetIds.remove(appWidgetId);
+        renderedStates.remove(appWidgetId);
+    }
+
+    private void schedule() {
+        if (!isScheduled) {
+            isScheduled = true;
+            handler.postDelayed(updateRunnable, UPDATE_DELAY);
+        }
+    }
+
+    private void updatePendingWidgets() {
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        Set<Integer> widgetIds = new HashSet<>();
+        Set<Integer> forcedIds;
+        boolean isAll;
+        synchronized (this) {
+            widgetIds.addAll(pendingWidgetIds);
+            forcedIds = new HashSet<>(forcedWidgetIds);
+            isAll = isAllPending;
+            pendingWidgetIds.clear();
+            forcedWidgetIds.clear();
+            isAllPending = false;
+            isScheduled = false;
+        }
+        if (isAll) {
+            ComponentName componentName = new ComponentName(context, TransactionAppWidgetProvider.class);
+            for (int appWidgetId : appWidgetManager.getAppWidgetIds(componentName)) {
+                widgetIds.add(appWidgetId);
+            }
+        }
+        if (widgetIds.isEmpty()) return;
+        long start = System.nanoTime();
+
+        // Group the widgets by book, so that each book is read only once.
+        Map<String, List<WidgetConfig>> widgetsByBook = new LinkedHashMap<>();
+        for (int appWidgetId : widgetIds) {
+            WidgetConfig config = new WidgetConfig(context, appWidgetId);
+            if (TextUtils.isEmpty(config.bookUID) || TextUtils.isEmpty(config.accountUID)) {
+                render(appWidgetManager, new WidgetState(config), forcedIds.contains(appWidgetId));
+                continue;
+            }
+            List<WidgetConfig> configs = widgetsByBook.get(config.bookUID);
+            if (configs == null) {
+                configs = new ArrayList<>();
+                widgetsByBook.put(config.bookUID, configs);
+            }
+            configs.add(config);
+        }
+
+        for (Map.Entry<String, List<WidgetConfig>> entry : widgetsByBook.entrySet()) {
+            String bookUID = entry.getKey();
+            List<WidgetConfig> configs = entry.getValue();
+            AccountsDbAdapter accountsDbAdapter = getAccountsDbAdapter(bookUID);
+            boolean isShared = accountsDbAdapter != null;
+            if (!isShared) {
+                DatabaseHolder holder = new DatabaseHelper(context, bookUID).getReadableHolder();
+                accountsDbAdapter = new AccountsDbAdapter(holder);
+            }
+            try {
+                // Only the balances of the accounts shown by the widgets are computed.
+                Set<String> accountUIDs = new HashSet<>();
+                for (WidgetConfig config : configs) {
+                    if (!config.hideAccountBalance) {
+                        accountUIDs.add(config.accountUID);
+                    }
+                }
+                Map<String, Money> balances = null;
+                if (!accountUIDs.isEmpty()) {
+                    balances = accountsDbAdapter.getAccountBalances(accountUIDs, AccountsDbAdapter.ALWAYS, System.currentTimeMillis());
+                }
+                for (WidgetConfig config : configs) {
+                    WidgetState state = new WidgetState(config, accountsDbAdapter, balances);
+                    render(appWidgetManager, state, forcedIds.contains(config.appWidgetId));
+                    if (state.isDeleted) {
+                        GnuCashApplication.getBookPreferences(context, bookUID)
+                            .edit()
+                            .remove(UxArgument.SELECTED_ACCOUNT_UID + config.appWidgetId)
+                            .apply();
+                    }
+                }
+            } catch (Exception e) {
+                Timber.e(e, "Failed to update widgets of book %s", bookUID);
+            } finally {
+                if (!isShared) {
+                    accountsDbAdapter.closeQuietly();
+                }
+            }
+        }
+        Timber.d("Updated %d widgets in %d ns", widgetIds.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the accounts adapter of the active book if the widgets are for that book,
+     * so that its database is not opened again.
+     */
+    @Nullable
+    private AccountsDbAdapter getAccountsDbAdapter(@NonNull String bookUID) {
+        try {
+            if (bookUID.equals(GnuCashApplication.getActiveBookUID())) {
+                return GnuCashApplication.getAccountsDbAdapter();
+            }
+        } catch (BooksDbAdapter.NoActiveBookFoundException e) {
+            Timber.w(e);
+        }
+        return null;
+    }
+
+    private void render(@NonNull AppWidgetManager appWidgetManager, @NonNull WidgetState state, boolean force) {
+        final int appWidgetId = state.appWidgetId;
+        synchronized (this) {
+            if (!force && state.equals(renderedStates.get(appWidgetId))) {
+                Timber.v("Widget %d unchanged", appWidgetId);
+                return;
+            }
+            renderedStates.put(appWidgetId, state);
+        }
+        Timber.i("Updating widget: %s", appWidgetId);
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_4x1);
+
+        if (TextUtils.isEmpty(state.bookUID) || TextUtils.isEmpty(state.accountUID)) {
+            appWidgetManager.updateAppWidget(appWidgetId, views);
+            return;
+        }
+
+        if (state.isDeleted) {
+            Timber.w("Account not found, resetting widget");
+            //if account has been deleted, let the user know
+            views.setTextViewText(R.id.account_name, context.getString(R.string.toast_account_deleted));
+            views.setTextViewText(R.id.transactions_summary, "");
+            //set it to simply open the app
+            PendingIntent pendingIntent = PendingIntent.getActivity(context, 0,
+                new Intent(context, AccountsActivity.class), FLAGS_UPDATE);
+            views.setOnClickPendingIntent(R.id.widget_layout, pendingIntent);
+            views.setOnClickPendingIntent(R.id.btn_new_transaction, pendingIntent);
+            appWidgetManager.updateAppWidget(appWidgetId, views);
+            return;
+        }
+
+        views.setTextViewText(R.id.account_name, state.accountName);
+
+        if (state.balance == null) {
+            views.setViewVisibility(R.id.transactions_summary, View.GONE);
+        } else {
+            views.setTextViewText(R.id.transactions_summary, state.balance);
+            int color = state.isNegative ? R.color.debit_red : R.color.credit_green;
+            views.setTextColor(R.id.transactions_summary, ContextCompat.getColor(context, color));
+        }
+
+        Intent accountViewIntent = new Intent(context, TransactionsActivity.class)
+            .setAction(Intent.ACTION_VIEW)
+            .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK)
+            .putExtra(UxArgument.SELECTED_ACCOUNT_UID, state.accountUID)
+            .putExtra(UxArgument.BOOK_UID, state.bookUID);
+        PendingIntent accountPendingIntent = PendingIntent
+            .getActivity(context, appWidgetId, accountViewIntent, FLAGS_UPDATE);
+        views.setOnClickPendingIntent(R.id.widget_layout, accountPendingIntent);
+
+        if (state.isPlaceholder) {
+            views.setViewVisibility(R.id.btn_new_transaction, View.GONE);
+        } else {
+            Intent newTransactionIntent = new Intent(context, FormActivity.class)
+                .setAction(Intent.ACTION_INSERT_OR_EDIT)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                .putExtra(UxArgument.FORM_TYPE, FormActivity.FormType.TRANSACTION.name())
+                .putExtra(UxArgument.BOOK_UID, state.bookUID)
+                .putExtra(UxArgument.SELECTED_ACCOUNT_UID, state.accountUID);
+            PendingIntent pendingIntent = PendingIntent
+                .getActivity(context, appWidgetId, newTransactionIntent, FLAGS_UPDATE);
+            views.setOnClickPendingIntent(R.id.btn_new_transaction, pendingIntent);
+        }
+
+        appWidgetManager.updateAppWidget(appWidgetId, views);
+    }
+
+    /**
+     * The configuration of a widget.
+     */
+    private static class WidgetConfig {
+        final int appWidgetId;
+        @Nullable
+        final String bookUID;
+        @Nullable
+        final String accountUID;
+        final boolean hideAccountBalance;
+
+        WidgetConfig(@NonNull Context context, int appWidgetId) {
+            this.appWidgetId = appWidgetId;
+            SharedPreferences preferences = context.getSharedPreferences(PREFS_PREFIX + appWidgetId, MODE_PRIVATE);
+            bookUID = preferences.getString(UxArgument.BOOK_UID, null);
+            accountUID = preferences.getString(UxArgument.SELECTED_ACCOUNT_UID, null);
+            hideAccountBalance = preferences.getBoolean(UxArgument.HIDE_ACCOUNT_BALANCE_IN_WIDGET, false);
+        }
+    }
+
+    /**
+     * Snapshot of what a widget shows.
+     */
+    private static class WidgetState {
+        final int appWidgetId;
+        @Nullable
+        final String bookUID;
+        @Nullable
+        final String accountUID;
+        @Nullable
+        final String accountName;
+        /**
+         * The formatted balance, or {@code null} if the balance is hidden.
+         */
+        @Nullable
+        final String balance;
+        final boolean isNegative;
+        final boolean isPlaceholder;
+        final boolean isDeleted;
+
+        WidgetState(@NonNull WidgetConfig config) {
+            appWidgetId = config.appWidgetId;
+            bookUID = config.bookUID;
+            accountUID = config.accountUID;
+            accountName = null;
+            balance = null;
+            isNegative = false;
+            isPlaceholder = false;
+            isDeleted = false;
+        }
+
+        WidgetState(
+            @NonNull WidgetConfig config,
+            @NonNull AccountsDbAdapter accountsDbAdapter,
+            @Nullable Map<String, Money> balances
+        ) {
+            appWidgetId = config.appWidgetId;
+            bookUID = config.bookUID;
+            accountUID = config.accountUID;
+            AccountLabelCache.Label label = accountsDbAdapter.getAccountLabel(accountUID);
+            isDeleted = label == null;
+            if (isDeleted) {
+                accountName = null;
+                balance = null;
+                isNegative = false;
+                isPlaceholder = false;
+                return;
+            }
+            accountName = label.name;
+            Money accountBalance = (config.hideAccountBalance || balances == null) ? null : balances.get(accountUID);
+            if (config.hideAccountBalance) {
+                balance = null;
+                isNegative = false;
+            } else if (accountBalance == null) {
+                Money zero = Money.createZeroInstance(accountsDbAdapter.getCommodity(accountUID));
+                balance = zero.formattedString();
+                isNegative = false;
+            } else {
+                balance = accountBalance.formattedString();
+                isNegative = accountBalance.isNegative();
+            }
+            isPlaceholder = accountsDbAdapter.isPlaceholderAccount(accountUID);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof WidgetState)) return false;
+            WidgetState that = (WidgetState) o;
+            return appWidgetId == that.appWidgetId
+                && isNegative == that.isNegative
+                && isPlaceholder == that.isPlaceholder
+                && isDeleted == that.isDeleted
+                && Objects.equals(bookUID, that.bookUID)
+                && Objects.equals(accountUID, that.accountUID)
+                && Objects.equals(accountName, that.accountName)
+                && Objects.equals(balance, that.balance);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(appWidgetId, bookUID, accountUID, accountName, balance, isNegative, isPlaceholder, isDeleted);
+        }
+    }
+}
@@ -22,8 +22,8 @@ import static java.lang.Math.max;
 import android.app.Activity;
 import android.content.Context;
 import android.graphics.Color;
-import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.preference.PreferenceManager;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -53,21 +53,19 @@ import org.gnucash.android.db.adapter.PricesDbAdapter;
 import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
 import org.gnucash.android.model.Commodity;
-import org.gnucash.android.ui.common.BaseDrawerActivity;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.util.DateExtKt;
 import org.joda.time.LocalDateTime;
 import org.joda.time.Months;
 import org.joda.time.Years;
 
-import java.lang.ref.WeakReference;
 import java.text.NumberFormat;
 import java.util.Locale;
 
 /**
  * Base class for report fragments.
  * <p>All report fragments should extend this class. At the minimum, reports must implement
- * {@link #getReportType()}, {@link #generateReport(Context)}, {@link #displayReport()} and {@link #getTitle()}</p>
+ * {@link #getReportType()}, {@link #generateReport(Context, CancellationSignal)}, {@link #displayReport()} and {@link #getTitle()}</p>
  * <p>Implementing classes should create their own XML layouts and inflate it in {@link #inflateView(LayoutInflater, ViewGroup)}.
  * </p>
  * <p>Any custom information to be initialized for the report should be done in {@link #onActivityCreated(Bundle)} in implementing classes.
@@ -133,8 +131,7 @@ public abstract class BaseReportFragment extends MenuFragment implements
 
     protected TextView mSelectedValueTextView;
 
-    @Nullable
-    private GeneratorTask mReportGenerator;
+    private ReportGenerator mReportGenerator;
 
     /**
      * Return the title of this report
@@ -178,8 +175,11 @@ public abstract class BaseReportFragment extends MenuFragment implements
      * <p>This method should not call any methods which modify the UI as it will be run in a background thread
      * <br>Put any code to update the UI in {@link #displayReport()}
      * </p>
+     * <p>Long queries should be passed the signal, which is cancelled when a newer report is requested.</p>
+     *
+     * @throws android.os.OperationCanceledException if the signal is cancelled
      */
-    protected abstract void generateReport(@NonNull Context context);
+    protected abstract void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal);
 
     /**
      * Update the view after the report chart has been generated <br/>
@@ -208,6 +208,7 @@ public abstract class BaseReportFragment extends MenuFragment implements
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mReportGenerator = new ReportGenerator(this);
         mAccountsDbAdapter = AccountsDbAdapter.getInstance();
         mUseAccountColor = PreferenceManager.getDefaultSharedPreferences(requireContext())
             .getBoolean(getString(R.string.key_use_account_color), false);
@@ -248,17 +249,13 @@ public abstract class BaseReportFragment extends MenuFragment implements
     @Override
     public void onDetach() {
         super.onDetach();
-        if (mReportGenerator != null)
-            mReportGenerator.cancel(true);
+        mReportGenerator.cancel();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (mReportGenerator != null) {
-            mReportGenerator.cancel(true);
-            mReportGenerator = null;
-        }
+        mReportGenerator.cancel();
     }
 
     private void toggleBaseReportingOptionsVisibility(ReportsActivity activity) {
@@ -307,11 +304,20 @@ public abstract class BaseReportFragment extends MenuFragment implements
 
     @Override
     public void refresh() {
-        if (mReportGenerator != null) {
-            mReportGenerator.cancel(true);
-        }
-        mReportGenerator = new GeneratorTask(mReportsActivity);
-        mReportGenerator.execute();
+        final ReportsActivity activity = mReportsActivity;
+        mReportGenerator.start(activity, new ReportGenerator.Task() {
+            @Override
+            public void generate(@NonNull CancellationSignal cancellationSignal) {
+                if (activity != null) {
+                    generateReport(activity, cancellationSignal);
+                }
+            }
+
+            @Override
+            public void display() {
+                displayReport();
+            }
+        });
     }
 
     /**
@@ -417,40 +423,4 @@ public abstract class BaseReportFragment extends MenuFragment implements
         }
         return color;
     }
-
-    private class GeneratorTask extends AsyncTask<Void, Void, Void> {
-
-        private final WeakReference<ReportsActivity> activityRef;
-
-        private GeneratorTask(ReportsActivity activity) {
-            this.activityRef = new WeakReference<>(activity);
-        }
-
-        @Override
-        protected void onPreExecute() {
-            BaseDrawerActivity activity = this.activityRef.get();
-            assert activity != null;
-            activity.showProgressBar(true);
-        }
-
-        @Override
-        protected Void doInBackground(Void... params) {
-            BaseDrawerActivity activity = this.activityRef.get();
-            if (activity != null) {
-                // FIXME return data to be displayed.
-                generateReport(activity);
-            }
-            return null;
-        }
-
-        @Override
-        protected void onPostExecute(Void result) {
-            BaseDrawerActivity activity = this.activityRef.get();
-            if (activity != null) {
-                // FIXME display the result data that was generated.
-                displayReport();
-                activity.showProgressBar(false);
-            }
-        }
-    }
 }
@@ -2,6 +2,8 @@ package org.gnucash.android.ui.report
 
 import org.gnucash.android.db.adapter.TransactionsDbAdapter
 import org.gnucash.android.model.AccountType
+import org.gnucash.android.util.getFirstQuarterMonth
+import org.gnucash.android.util.toMillis
 import org.joda.time.LocalDateTime
 
 abstract class IntervalReportFragment : BaseReportFragment()  {
@@ -59,4 +61,33 @@ abstract class IntervalReportFragment : BaseReportFragment()  {
         earliestTransactionTimestamp = LocalDateTime(timestamps[0])
     }
 
+    /**
+     * Returns the boundaries of the periods of the interval, from the earliest transaction
+     * (or the report start) to the latest transaction (or the report end).
+     * The same periods are used for all the account types, so that their datasets can be shared.
+     * Call [calculateEarliestAndLatestTimestamps] first.
+     *
+     * @param groupInterval the interval of each period
+     * @return the boundaries, or `null` if there is no data
+     */
+    protected fun getReportPeriods(groupInterval: ReportsActivity.GroupInterval): LongArray? {
+        var startDate = earliestTransactionTimestamp ?: return null
+        val endDate = mReportPeriodEnd
+            ?: latestTimestamps.values.maxOrNull()?.let { LocalDateTime(it) }
+            ?: LocalDateTime.now()
+        val count = getDateDiff(groupInterval, startDate, endDate)
+        if (count <= 0) return null
+        if (groupInterval == ReportsActivity.GroupInterval.QUARTER) {
+            startDate = startDate.withMonthOfYear(startDate.getFirstQuarterMonth()).dayOfMonth().withMinimumValue()
+        }
+        return LongArray(count + 1) { i ->
+            val date = when (groupInterval) {
+                ReportsActivity.GroupInterval.QUARTER -> startDate.plusMonths(i * 3)
+                ReportsActivity.GroupInterval.YEAR -> startDate.plusYears(i)
+                else -> startDate.plusMonths(i)
+            }
+            date.toMillis()
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package org.gnucash.android.ui.report;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.db.adapter.PricesDbAdapter;
+import org.gnucash.android.model.Account;
+import org.gnucash.android.model.AccountType;
+import org.gnucash.android.model.Commodity;
+import org.gnucash.android.model.Money;
+import org.gnucash.android.model.MoneySum;
+import org.gnucash.android.model.Price;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * The balances of the income and expense accounts, for consecutive periods, in the report commodity.
+ * <p>The dataset is built with a single pass over the splits, and is shared by the report fragments,
+ * which render from it without querying the database again. Datasets are cached by their parameters,
+ * and by the modification stamp of the book, so switching between reports or account types reuses them.
+ * Concurrent requests for the same dataset wait for a single build.</p>
+ */
+public class ReportDataset {
+
+    /**
+     * The account types in every dataset.
+     */
+    public static final List<AccountType> ACCOUNT_TYPES = Collections.unmodifiableList(
+        Arrays.asList(AccountType.INCOME, AccountType.EXPENSE)
+    );
+
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<String, ReportDataset> cache = new LinkedHashMap<String, ReportDataset>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportDataset> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * The locks of the datasets that are being built, guarded by the cache.
+     */
+    private static final Map<String, Object> builds = new HashMap<>();
+
+    @NonNull
+    private final long[] periods;
+    @NonNull
+    private final Commodity commodity;
+    private final Map<AccountType, List<Account>> accounts = new EnumMap<>(AccountType.class);
+    private final List<Map<String, Money>> balances;
+    private final List<Map<AccountType, Money>> totals;
+
+    @VisibleForTesting
+    ReportDataset(
+        @NonNull AccountsDbAdapter accountsDbAdapter,
+        @NonNull PricesDbAdapter pricesDbAdapter,
+        @NonNull long[] periods,
+        @NonNull Commodity commodity,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        this.periods = periods;
+        this.commodity = commodity;
+        String where = AccountEntry.COLUMN_TYPE + " IN ('" + AccountType.INCOME.name() + "','" + AccountType.EXPENSE.name() + "')"
+            + " AND " + AccountEntry.COLUMN_PLACEHOLDER + " = 0"
+            + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
+        String orderBy = AccountEntry.COLUMN_FULL_NAME + " ASC";
+        List<Account> allAccounts = accountsDbAdapter.getSimpleAccounts(where, null, orderBy);
+        for (AccountType accountType : ACCOUNT_TYPES) {
+            accounts.put(accountType, new ArrayList<Account>());
+        }
+        for (Account account : allAccounts) {
+            accounts.get(account.getAccountType()).add(account);
+        }
+
+        List<Map<String, Money>> periodBalances = accountsDbAdapter.getAccountsBalances(allAccounts, periods, cancellationSignal);
+        Map<String, Price> prices = new HashMap<>();
+        balances = new ArrayList<>(periodBalances.size());
+        totals = new ArrayList<>(periodBalances.size());
+        for (Map<String, Money> accountBalances : periodBalances) {
+            if (cancellationSignal != null) {
+                cancellationSignal.throwIfCanceled();
+            }
+            Map<String, Money> converted = new HashMap<>();
+            Map<AccountType, MoneySum> sums = new EnumMap<>(AccountType.class);
+            for (AccountType accountType : ACCOUNT_TYPES) {
+                sums.put(accountType, new MoneySum(commodity));
+            }
+            for (Account account : allAccounts) {
+                Money balance = accountBalances.get(account.getUID());
+                if ((balance == null) || balance.isAmountZero()) continue;
+                Commodity balanceCommodity = balance.getCommodity();
+                String commodityUID = balanceCommodity.getUID();
+                final Price price;
+                if (prices.containsKey(commodityUID)) {
+                    price = prices.get(commodityUID);
+                } else {
+                    price = pricesDbAdapter.getPrice(balanceCommodity, commodity);
+                    prices.put(commodityUID, price);
+                }
+                if (price == null) continue;
+                balance = balance.times(price);
+                converted.put(account.getUID(), balance);
+                sums.get(account.getAccountType()).add(balance);
+            }
+            Map<AccountType, Money> periodTotals = new EnumMap<>(AccountType.class);
+            for (Map.Entry<AccountType, MoneySum> entry : sums.entrySet()) {
+                periodTotals.put(entry.getKey(), entry.getValue().toMoney());
+            }
+            balances.add(converted);
+            totals.add(periodTotals);
+        }
+    }
+
+    /**
+     * Returns the dataset for the periods in the active book, building it only when it is not cached,
+     * or when the book was modified since it was built.
+     * <p>This method queries the database, so it should not be called on the main thread.</p>
+     *
+     * @param accountsDbAdapter  the accounts adapter of the active book
+     * @param pricesDbAdapter    the prices adapter of the active book
+     * @param periods            the boundaries of the periods, in ascending order
+     * @param commodity          the commodity in which to report
+     * @param cancellationSignal signal to cancel the build, if any
+     * @return the dataset
+     * @throws android.os.OperationCanceledException if the signal is cancelled
+     * @see AccountsDbAdapter#getAccountsBalances(List, long[], CancellationSignal)
+     * @see AccountsDbAdapter#getDataStamp()
+     */
+    @NonNull
+    public static ReportDataset get(
+        @NonNull AccountsDbAdapter accountsDbAdapter,
+        @NonNull PricesDbAdapter pricesDbAdapter,
+        @NonNull long[] periods,
+        @NonNull Commodity commodity,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        String bookUID = GnuCashApplication.getActiveBookUID();
+        if (bookUID == null) {
+            return new ReportDataset(accountsDbAdapter, pricesDbAdapter, periods, commodity, cancellationSignal);
+        }
+        String key = bookUID
+            + ";" + accountsDbAdapter.getDataStamp()
+            + ";" + commodity.getUID()
+            + ";" + Arrays.toString(periods);
+        Object lock;
+        synchronized (cache) {
+            ReportDataset dataset = cache.get(key);
+            if (dataset != null) {
+                return dataset;
+            }
+            lock = builds.get(key);
+            if (lock == null) {
+                lock = new Object();
+                builds.put(key, lock);
+            }
+        }
+        // Built outside the cache lock, so that other datasets can be read meanwhile.
+        synchronized (lock) {
+            synchronized (cache) {
+                ReportDataset dataset = cache.get(key);
+                if (dataset != null) {
+                    return dataset;
+                }
+            }
+            try {
+                Timber.d("Build report dataset %s", key);
+                ReportDataset dataset = new ReportDataset(accountsDbAdapter, pricesDbAdapter, periods, commodity, cancellationSignal);
+                synchronized (cache) {
+                    cache.put(key, dataset);
+                }
+                return dataset;
+            } finally {
+                synchronized (cache) {
+                    if (builds.get(key) == lock) {
+                        builds.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards all the cached datasets.
+     */
+    public static void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns the number of periods.
+     */
+    public int getPeriodCount() {
+        return periods.length - 1;
+    }
+
+    /**
+     * Returns the start time of the period.
+     *
+     * @param period the index of the period
+     * @return the start time, or {@link AccountsDbAdapter#ALWAYS}
+     */
+    public long getPeriodStart(int period) {
+        return periods[period];
+    }
+
+    @NonNull
+    public Commodity getCommodity() {
+        return commodity;
+    }
+
+    /**
+     * Returns the non-placeholder accounts of the type, ordered by their full names.
+     *
+     * @param accountType the account type, which must be one of {@link #ACCOUNT_TYPES}
+     * @return the accounts
+     */
+    @NonNull
+    public List<Account> getAccounts(@NonNull AccountType accountType) {
+        List<Account> result = accounts.get(accountType);
+        return (result != null) ? result : Collections.<Account>emptyList();
+    }
+
+    /**
+     * Returns the balance of the account during the period, in the report commodity.
+     *
+     * @param period     the index of the period
+     * @param accountUID the account UID
+     * @return the balance, or {@code null} if it is zero or has no price
+     */
+    @Nullable
+    public Money getBalance(int period, @NonNull String accountUID) {
+        return balances.get(period).get(accountUID);
+    }
+
+    /**
+     * Returns the total of the balances of the accounts of the type during the period, in the report commodity.
+     *
+     * @param period      the index of the period
+     * @param accountType the account type
+     * @return the total
+     */
+    @NonNull
+    public Money getTotal(int period, @NonNull AccountType accountType) {
+        Money total = totals.get(period).get(accountType);
+        return (total != null) ? total : Money.createZeroInstance(commodity);
+    }
+}
@@ -0,0 +1,106 @@
+package org.gnucash.android.ui.report
+
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.lifecycleScope
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import org.gnucash.android.ui.common.BaseDrawerActivity
+import timber.log.Timber
+
+/**
+ * Generates reports in the background.
+ *
+ * Starting a report cancels the report that is still being generated, so that only the latest
+ * report is displayed. The progress bar is shown only when the report takes a while to generate.
+ */
+class ReportGenerator(private val scope: CoroutineScope) {
+
+    constructor(lifecycleOwner: LifecycleOwner) : this(lifecycleOwner.lifecycleScope)
+
+    /**
+     * The steps of a report.
+     */
+    interface Task {
+        /**
+         * Generates the data of the report, in the background.
+         *
+         * @param cancellationSignal signal that is cancelled when the report is superseded.
+         * @throws OperationCanceledException if the signal is cancelled.
+         */
+        @Throws(OperationCanceledException::class)
+        fun generate(cancellationSignal: CancellationSignal)
+
+        /**
+         * Displays the generated data, on the main thread.
+         */
+        fun display()
+    }
+
+    private var job: Job? = null
+    private var cancellationSignal: CancellationSignal? = null
+    private var progressJob: Job? = null
+
+    /**
+     * Starts generating the report, after cancelling the previous report.
+     *
+     * @param activity the activity that shows the progress, if any.
+     * @param task     the report.
+     */
+    fun start(activity: BaseDrawerActivity?, task: Task) {
+        cancel()
+        val signal = CancellationSignal()
+        cancellationSignal = signal
+        progressJob = scope.launch(Dispatchers.Main) {
+            delay(PROGRESS_DELAY)
+            activity?.showProgressBar(true)
+        }
+        val job = scope.launch(Dispatchers.IO) {
+            try {
+                task.generate(signal)
+            } catch (e: OperationCanceledException) {
+                Timber.v("Report cancelled")
+                return@launch
+            }
+            withContext(Dispatchers.Main) {
+                if (!isActive || signal.isCanceled) return@withContext
+                task.display()
+            }
+        }
+        this.job = job
+        // Hidden however the report ends, unless a newer report has started meanwhile.
+        job.invokeOnCompletion {
+            scope.launch(Dispatchers.Main) {
+                val current = this@ReportGenerator.job
+                if (current != null && current !== job) return@launch
+                progressJob?.cancel()
+                activity?.showProgressBar(false)
+            }
+        }
+    }
+
+    /**
+     * Cancels the report that is being generated, if any.
+     */
+    fun cancel() {
+        cancellationSignal?.cancel()
+        cancellationSignal = null
+        job?.cancel()
+        job = null
+        progressJob?.cancel()
+        progressJob = null
+    }
+
+    companion object {
+        /**
+         * The time to wait before showing the progress, in milliseconds.
+         */
+        private const val PROGRESS_DELAY = 500L
+    }
+}
@@ -125,6 +125,7 @@ public class ReportsActivity extends BaseDrawerActivity implements AdapterView.O
         super.onCreate(savedInstanceState);
         final Context context = this;
         mTransactionsDbAdapter = TransactionsDbAdapter.getInstance();
+        ReportDataset.invalidate();
 
         ActionBar actionBar = getSupportActionBar();
         assert actionBar != null;
@@ -20,6 +20,7 @@ import static org.gnucash.android.ui.util.TextViewExtKt.displayBalance;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.View;
@@ -36,19 +37,15 @@ import com.github.mikephil.charting.data.PieEntry;
 
 import org.gnucash.android.R;
 import org.gnucash.android.databinding.FragmentReportSummaryBinding;
-import org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
-import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
-import org.gnucash.android.model.Price;
 import org.gnucash.android.ui.report.piechart.PieChartFragment;
 import org.gnucash.android.util.DateExtKt;
 import org.joda.time.LocalDateTime;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Shows a summary of reports
@@ -116,8 +113,8 @@ public class ReportsOverviewFragment extends BaseReportFragment {
     }
 
     @Override
-    protected void generateReport(@NonNull Context context) {
-        PieData pieData = PieChartFragment.groupSmallerSlices(context, getData());
+    protected void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
+        PieData pieData = PieChartFragment.groupSmallerSlices(context, getData(context, cancellationSignal));
         if (pieData.getDataSetCount() > 0 && pieData.getDataSet().getEntryCount() > 0) {
             mBinding.pieChart.setData(pieData);
             float sum = mBinding.pieChart.getData().getYValueSum();
@@ -130,6 +127,7 @@ public class ReportsOverviewFragment extends BaseReportFragment {
             mChartHasData = false;
         }
 
+        cancellationSignal.throwIfCanceled();
         List<AccountType> accountTypes = new ArrayList<>();
         accountTypes.add(AccountType.ASSET);
         accountTypes.add(AccountType.CASH);
@@ -147,28 +145,19 @@ public class ReportsOverviewFragment extends BaseReportFragment {
      *
      * @return {@code PieData} instance
      */
-    private PieData getData() {
+    private PieData getData(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
         PieDataSet dataSet = new PieDataSet(null, "");
         List<Integer> colors = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
-        long startTime = DateExtKt.toMillis(now.minusMonths(3));
-        long endTime = DateExtKt.toMillis(now);
-        final Commodity commodity = mCommodity;
-
-        String where = AccountEntry.COLUMN_TYPE + "=?"
-            + " AND " + AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-            + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
-        String[] whereArgs = new String[]{mAccountType.name()};
-        String orderBy = AccountEntry.COLUMN_FULL_NAME + " ASC";
-        List<Account> accounts = mAccountsDbAdapter.getSimpleAccounts(where, whereArgs, orderBy);
-        Map<String, Money> balances = mAccountsDbAdapter.getAccountsBalances(accounts, startTime, endTime);
-
-        for (Account account : accounts) {
-            Money balance = balances.get(account.getUID());
-            if ((balance == null) || balance.isAmountZero()) continue;
-            Price price = pricesDbAdapter.getPrice(balance.getCommodity(), commodity);
-            if (price == null) continue;
-            balance = balance.times(price);
+        // Whole days, so that the dataset is shared until tomorrow.
+        LocalDateTime today = LocalDateTime.now().withMillisOfDay(0);
+        long startTime = DateExtKt.toMillis(today.minusMonths(3));
+        long endTime = DateExtKt.toMillis(today.plusDays(1));
+        long[] periods = new long[]{startTime, endTime};
+        ReportDataset dataset = ReportDataset.get(mAccountsDbAdapter, pricesDbAdapter, periods, mCommodity, cancellationSignal);
+
+        for (Account account : dataset.getAccounts(mAccountType)) {
+            Money balance = dataset.getBalance(0, account.getUID());
+            if (balance == null) continue;
             float value = balance.toFloat();
             if (value > 0f) {
                 int count = dataSet.getEntryCount();
@@ -19,6 +19,7 @@ package org.gnucash.android.ui.report.barchart;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -43,16 +44,13 @@ import com.github.mikephil.charting.interfaces.datasets.IBarDataSet;
 
 import org.gnucash.android.R;
 import org.gnucash.android.databinding.FragmentBarChartBinding;
-import org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
 import org.gnucash.android.model.Money;
-import org.gnucash.android.model.Price;
 import org.gnucash.android.ui.report.IntervalReportFragment;
+import org.gnucash.android.ui.report.ReportDataset;
 import org.gnucash.android.ui.report.ReportType;
 import org.gnucash.android.ui.report.ReportsActivity;
-import org.gnucash.android.util.DateExtKt;
-import org.joda.time.LocalDateTime;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -113,7 +111,7 @@ public class StackedBarChartFragment extends IntervalReportFragment {
      *
      * @return a {@code BarData} instance that represents a user data
      */
-    protected BarData getData(@NonNull Context context) {
+    protected BarData getData(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
         List<BarEntry> entries = new ArrayList<>();
         List<String> stackLabels = new ArrayList<>();
         List<Integer> colors = new ArrayList<>();
@@ -122,63 +120,23 @@ public class StackedBarChartFragment extends IntervalReportFragment {
         AccountType accountType = mAccountType;
 
         calculateEarliestAndLatestTimestamps(accountTypes);
-        LocalDateTime startDate = mReportPeriodStart;
-        if (startDate == null) {
-            Long startTime = earliestTimestamps.get(accountType);
-            if (startTime != null) {
-                startDate = new LocalDateTime(startTime);
-            } else {
-                isChartDataPresent = false;
-                return getEmptyData(context);
-            }
-        }
-        LocalDateTime endDate = mReportPeriodEnd;
-        if (endDate == null) {
-            Long endTime = latestTimestamps.get(accountType);
-            if (endTime != null) {
-                endDate = new LocalDateTime(endTime);
-            } else {
-                endDate = LocalDateTime.now();
-            }
-        }
-
-        LocalDateTime startPeriod = startDate;
-        LocalDateTime endPeriod = endDate;
-        switch (groupInterval) {
-            case MONTH:
-                endPeriod = startPeriod.plusMonths(1);
-                break;
-            case QUARTER:
-                startPeriod = startPeriod.withMonthOfYear(DateExtKt.getFirstQuarterMonth(startPeriod)).dayOfMonth().withMinimumValue();
-                endPeriod = startPeriod.plusMonths(3);
-                break;
-            case YEAR:
-                endPeriod = startPeriod.plusYears(1);
-                break;
+        long[] periods = getReportPeriods(groupInterval);
+        if (periods == null) {
+            isChartDataPresent = false;
+            return getEmptyData(context);
         }
-        int count = getDateDiff(groupInterval, startDate, endDate);
-
-        final String where = AccountEntry.COLUMN_TYPE + "=?"
-            + " AND " + AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-            + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
-        final String[] whereArgs = new String[]{accountType.name()};
-        final String orderBy = AccountEntry.COLUMN_FULL_NAME + " ASC";
-        List<Account> accounts = mAccountsDbAdapter.getSimpleAccounts(where, whereArgs, orderBy);
+        ReportDataset dataset = ReportDataset.get(mAccountsDbAdapter, pricesDbAdapter, periods, mCommodity, cancellationSignal);
+        List<Account> accounts = dataset.getAccounts(accountType);
+        final int count = dataset.getPeriodCount();
 
         for (int i = 0; i < count; i++) {
-            long startTime = DateExtKt.toMillis(startPeriod);
-            long endTime = DateExtKt.toMillis(endPeriod);
             List<Float> stack = new ArrayList<>();
             List<String> labels = new ArrayList<>();
-            Map<String, Money> balances = mAccountsDbAdapter.getAccountsBalances(accounts, startTime, endTime);
 
             for (Account account : accounts) {
-                Money balance = balances.get(account.getUID());
-                if ((balance == null) || balance.isAmountZero()) continue;
-                Timber.d("%s %s [%s] %s - %s %s", accountType, groupInterval, account, startPeriod, endPeriod, balance);
-                Price price = pricesDbAdapter.getPrice(balance.getCommodity(), mCommodity);
-                if (price == null) continue;
-                balance = balance.times(price);
+                Money balance = dataset.getBalance(i, account.getUID());
+                if (balance == null) continue;
+                Timber.d("%s %s [%s] %d %s", accountType, groupInterval, account, i, balance);
                 float value = balance.toFloat();
                 if (value > 0f) {
                     stack.add(value);
@@ -198,19 +156,6 @@ public class StackedBarChartFragment extends IntervalReportFragment {
                 }
             }
 
-            startPeriod = endPeriod;
-            switch (groupInterval) {
-                case MONTH:
-                    endPeriod = endPeriod.plusMonths(1);
-                    break;
-                case QUARTER:
-                    endPeriod = endPeriod.plusMonths(3);
-                    break;
-                case YEAR:
-                    endPeriod = endPeriod.plusYears(1);
-                    break;
-            }
-
             if (stack.isEmpty()) {
                 stack.add(0f);
             }
@@ -267,8 +212,8 @@ public class StackedBarChartFragment extends IntervalReportFragment {
     }
 
     @Override
-    public void generateReport(@NonNull Context context) {
-        mBinding.barChart.setData(getData(context));
+    public void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
+        mBinding.barChart.setData(getData(context, cancellationSignal));
         mBinding.barChart.getAxisLeft().setDrawLabels(isChartDataPresent);
         mBinding.barChart.getXAxis().setDrawLabels(isChartDataPresent);
         mBinding.barChart.setTouchEnabled(isChartDataPresent);
@@ -21,6 +21,7 @@ import static org.gnucash.android.util.ColorExtKt.parseColor;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -42,21 +43,15 @@ import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
 
 import org.gnucash.android.R;
 import org.gnucash.android.databinding.FragmentLineChartBinding;
-import org.gnucash.android.db.DatabaseSchema.AccountEntry;
-import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
-import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
-import org.gnucash.android.model.Price;
 import org.gnucash.android.ui.report.IntervalReportFragment;
+import org.gnucash.android.ui.report.ReportDataset;
 import org.gnucash.android.ui.report.ReportType;
 import org.gnucash.android.ui.report.ReportsActivity;
-import org.gnucash.android.util.DateExtKt;
-import org.joda.time.LocalDateTime;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import timber.log.Timber;
 
@@ -117,16 +112,20 @@ public class CashFlowLineChartFragment extends IntervalReportFragment {
      * @return a {@code LineData} instance that represents a user data
      */
     @NonNull
-    private LineData getData(@NonNull Context context, List<AccountType> accountTypes) {
+    private LineData getData(@NonNull Context context, List<AccountType> accountTypes, @NonNull CancellationSignal cancellationSignal) {
         Timber.i("getData for %s", accountTypes);
         calculateEarliestAndLatestTimestamps(accountTypes);
         ReportsActivity.GroupInterval groupInterval = mGroupInterval;
-        LocalDateTime startDate = mReportPeriodStart;
-        LocalDateTime endDate = mReportPeriodEnd;
+        long[] periods = getReportPeriods(groupInterval);
+        if (periods == null) {
+            isChartDataPresent = false;
+            return getEmptyData(context);
+        }
+        ReportDataset dataset = ReportDataset.get(mAccountsDbAdapter, pricesDbAdapter, periods, mCommodity, cancellationSignal);
 
         List<ILineDataSet> dataSets = new ArrayList<>();
         for (AccountType accountType : accountTypes) {
-            List<Entry> entries = getEntryList(accountType, groupInterval, startDate, endDate);
+            List<Entry> entries = getEntryList(dataset, accountType);
             LineDataSet dataSet = new LineDataSet(entries, getLabel(context, accountType));
             dataSet.setDrawFilled(true);
             dataSet.setLineWidth(2);
@@ -169,90 +168,19 @@ public class CashFlowLineChartFragment extends IntervalReportFragment {
     /**
      * Returns entries which represent a user data of the specified account type
      *
-     * @param accountType   account's type which user data will be processed
-     * @param groupInterval
+     * @param dataset     the report dataset, whose periods are the x values
+     * @param accountType account's type which user data will be processed
      * @return entries which represent a user data
      */
-    private List<Entry> getEntryList(
-        @NonNull AccountType accountType,
-        @NonNull ReportsActivity.GroupInterval groupInterval,
-        @Nullable LocalDateTime startEntries,
-        @Nullable LocalDateTime endEntries
-    ) {
-        final Commodity commodity = mCommodity;
+    private List<Entry> getEntryList(@NonNull ReportDataset dataset, @NonNull AccountType accountType) {
         List<Entry> entries = new ArrayList<>();
-
-        LocalDateTime startDate = startEntries;
-        if (startDate == null) {
-            Long startTime = earliestTimestamps.get(accountType);
-            if (startTime != null) {
-                startDate = new LocalDateTime(startTime);
-            } else {
-                return entries;
-            }
-        }
-        LocalDateTime endDate = endEntries;
-        if (endDate == null) {
-            Long endTime = latestTimestamps.get(accountType);
-            if (endTime != null) {
-                endDate = new LocalDateTime(endTime);
-            } else {
-                endDate = LocalDateTime.now();
-            }
-        }
-        final LocalDateTime earliestDate = earliestTransactionTimestamp;
-        int xAxisOffset = getDateDiff(groupInterval, earliestDate, startDate);
-        int count = getDateDiff(groupInterval, startDate, endDate);
-        LocalDateTime startPeriod = startDate;
-        LocalDateTime endPeriod = endDate;
-        switch (groupInterval) {
-            case MONTH:
-                endPeriod = startPeriod.plusMonths(1);
-                break;
-            case QUARTER:
-                startPeriod = startPeriod.withMonthOfYear(DateExtKt.getFirstQuarterMonth(startPeriod)).dayOfMonth().withMinimumValue();
-                endPeriod = startPeriod.plusMonths(3);
-                break;
-            case YEAR:
-                endPeriod = startPeriod.plusYears(1);
-                break;
-        }
-
-        String where = AccountEntry.COLUMN_TYPE + "=?"
-            + " AND " + AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-            + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
-        String[] whereArgs = new String[]{accountType.name()};
-        List<Account> accounts = mAccountsDbAdapter.getSimpleAccounts(where, whereArgs, null);
-
-        for (int i = 0, x = xAxisOffset; i < count; i++, x++) {
-            long startTime = DateExtKt.toMillis(startPeriod);
-            long endTime = DateExtKt.toMillis(endPeriod);
-            Money balance = Money.createZeroInstance(commodity);
-            Map<String, Money> balances = mAccountsDbAdapter.getAccountsBalances(accounts, startTime, endTime);
-            for (Money accountBalance : balances.values()) {
-                Price price = pricesDbAdapter.getPrice(accountBalance.getCommodity(), commodity);
-                if (price == null) continue;
-                accountBalance = accountBalance.times(price);
-                balance = balance.plus(accountBalance);
-            }
-            Timber.d("%s %s %s - %s %s", accountType, groupInterval, startPeriod, endPeriod, balance);
-
-            startPeriod = endPeriod;
-            switch (groupInterval) {
-                case MONTH:
-                    endPeriod = endPeriod.plusMonths(1);
-                    break;
-                case QUARTER:
-                    endPeriod = endPeriod.plusMonths(3);
-                    break;
-                case YEAR:
-                    endPeriod = endPeriod.plusYears(1);
-                    break;
-            }
-
+        final int count = dataset.getPeriodCount();
+        for (int i = 0; i < count; i++) {
+            Money balance = dataset.getTotal(i, accountType);
+            Timber.d("%s %s %d %s", accountType, mGroupInterval, i, balance);
             if (balance.isAmountZero()) continue;
             float value = balance.toFloat();
-            entries.add(new Entry(x, value));
+            entries.add(new Entry(i, value));
         }
 
         return entries;
@@ -264,8 +192,8 @@ public class CashFlowLineChartFragment extends IntervalReportFragment {
     }
 
     @Override
-    protected void generateReport(@NonNull Context context) {
-        LineData lineData = getData(context, accountTypes);
+    protected void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
+        LineData lineData = getData(context, accountTypes, cancellationSignal);
         mBinding.lineChart.setData(lineData);
         isChartDataPresent = true;
     }
@@ -22,6 +22,7 @@ import static org.gnucash.android.db.adapter.AccountsDbAdapter.ALWAYS;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -41,12 +42,10 @@ import com.github.mikephil.charting.highlight.Highlight;
 
 import org.gnucash.android.R;
 import org.gnucash.android.databinding.FragmentPieChartBinding;
-import org.gnucash.android.db.DatabaseSchema.AccountEntry;
 import org.gnucash.android.model.Account;
-import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
-import org.gnucash.android.model.Price;
 import org.gnucash.android.ui.report.BaseReportFragment;
+import org.gnucash.android.ui.report.ReportDataset;
 import org.gnucash.android.ui.report.ReportType;
 import org.gnucash.android.util.DateExtKt;
 
@@ -54,7 +53,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * Activity used for drawing a pie chart
@@ -108,8 +106,8 @@ public class PieChartFragment extends BaseReportFragment {
     }
 
     @Override
-    protected void generateReport(@NonNull Context context) {
-        PieData pieData = getData();
+    protected void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
+        PieData pieData = getData(context, cancellationSignal);
         if (pieData.getDataSetCount() > 0 && pieData.getDataSet().getEntryCount() > 0) {
             mChartDataPresent = true;
             mBinding.pieChart.setData(mGroupSmallerSlices ? groupSmallerSlices(context, pieData) : pieData);
@@ -140,27 +138,17 @@ public class PieChartFragment extends BaseReportFragment {
      * @return {@code PieData} instance
      */
     @NonNull
-    private PieData getData() {
+    private PieData getData(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
         PieDataSet dataSet = new PieDataSet(null, "");
         List<Integer> colors = new ArrayList<>();
         long startTime = (mReportPeriodStart != null) ? DateExtKt.toMillis(mReportPeriodStart) : ALWAYS;
         long endTime = (mReportPeriodEnd != null) ? DateExtKt.toMillis(mReportPeriodEnd) : ALWAYS;
-        final Commodity commodity = mCommodity;
-
-        String where = AccountEntry.COLUMN_TYPE + "=?"
-            + " AND " + AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-            + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
-        String[] whereArgs = new String[]{mAccountType.name()};
-        String orderBy = AccountEntry.COLUMN_FULL_NAME + " ASC";
-        List<Account> accounts = mAccountsDbAdapter.getSimpleAccounts(where, whereArgs, orderBy);
-        Map<String, Money> balances = mAccountsDbAdapter.getAccountsBalances(accounts, startTime, endTime);
-
-        for (Account account : accounts) {
-            Money balance = balances.get(account.getUID());
-            if ((balance == null) || balance.isAmountZero()) continue;
-            Price price = pricesDbAdapter.getPrice(balance.getCommodity(), commodity);
-            if (price == null) continue;
-            balance = balance.times(price);
+        long[] periods = new long[]{startTime, endTime};
+        ReportDataset dataset = ReportDataset.get(mAccountsDbAdapter, pricesDbAdapter, periods, mCommodity, cancellationSignal);
+
+        for (Account account : dataset.getAccounts(mAccountType)) {
+            Money balance = dataset.getBalance(0, account.getUID());
+            if (balance == null) continue;
             float value = balance.toFloat();
             if (value > 0f) {
                 int count = dataSet.getEntryCount();
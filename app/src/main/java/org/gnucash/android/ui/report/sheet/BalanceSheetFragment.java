@@ -19,6 +19,7 @@ import static org.gnucash.android.ui.util.TextViewExtKt.displayBalance;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -40,6 +41,7 @@ import org.gnucash.android.model.Account;
 import org.gnucash.android.model.AccountType;
 import org.gnucash.android.model.Commodity;
 import org.gnucash.android.model.Money;
+import org.gnucash.android.model.MoneySum;
 import org.gnucash.android.model.Price;
 import org.gnucash.android.ui.report.BaseReportFragment;
 import org.gnucash.android.ui.report.ReportType;
@@ -104,8 +106,9 @@ public class BalanceSheetFragment extends BaseReportFragment {
     }
 
     @Override
-    protected void generateReport(@NonNull Context context) {
+    protected void generateReport(@NonNull Context context, @NonNull CancellationSignal cancellationSignal) {
         mAssetsBalance = mAccountsDbAdapter.getCurrentAccountsBalance(mAssetAccountTypes, mCommodity);
+        cancellationSignal.throwIfCanceled();
         mLiabilitiesBalance = mAccountsDbAdapter.getCurrentAccountsBalance(mLiabilityAccountTypes, mCommodity).unaryMinus();
     }
 
@@ -141,7 +144,7 @@ public class BalanceSheetFragment extends BaseReportFragment {
             + " AND " + AccountEntry.COLUMN_TEMPLATE + " = 0";
         String orderBy = AccountEntry.COLUMN_FULL_NAME + " ASC";
         List<Account> accounts = mAccountsDbAdapter.getSimpleAccounts(where, null, orderBy);
-        Money total = Money.createZeroInstance(Commodity.DEFAULT_COMMODITY);
+        MoneySum total = new MoneySum(Commodity.DEFAULT_COMMODITY);
         boolean isRowEven = true;
 
         for (Account account : accounts) {
@@ -167,14 +170,14 @@ public class BalanceSheetFragment extends BaseReportFragment {
             Price price = pricesDbAdapter.getPrice(balance.getCommodity(), total.getCommodity());
             if (price == null) continue;
             balance = balance.times(price);
-            total = total.plus(balance);
+            total.add(balance);
         }
 
         TotalBalanceSheetBinding binding = TotalBalanceSheetBinding.inflate(inflater, tableLayout, true);
 
         TextView accountBalance = binding.accountBalance;
         @ColorInt int colorBalanceZero = accountBalance.getCurrentTextColor();
-        displayBalance(accountBalance, total, colorBalanceZero);
+        displayBalance(accountBalance, total.toMoney(), colorBalanceZero);
     }
 
 }
@@ -25,7 +25,9 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.database.Cursor;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -52,21 +54,21 @@ import androidx.fragment.app.ListFragment;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
-import org.gnucash.android.db.DatabaseHelper;
-import org.gnucash.android.db.DatabaseHolder;
 import org.gnucash.android.db.DatabaseSchema.BookEntry;
-import org.gnucash.android.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.db.DatabaseSchema.BookStatsEntry;
 import org.gnucash.android.db.adapter.BooksDbAdapter;
-import org.gnucash.android.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.importer.AccountsTemplate;
 import org.gnucash.android.ui.account.AccountsActivity;
 import org.gnucash.android.ui.adapter.AccountsTemplatesAdapter;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.settings.dialog.DeleteBookConfirmationDialog;
+import org.gnucash.android.util.BookTaskRunner;
 import org.gnucash.android.util.BookUtils;
 import org.gnucash.android.util.PreferencesHelper;
 
+import java.lang.ref.WeakReference;
 import java.sql.Timestamp;
+import java.util.List;
 
 import timber.log.Timber;
 
@@ -80,6 +82,8 @@ public class BookManagerFragment extends ListFragment implements
 
     private BooksAdapter booksAdapter;
     private AccountsTemplatesAdapter accountsTemplatesAdapter;
+    @Nullable
+    private BookStatsTask bookStatsTask;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -98,6 +102,10 @@ public class BookManagerFragment extends ListFragment implements
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (bookStatsTask != null) {
+            bookStatsTask.cancel();
+            bookStatsTask = null;
+        }
         booksAdapter = null;
         accountsTemplatesAdapter = null;
     }
@@ -150,8 +158,16 @@ public class BookManagerFragment extends ListFragment implements
     @Override
     public void refresh() {
         if (isDetached() || getFragmentManager() == null) return;
+        swapBooksCursor();
+        if (bookStatsTask == null || bookStatsTask.getStatus() == AsyncTask.Status.FINISHED) {
+            bookStatsTask = new BookStatsTask(this, BooksDbAdapter.getInstance());
+            bookStatsTask.execute();
+        }
+    }
+
+    private void swapBooksCursor() {
         BooksDbAdapter booksDbAdapter = BooksDbAdapter.getInstance();
-        Cursor cursor = booksDbAdapter.fetchAllRecords();
+        Cursor cursor = booksDbAdapter.fetchAllBooksWithStats();
         booksAdapter.swapCursor(cursor);
     }
 
@@ -229,7 +245,7 @@ public class BookManagerFragment extends ListFragment implements
             final String bookUID = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_UID));
 
             setLastExportedText(view, bookUID);
-            setStatisticsText(view, bookUID);
+            setStatisticsText(view, cursor);
             setUpMenu(view, context, cursor, bookUID);
 
             if (activeBookUID.equals(bookUID)) {
@@ -337,21 +353,64 @@ public class BookManagerFragment extends ListFragment implements
                 lastSyncText.setText(lastSyncTime.toString());
         }
 
-        private void setStatisticsText(View view, String bookUID) {
-            final Context context = view.getContext();
-            DatabaseHelper dbHelper = new DatabaseHelper(context, bookUID);
-            DatabaseHolder holder = dbHelper.getHolder();
-            TransactionsDbAdapter trnAdapter = new TransactionsDbAdapter(holder);
-            int transactionCount = (int) trnAdapter.getRecordsCount();
-            AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(trnAdapter);
-            int accountsCount = (int) accountsDbAdapter.getRecordsCount();
-            dbHelper.close();
+        private void setStatisticsText(View view, Cursor cursor) {
+            TextView statsText = view.findViewById(R.id.secondary_text);
+            int accountsIndex = cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_ACCOUNT_COUNT);
+            if (cursor.isNull(accountsIndex)) {
+                // Shown once the statistics are computed in the background.
+                statsText.setText(null);
+                return;
+            }
+            int accountsCount = cursor.getInt(accountsIndex);
+            int transactionCount = cursor.getInt(cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_TRANSACTION_COUNT));
 
             String transactionStats = getResources().getQuantityString(R.plurals.book_transaction_stats, transactionCount, transactionCount);
             String accountStats = getResources().getQuantityString(R.plurals.book_account_stats, accountsCount, accountsCount);
             String stats = accountStats + ", " + transactionStats;
-            TextView statsText = view.findViewById(R.id.secondary_text);
             statsText.setText(stats);
         }
     }
+
+    /**
+     * Refreshes the statistics of the books that are out of date, and then shows them.
+     */
+    private static class BookStatsTask extends AsyncTask<Void, Void, Boolean> {
+
+        private final WeakReference<BookManagerFragment> fragmentRef;
+        private final BooksDbAdapter booksDbAdapter;
+        private final CancellationSignal cancellationSignal = new CancellationSignal();
+
+        private BookStatsTask(BookManagerFragment fragment, BooksDbAdapter booksDbAdapter) {
+            this.fragmentRef = new WeakReference<>(fragment);
+            this.booksDbAdapter = booksDbAdapter;
+        }
+
+        @Override
+        protected Boolean doInBackground(Void... params) {
+            List<String> bookUIDs = booksDbAdapter.getStaleBookStatsUIDs();
+            if (bookUIDs.isEmpty() || isCancelled()) {
+                return false;
+            }
+            BookTaskRunner.Result result = BookTaskRunner.run(bookUIDs, new BookTaskRunner.BookTask() {
+                @Override
+                public boolean run(@NonNull String bookUID, @NonNull CancellationSignal cancellationSignal) {
+                    return booksDbAdapter.refreshBookStats(bookUID);
+                }
+            }, cancellationSignal);
+            return !result.getSucceeded().isEmpty();
+        }
+
+        @Override
+        protected void onPostExecute(Boolean isRefreshed) {
+            BookManagerFragment fragment = fragmentRef.get();
+            if (isRefreshed && fragment != null && fragment.booksAdapter != null) {
+                fragment.swapBooksCursor();
+            }
+        }
+
+        void cancel() {
+            cancel(false);
+            cancellationSignal.cancel();
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package org.gnucash.android.ui.settings;
+
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceCategory;
+
+import org.gnucash.android.R;
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.db.QueryStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Fragment for recording and reporting the database query statistics.
+ */
+public class DiagnosticsPreferenceFragment extends GnuPreferenceFragment {
+
+    /**
+     * Maximum number of call sites, and of slow queries, to show.
+     */
+    private static final int MAX_ITEMS = 20;
+
+    @Override
+    protected int getTitleId() {
+        return R.string.header_diagnostics;
+    }
+
+    @Override
+    public void onCreatePreferences(@Nullable Bundle savedInstanceState, @Nullable String rootKey) {
+        addPreferencesFromResource(R.xml.fragment_diagnostics_preferences);
+
+        Preference preference = findPreference(getString(R.string.key_enable_query_stats));
+        preference.setOnPreferenceChangeListener(new Preference.OnPreferenceChangeListener() {
+            @Override
+            public boolean onPreferenceChange(@NonNull Preference preference, Object newValue) {
+                QueryStats.getInstance().setEnabled((Boolean) newValue);
+                return true;
+            }
+        });
+
+        preference = findPreference(getString(R.string.key_share_query_stats));
+        preference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+            @Override
+            public boolean onPreferenceClick(@NonNull Preference preference) {
+                shareReport();
+                return true;
+            }
+        });
+
+        preference = findPreference(getString(R.string.key_reset_query_stats));
+        preference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+            @Override
+            public boolean onPreferenceClick(@NonNull Preference preference) {
+                QueryStats.getInstance().reset();
+                showStats();
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        showStats();
+    }
+
+    private void showStats() {
+        Context context = requireContext();
+        QueryStats queryStats = QueryStats.getInstance();
+
+        PreferenceCategory category = findPreference(getString(R.string.key_query_stats));
+        category.removeAll();
+        List<QueryStats.CallSite> callSites = queryStats.getCallSites();
+        for (QueryStats.CallSite callSite : callSites.subList(0, Math.min(MAX_ITEMS, callSites.size()))) {
+            long count = callSite.getCount();
+            double meanMillis = callSite.getTotalNanos() / 1e6 / Math.max(1, count);
+            String summary = getString(R.string.summary_query_stats, count, meanMillis,
+                TimeUnit.NANOSECONDS.toMillis(callSite.getMaxNanos()), callSite.getRows(), callSite.getOpenCursors());
+            category.addPreference(createItem(context, callSite.name, summary));
+        }
+        if (callSites.isEmpty()) {
+            category.addPreference(createItem(context, getString(R.string.label_no_query_stats), null));
+        }
+
+        category = findPreference(getString(R.string.key_slow_queries));
+        category.removeAll();
+        List<QueryStats.SlowQuery> slowQueries = queryStats.getSlowQueries();
+        for (QueryStats.SlowQuery slowQuery : slowQueries.subList(0, Math.min(MAX_ITEMS, slowQueries.size()))) {
+            String summary = getString(R.string.summary_slow_query,
+                TimeUnit.NANOSECONDS.toMillis(slowQuery.nanos), slowQuery.rows, slowQuery.plan);
+            category.addPreference(createItem(context, slowQuery.callSite, summary));
+        }
+        category.setVisible(!slowQueries.isEmpty());
+    }
+
+    private static Preference createItem(Context context, String title, @Nullable String summary) {
+        Preference item = new Preference(context);
+        item.setTitle(title);
+        item.setSummary(summary);
+        item.setSelectable(false);
+        item.setIconSpaceReserved(false);
+        return item;
+    }
+
+    /**
+     * Writes the statistics to a file, and shares it.
+     */
+    private void shareReport() {
+        Context context = requireContext();
+        try {
+            File file = QueryStats.getInstance().writeReport(context);
+            Uri uri = FileProvider.getUriForFile(context, GnuCashApplication.FILE_PROVIDER_AUTHORITY, file);
+            Intent shareIntent = new Intent(Intent.ACTION_SEND)
+                .setType("text/plain")
+                .putExtra(Intent.EXTRA_STREAM, uri)
+                .putExtra(Intent.EXTRA_SUBJECT, getString(R.string.title_query_stats))
+                .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            startActivity(Intent.createChooser(shareIntent, getString(R.string.title_share_query_stats)));
+        } catch (IOException e) {
+            Timber.e(e, "Error writing the query statistics");
+            Toast.makeText(context, e.getLocalizedMessage(), Toast.LENGTH_LONG).show();
+        } catch (ActivityNotFoundException e) {
+            Timber.e(e);
+            Toast.makeText(context, R.string.toast_no_compatible_apps_to_receive_export, Toast.LENGTH_LONG).show();
+        }
+    }
+}
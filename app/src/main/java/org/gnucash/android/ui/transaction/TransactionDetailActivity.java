@@ -26,6 +26,7 @@ import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.databinding.ActivityTransactionDetailBinding;
 import org.gnucash.android.databinding.ItemSplitAmountInfoBinding;
 import org.gnucash.android.databinding.RowBalanceBinding;
+import org.gnucash.android.db.adapter.AccountLabelCache;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.db.adapter.DatabaseAdapter;
 import org.gnucash.android.db.adapter.ScheduledActionDbAdapter;
@@ -134,7 +135,9 @@ public class TransactionDetailActivity extends PasscodeLockActivity implements F
         Transaction transaction = transactionsDbAdapter.getRecord(mTransactionUID);
 
         binding.trnDescription.setText(transaction.getDescription());
-        binding.transactionAccount.setText(getString(R.string.label_inside_account_with_name, accountsDbAdapter.getAccountFullName(mAccountUID)));
+        AccountLabelCache.Label label = accountsDbAdapter.getAccountLabel(mAccountUID);
+        String accountFullName = (label != null) ? label.fullName : accountsDbAdapter.getAccountFullName(mAccountUID);
+        binding.transactionAccount.setText(getString(R.string.label_inside_account_with_name, accountFullName));
 
         boolean useDoubleEntry = GnuCashApplication.isDoubleEntryEnabled(this);
         Context context = this;
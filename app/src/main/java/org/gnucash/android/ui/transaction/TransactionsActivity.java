@@ -615,6 +615,7 @@ public class TransactionsActivity extends BaseDrawerActivity implements
             }
 
             //if there are no transactions, and there are sub-accounts, show the sub-accounts
+            // Unlike the deletion guard, the templates of scheduled transactions are not listed.
             long txCount = transactionsDbAdapter.getTransactionsCount(accountUID);
             if (txCount == 0) {
                 long subCount = mAccountsDbAdapter.getSubAccountCount(accountUID);
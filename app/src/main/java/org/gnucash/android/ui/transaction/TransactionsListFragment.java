@@ -41,6 +41,7 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.PopupMenu;
+import androidx.appcompat.widget.SearchView;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentResultListener;
 import androidx.loader.app.LoaderManager;
@@ -55,6 +56,7 @@ import org.gnucash.android.app.MenuFragment;
 import org.gnucash.android.databinding.CardviewTransactionBinding;
 import org.gnucash.android.databinding.FragmentTransactionsListBinding;
 import org.gnucash.android.db.DatabaseCursorLoader;
+import org.gnucash.android.db.adapter.AccountLabelCache;
 import org.gnucash.android.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.db.adapter.DatabaseAdapter;
 import org.gnucash.android.db.adapter.TransactionsDbAdapter;
@@ -79,10 +81,25 @@ import timber.log.Timber;
  * @author Ngewi Fet <ngewif@gmail.com>
  */
 public class TransactionsListFragment extends MenuFragment implements
-    Refreshable, LoaderManager.LoaderCallbacks<Cursor>, FragmentResultListener {
+    Refreshable, LoaderManager.LoaderCallbacks<Cursor>, FragmentResultListener,
+    SearchView.OnQueryTextListener {
+
+    /**
+     * Number of transactions to load at a time, enough for a few screens
+     */
+    private static final int PAGE_SIZE = 50;
+    /**
+     * Maximum number of search results, newest first
+     */
+    private static final int SEARCH_LIMIT = 500;
 
     private TransactionsDbAdapter mTransactionsDbAdapter;
     private String mAccountUID;
+    /**
+     * Text to search the transactions for. Used by search interface
+     */
+    @Nullable
+    private String mCurrentFilter;
 
     private boolean mUseCompactView = false;
     private boolean mUseDoubleEntry = true;
@@ -142,6 +159,7 @@ public class TransactionsListFragment extends MenuFragment implements
         binding.list.setTag("transactions");
 
         mTransactionRecyclerAdapter = new TransactionRecyclerAdapter(null);
+        mTransactionRecyclerAdapter.setHasStableIds(true);
         binding.list.setAdapter(mTransactionRecyclerAdapter);
     }
 
@@ -182,6 +200,10 @@ public class TransactionsListFragment extends MenuFragment implements
     public void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
         super.onCreateOptionsMenu(menu, inflater);
         inflater.inflate(R.menu.transactions_list_actions, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.menu_search).getActionView();
+        if (searchView != null) {
+            searchView.setOnQueryTextListener(this);
+        }
     }
 
     @Override
@@ -209,7 +231,7 @@ public class TransactionsListFragment extends MenuFragment implements
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args) {
         Timber.d("Creating transactions loader");
-        return new TransactionsCursorLoader(getActivity(), mAccountUID);
+        return new TransactionsCursorLoader(getActivity(), mAccountUID, mCurrentFilter);
     }
 
     @Override
@@ -224,6 +246,27 @@ public class TransactionsListFragment extends MenuFragment implements
         mTransactionRecyclerAdapter.changeCursor(null);
     }
 
+    @Override
+    public boolean onQueryTextSubmit(String query) {
+        //nothing to see here, move along
+        return true;
+    }
+
+    @Override
+    public boolean onQueryTextChange(String newText) {
+        String newFilter = !TextUtils.isEmpty(newText) ? newText : null;
+        String oldFilter = mCurrentFilter;
+        if (oldFilter == null && newFilter == null) {
+            return true;
+        }
+        if (oldFilter != null && oldFilter.equals(newFilter)) {
+            return true;
+        }
+        mCurrentFilter = newFilter;
+        refresh();
+        return true;
+    }
+
     @Override
     public void onFragmentResult(@NonNull String requestKey, @NonNull Bundle result) {
         if (BulkMoveDialogFragment.TAG.equals(requestKey)) {
@@ -234,22 +277,31 @@ public class TransactionsListFragment extends MenuFragment implements
 
     /**
      * {@link DatabaseCursorLoader} for loading transactions asynchronously from the database
+     * <p>When there is a search filter, the matching transactions are loaded from the search index instead.</p>
      *
      * @author Ngewi Fet <ngewif@gmail.com>
      */
     protected static class TransactionsCursorLoader extends DatabaseCursorLoader<TransactionsDbAdapter> {
         private final String accountUID;
+        @Nullable
+        private final String filter;
 
-        public TransactionsCursorLoader(Context context, String accountUID) {
+        public TransactionsCursorLoader(Context context, String accountUID, @Nullable String filter) {
             super(context);
             this.accountUID = accountUID;
+            this.filter = filter;
         }
 
         @Override
         public Cursor loadInBackground() {
             databaseAdapter = TransactionsDbAdapter.getInstance();
             if (databaseAdapter == null) return null;
-            Cursor c = databaseAdapter.fetchAllTransactionsForAccount(accountUID);
+            final Cursor c;
+            if (TextUtils.isEmpty(filter)) {
+                c = databaseAdapter.fetchPagedTransactionsForAccount(accountUID, PAGE_SIZE);
+            } else {
+                c = databaseAdapter.searchTransactions(filter, accountUID, Long.MIN_VALUE, Long.MAX_VALUE, SEARCH_LIMIT, 0);
+            }
             if (c != null)
                 registerContentObserver(c);
             return c;
@@ -377,7 +429,8 @@ public class TransactionsListFragment extends MenuFragment implements
                         if (splits.get(0).isPairOf(splits.get(1))) {
                             for (Split split : splits) {
                                 if (!split.getAccountUID().equals(mAccountUID)) {
-                                    text = AccountsDbAdapter.getInstance().getFullyQualifiedAccountName(split.getAccountUID());
+                                    AccountLabelCache.Label label = AccountsDbAdapter.getInstance().getAccountLabel(split.getAccountUID());
+                                    if (label != null) text = label.fullName;
                                     break;
                                 }
                             }
@@ -40,6 +40,8 @@ import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.homescreen.WidgetConfigurationActivity;
 
+import java.util.Arrays;
+
 /**
  * Dialog fragment for moving transactions from one account to another
  *
@@ -129,9 +131,7 @@ public class BulkMoveDialogFragment extends DialogFragment {
             return;
         }
 
-        for (String transactionUID : transactionUIDs) {
-            trxnAdapter.moveTransaction(transactionUID, srcAccountUID, dstAccountUID);
-        }
+        trxnAdapter.moveTransactions(Arrays.asList(transactionUIDs), srcAccountUID, dstAccountUID);
 
         WidgetConfigurationActivity.updateAllWidgets(context);
         Bundle result = new Bundle();
@@ -21,6 +21,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 import android.widget.Toast;
 
@@ -78,16 +79,32 @@ public class BackupManager {
      */
     @WorkerThread
     public static boolean backupAllBooks(Context context) {
+        return backupAllBooks(context, null);
+    }
+
+    /**
+     * Perform an automatic backup of all books in the database.
+     * The books are backed up concurrently.
+     *
+     * @param cancellationSignal signal to cancel the backups, if any
+     * @return `true` when all books were successfully backed-up.
+     */
+    @WorkerThread
+    public static boolean backupAllBooks(final Context context, @Nullable CancellationSignal cancellationSignal) {
         Timber.i("Doing backup of all books.");
         BooksDbAdapter booksDbAdapter = BooksDbAdapter.getInstance();
         List<String> bookUIDs = booksDbAdapter.getAllBookUIDs();
 
-        for (String bookUID : bookUIDs) {
-            if (!backupBook(context, bookUID)) {
-                return false;
+        BookTaskRunner.Result result = BookTaskRunner.run(bookUIDs, new BookTaskRunner.BookTask() {
+            @Override
+            public boolean run(@NonNull String bookUID, @NonNull CancellationSignal signal) {
+                return backupBook(context, bookUID, signal);
             }
+        }, cancellationSignal);
+        for (String bookUID : result.getFailed().keySet()) {
+            Timber.w("Backup of book %s failed", bookUID);
         }
-        return true;
+        return result.isSuccessful();
     }
 
     /**
@@ -119,21 +136,46 @@ public class BackupManager {
      */
     @WorkerThread
     public static boolean backupBook(Context context, String bookUID) {
+        return backupBook(context, bookUID, null);
+    }
+
+    /**
+     * Backs up the book with UID {@code bookUID}.
+     *
+     * @param bookUID            Unique ID of the book
+     * @param cancellationSignal signal to cancel the backup, if any
+     * @return {@code true} if backup was successful, {@code false} otherwise
+     */
+    @WorkerThread
+    public static boolean backupBook(Context context, String bookUID, @Nullable CancellationSignal cancellationSignal) {
         ExportParams params = new ExportParams(ExportFormat.XML);
         params.setExportTarget(ExportParams.ExportTarget.URI);
         params.isCompressed = true;
         try {
             Uri backupUri = getBookBackupFileUri(context, bookUID, params);
             params.setExportLocation(backupUri);
-            Exporter exporter = new GncXmlExporter(context, params, bookUID);
+            final Exporter exporter = new GncXmlExporter(context, params, bookUID);
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                    @Override
+                    public void onCancel() {
+                        exporter.cancel();
+                    }
+                });
+            }
             Uri uri = exporter.export();
             return (uri != null);
         } catch (Throwable e) {
             Timber.e(e, "Error creating backup");
+        } finally {
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(null);
+            }
         }
         return false;
     }
 
+
     /**
      * Returns the full path of a file to make database backup of the specified book.
      * Backups are done in XML format and are Gzipped (with ".gnucash" extension).
@@ -0,0 +1,225 @@
+package org.gnucash.android.util;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import timber.log.Timber;
+
+/**
+ * Runs a task for each book concurrently, in a bounded pool of threads.
+ * <p>Each book has its own database, so the tasks of different books do not contend with each other.
+ * Cancelling the signal that is passed to {@link #run(List, BookTask, CancellationSignal)} cancels
+ * the tasks that are running, and skips the tasks that have not started yet.</p>
+ */
+public class BookTaskRunner {
+
+    /**
+     * Maximum number of books that are processed at the same time.
+     */
+    private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Task to be run for a book.
+     */
+    public interface BookTask {
+        /**
+         * Runs the task for a book.
+         *
+         * @param bookUID            GUID of the book
+         * @param cancellationSignal signal which is cancelled when the task should stop
+         * @return {@code true} if the task was successful, {@code false} otherwise
+         */
+        boolean run(@NonNull String bookUID, @NonNull CancellationSignal cancellationSignal) throws Exception;
+    }
+
+    /**
+     * The results of the tasks of all the books.
+     */
+    public static class Result {
+        private final List<String> succeeded = new ArrayList<>();
+        private final List<String> cancelled = new ArrayList<>();
+        private final Map<String, Throwable> failed = new LinkedHashMap<>();
+
+        /**
+         * Returns the books whose task was successful.
+         */
+        @NonNull
+        public List<String> getSucceeded() {
+            return Collections.unmodifiableList(succeeded);
+        }
+
+        /**
+         * Returns the books whose task was cancelled, or was never started.
+         */
+        @NonNull
+        public List<String> getCancelled() {
+            return Collections.unmodifiableList(cancelled);
+        }
+
+        /**
+         * Returns the books whose task failed, with the error if there was one.
+         */
+        @NonNull
+        public Map<String, Throwable> getFailed() {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * Returns {@code true} if the tasks of all the books were successful.
+         */
+        public boolean isSuccessful() {
+            return failed.isEmpty() && cancelled.isEmpty();
+        }
+    }
+
+    /**
+     * Runs the task for each book, and waits for all the tasks to finish.
+     *
+     * @param bookUIDs           GUIDs of the books
+     * @param task               the task to run for each book
+     * @param cancellationSignal signal to cancel the tasks, if any
+     * @return the results of the tasks
+     */
+    @WorkerThread
+    @NonNull
+    public static Result run(
+        @NonNull List<String> bookUIDs,
+        @NonNull final BookTask task,
+        @Nullable CancellationSignal cancellationSignal
+    ) {
+        final Result result = new Result();
+        final int count = bookUIDs.size();
+        if (count == 0) {
+            return result;
+        }
+
+        // Every task gets its own signal, because a signal only has one listener.
+        final List<CancellationSignal> signals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            signals.add(new CancellationSignal());
+        }
+        if (cancellationSignal != null) {
+            cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                @Override
+                public void onCancel() {
+                    for (CancellationSignal signal : signals) {
+                        signal.cancel();
+                    }
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(count, MAX_THREADS), new BookThreadFactory());
+        List<Future<Boolean>> futures = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                final String bookUID = bookUIDs.get(i);
+                final CancellationSignal signal = signals.get(i);
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        signal.throwIfCanceled();
+                        long start = System.nanoTime();
+                        boolean isSuccessful = task.run(bookUID, signal);
+                        Timber.d("Book %s processed in %d ns", bookUID, System.nanoTime() - start);
+                        return isSuccessful;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < count; i++) {
+                String bookUID = bookUIDs.get(i);
+                try {
+                    if (futures.get(i).get()) {
+                        result.succeeded.add(bookUID);
+                    } else {
+                        result.failed.put(bookUID, null);
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof OperationCanceledException) {
+                        result.cancelled.add(bookUID);
+                    } else {
+                        Timber.e(cause, "Error processing book %s", bookUID);
+                        result.failed.put(bookUID, cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    for (CancellationSignal signal : signals) {
+                        signal.cancel();
+                    }
+                    for (int j = i; j < count; j++) {
+                        result.cancelled.add(bookUIDs.get(j));
+                    }
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(null);
+            }
+        }
+        Timber.i("Processed %d books: %d succeeded, %d failed, %d cancelled",
+            count, result.succeeded.size(), result.failed.size(), result.cancelled.size());
+        return result;
+    }
+
+    /**
+     * Runs the task for each book in the background, without waiting for the tasks to finish.
+     * <p>The books of successive calls are processed one call after the other.</p>
+     *
+     * @param bookUIDs GUIDs of the books
+     * @param task     the task to run for each book
+     * @return the future results of the tasks
+     */
+    @NonNull
+    public static Future<Result> runInBackground(@NonNull final List<String> bookUIDs, @NonNull final BookTask task) {
+        return BackgroundHolder.executor.submit(new Callable<Result>() {
+            @Override
+            public Result call() {
+                return run(bookUIDs, task, null);
+            }
+        });
+    }
+
+    /**
+     * Holds the background executor, which is only created when first used.
+     */
+    private static class BackgroundHolder {
+        static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "BookTask-background");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static class BookThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(runnable, "BookTask-" + threadCount.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.gnucash.android.util;
+
+import android.util.Log;
+
+import org.gnucash.android.BuildConfig;
+
+import timber.log.Timber;
+
+/**
+ * Guards for logging in hot paths, such as for every record that is read or written.
+ * <p>Check the guard before calling {@link Timber}, so that the arguments of the message are not
+ * evaluated (and boxed) when the message would not be logged anyway:</p>
+ * <pre>
+ * if (Logging.isDebug()) {
+ *     Timber.d("Adding record: %s", model.getUID());
+ * }
+ * </pre>
+ * <p>Debug and verbose logging is switched off at build time for release builds,
+ * in which case the guards are constant {@code false}.</p>
+ */
+public final class Logging {
+
+    /**
+     * Whether debug and verbose messages can be logged at all in this build.
+     */
+    public static final boolean DEBUG = BuildConfig.LOG_DEBUG;
+
+    private static volatile int minPriority = DEBUG ? Log.VERBOSE : Log.INFO;
+
+    private Logging() {
+    }
+
+    /**
+     * Returns the lowest priority of the messages to log.
+     */
+    public static int getMinPriority() {
+        return minPriority;
+    }
+
+    /**
+     * Sets the lowest priority of the messages to log.
+     *
+     * @param priority the priority, e.g. {@link Log#DEBUG}
+     */
+    public static void setMinPriority(int priority) {
+        minPriority = priority;
+    }
+
+    /**
+     * Returns {@code true} if messages of this priority would be logged.
+     *
+     * @param priority the priority, e.g. {@link Log#INFO}
+     */
+    public static boolean isLoggable(int priority) {
+        return (priority >= minPriority) && (Timber.treeCount() > 0);
+    }
+
+    /**
+     * Returns {@code true} if verbose messages would be logged.
+     */
+    public static boolean isVerbose() {
+        return DEBUG && isLoggable(Log.VERBOSE);
+    }
+
+    /**
+     * Returns {@code true} if debug messages would be logged.
+     */
+    public static boolean isDebug() {
+        return DEBUG && isLoggable(Log.DEBUG);
+    }
+}
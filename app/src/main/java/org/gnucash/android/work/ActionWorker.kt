@@ -1,6 +1,7 @@
 package org.gnucash.android.work
 
 import android.content.Context
+import android.os.CancellationSignal
 import androidx.work.Worker
 import androidx.work.WorkerParameters
 import org.gnucash.android.service.ScheduledActionService
@@ -11,9 +12,19 @@ import org.gnucash.android.service.ScheduledActionService
 class ActionWorker(context: Context, workerParams: WorkerParameters) :
     Worker(context, workerParams) {
 
+    private val cancellationSignal = CancellationSignal()
+
     override fun doWork(): Result {
         val service = ScheduledActionService()
-        service.doWork(applicationContext)
-        return Result.success()
+        return if (service.doWork(applicationContext, cancellationSignal)) {
+            Result.success()
+        } else {
+            Result.failure()
+        }
+    }
+
+    override fun onStopped() {
+        super.onStopped()
+        cancellationSignal.cancel()
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package org.gnucash.android.work
 
 import android.content.Context
+import android.os.CancellationSignal
 import androidx.work.Worker
 import androidx.work.WorkerParameters
 import org.gnucash.android.util.BackupManager
@@ -11,8 +12,18 @@ import org.gnucash.android.util.BackupManager
 class BackupWorker(context: Context, workerParams: WorkerParameters) :
     Worker(context, workerParams) {
 
+    private val cancellationSignal = CancellationSignal()
+
     override fun doWork(): Result {
-        BackupManager.backupAllBooks(applicationContext)
-        return Result.success()
+        return if (BackupManager.backupAllBooks(applicationContext, cancellationSignal)) {
+            Result.success()
+        } else {
+            Result.failure()
+        }
+    }
+
+    override fun onStopped() {
+        super.onStopped()
+        cancellationSignal.cancel()
     }
-}
\ No newline at end of file
+}
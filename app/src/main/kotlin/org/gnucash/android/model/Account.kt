@@ -61,9 +61,14 @@ class Account : BaseModel {
     var accountType = AccountType.CASH
 
     /**
-     * List of transactions in this account
+     * List of transactions in this account, or `null` if not loaded yet.
      */
-    private var _transactions = mutableListOf<Transaction>()
+    private var _transactions: MutableList<Transaction>? = mutableListOf()
+
+    /**
+     * Loads the transactions the first time that they are needed.
+     */
+    private var transactionsLoader: (() -> List<Transaction>)? = null
 
     /**
      * Account UID of the parent account. Can be null
@@ -116,16 +121,44 @@ class Account : BaseModel {
      */
     fun addTransaction(transaction: Transaction) {
         transaction.commodity = commodity
-        _transactions.add(transaction)
+        loadTransactions().add(transaction)
+    }
+
+    private fun loadTransactions(): MutableList<Transaction> {
+        var transactions = _transactions
+        if (transactions == null) {
+            transactions = transactionsLoader?.invoke().orEmpty().toMutableList()
+            _transactions = transactions
+            transactionsLoader = null
+        }
+        return transactions
+    }
+
+    /**
+     * Sets the function that loads the transactions of this account from the database.
+     * The transactions are only loaded when they are first read, so that an account can be
+     * used without reading all of its transactions and splits.
+     *
+     * @param loader the function that returns the transactions
+     */
+    fun setTransactionsLoader(loader: () -> List<Transaction>) {
+        _transactions = null
+        transactionsLoader = loader
     }
 
+    /**
+     * Whether the transactions are in memory, i.e. they were set or have been loaded.
+     */
+    val isTransactionsLoaded: Boolean
+        get() = _transactions != null
+
     /**
      * Returns a list of transactions for this account
      *
      * @return Array list of transactions for the account
      */
     var transactions: List<Transaction>
-        get() = _transactions
+        get() = loadTransactions()
         /**
          * Sets a list of transactions for this account.
          * Overrides any previous transactions with those in the list.
@@ -136,6 +169,7 @@ class Account : BaseModel {
          */
         set(value) {
             _transactions = value.toMutableList()
+            transactionsLoader = null
         }
 
     /**
@@ -144,7 +178,7 @@ class Account : BaseModel {
      * @return Number transactions in account
      */
     val transactionCount: Int
-        get() = _transactions.size
+        get() = loadTransactions().size
 
     /**
      * The color of the account.
@@ -219,6 +219,12 @@ class Money(
         return asBigDecimal()
     }
 
+    /**
+     * The amount, without rounding to the scale of the commodity.
+     */
+    internal val exactAmount: BigDecimal
+        get() = amount
+
     /**
      * Returns the amount this object
      *
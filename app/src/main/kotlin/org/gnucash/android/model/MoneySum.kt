@@ -0,0 +1,98 @@
+package org.gnucash.android.model
+
+import org.gnucash.android.math.ExactSum
+import java.math.BigDecimal
+
+/**
+ * Mutable sum of amounts of money, for adding up many amounts without creating a new [Money]
+ * for every partial sum.
+ *
+ * Amounts are accumulated as a `long` numerator over a power of ten, i.e. scaled to the
+ * number of fraction digits of the amounts, which needs no allocation for the numerators and
+ * denominators that are read from the database. The sum is converted to [Money] with [toMoney]
+ * once all the amounts have been added.
+ *
+ * Like [Money.plus], the sum adopts the commodity of the amount that is added to it while it is zero.
+ *
+ * @param commodity the commodity of the amounts.
+ */
+class MoneySum(commodity: Commodity) {
+    var commodity: Commodity = commodity
+        private set
+
+    private val sum = ExactSum()
+
+    /**
+     * Sum of the amounts that have too many digits to be scaled to a `long`.
+     */
+    private var remainder: BigDecimal? = null
+
+    val isZero: Boolean
+        get() = sum.isZero && (remainder?.signum() ?: 0) == 0
+
+    /**
+     * Adds the amount `numerator / denominator` in the commodity of this sum.
+     */
+    fun add(numerator: Long, denominator: Long) {
+        sum.add(numerator, denominator)
+    }
+
+    /**
+     * Subtracts the amount `numerator / denominator` in the commodity of this sum.
+     */
+    fun subtract(numerator: Long, denominator: Long) {
+        if (numerator == Long.MIN_VALUE) {
+            sum.add(Long.MAX_VALUE, denominator)
+            sum.add(1L, denominator)
+        } else {
+            sum.add(-numerator, denominator)
+        }
+    }
+
+    @Throws(Money.CurrencyMismatchException::class)
+    fun add(money: Money) {
+        accumulate(money, false)
+    }
+
+    @Throws(Money.CurrencyMismatchException::class)
+    fun subtract(money: Money) {
+        accumulate(money, true)
+    }
+
+    private fun accumulate(money: Money, isNegative: Boolean) {
+        val amount = money.exactAmount
+        if (amount.signum() == 0) return
+        if (money.commodity != commodity) {
+            if (!isZero) throw money.CurrencyMismatchException(commodity, money.commodity)
+            commodity = money.commodity
+        }
+        val scale = amount.scale()
+        if ((scale >= 0) && (scale < POWERS_OF_TEN.size) && (amount.precision() <= MAX_LONG_DIGITS)) {
+            val numerator = amount.unscaledValue().toLong()
+            sum.add(if (isNegative) -numerator else numerator, POWERS_OF_TEN[scale])
+        } else {
+            val value = if (isNegative) amount.negate() else amount
+            remainder = remainder?.add(value) ?: value
+        }
+    }
+
+    fun toMoney(): Money {
+        var amount = sum.toBigDecimal()
+        remainder?.let { amount = amount.add(it) }
+        return Money(amount, commodity)
+    }
+
+    companion object {
+        /**
+         * Maximum number of digits which always fit into a `long`.
+         */
+        private const val MAX_LONG_DIGITS = 18
+
+        private val POWERS_OF_TEN = LongArray(MAX_LONG_DIGITS + 1).also {
+            it[0] = 1L
+            for (i in 1 until it.size) {
+                it[i] = it[i - 1] * 10L
+            }
+        }
+    }
+}
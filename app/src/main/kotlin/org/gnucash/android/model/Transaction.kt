@@ -370,7 +370,7 @@ class Transaction : BaseModel {
             val accountType = account.accountType
             val accountCommodity = account.commodity
             val isDebitAccount = accountType.hasDebitDisplayBalance
-            var balance = Money.createZeroInstance(accountCommodity)
+            val balance = MoneySum(accountCommodity)
             for (split in splits) {
                 if (split.accountUID != accountUID) continue
                 val amount: Money = if (split.value.commodity == accountCommodity) {
@@ -379,14 +379,13 @@ class Transaction : BaseModel {
                     split.quantity
                 }
                 val isDebitSplit = split.type === TransactionType.DEBIT
-                balance =
-                    if ((isDebitAccount && isDebitSplit) || (!isDebitAccount && !isDebitSplit)) {
-                        balance + amount
-                    } else {
-                        balance - amount
-                    }
+                if ((isDebitAccount && isDebitSplit) || (!isDebitAccount && !isDebitSplit)) {
+                    balance.add(amount)
+                } else {
+                    balance.subtract(amount)
+                }
             }
-            return balance
+            return balance.toMoney()
         }
 
         /**
@@ -0,0 +1,64 @@
+package org.gnucash.android.test.unit.benchmark
+
+import org.json.JSONArray
+import org.json.JSONObject
+import timber.log.Timber
+import java.io.File
+
+/**
+ * Times benchmark operations, and writes the results as JSON.
+ *
+ * @param name the name of the benchmark suite, used for the file name
+ */
+class BenchmarkRecorder(private val name: String) {
+    private val results = JSONArray()
+
+    /**
+     * Runs the operation once to warm up, and then times it.
+     *
+     * @param operation  the name of the operation
+     * @param iterations number of timed runs
+     * @param warmUp     whether to run the operation once before timing it
+     * @param block      the operation
+     */
+    fun <T> measure(operation: String, iterations: Int = 5, warmUp: Boolean = true, block: () -> T): T {
+        var result = if (warmUp) block() else null
+        val times = LongArray(iterations)
+        for (i in 0 until iterations) {
+            val start = System.nanoTime()
+            result = block()
+            times[i] = System.nanoTime() - start
+        }
+        times.sort()
+        val entry = JSONObject()
+            .put("operation", operation)
+            .put("iterations", iterations)
+            .put("minNs", times.first())
+            .put("medianNs", times[iterations / 2])
+            .put("meanNs", times.average().toLong())
+            .put("maxNs", times.last())
+        results.put(entry)
+        Timber.i("%s: median %d ms", operation, times[iterations / 2] / 1_000_000)
+        @Suppress("UNCHECKED_CAST")
+        return result as T
+    }
+
+    /**
+     * Writes the results to `<directory>/<name>.json`.
+     *
+     * @param config the configuration of the benchmarked data
+     * @return the file
+     */
+    fun write(directory: File, config: Map<String, Any>): File {
+        directory.mkdirs()
+        val json = JSONObject()
+            .put("benchmark", name)
+            .put("timestamp", System.currentTimeMillis())
+            .put("javaVersion", System.getProperty("java.version"))
+            .put("config", JSONObject(config))
+            .put("results", results)
+        val file = File(directory, "$name.json")
+        file.writeText(json.toString(2))
+        return file
+    }
+}
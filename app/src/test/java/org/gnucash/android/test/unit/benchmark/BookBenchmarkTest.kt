@@ -0,0 +1,141 @@
+package org.gnucash.android.test.unit.benchmark
+
+import android.util.Log
+import androidx.core.net.toFile
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.db.adapter.AccountsDbAdapter.ALWAYS
+import org.gnucash.android.db.adapter.BooksDbAdapter
+import org.gnucash.android.export.ExportFormat
+import org.gnucash.android.export.ExportParams
+import org.gnucash.android.export.Exporter
+import org.gnucash.android.export.csv.CsvAccountExporter
+import org.gnucash.android.export.csv.CsvTransactionsExporter
+import org.gnucash.android.export.ofx.OfxExporter
+import org.gnucash.android.export.qif.QifExporter
+import org.gnucash.android.export.xml.GncXmlExporter
+import org.gnucash.android.importer.GncXmlImporter
+import org.gnucash.android.model.AccountType
+import org.gnucash.android.service.ScheduledActionService
+import org.gnucash.android.test.unit.GnuCashTest
+import org.gnucash.android.util.Logging
+import org.gnucash.android.util.TimestampHelper
+import org.joda.time.LocalDate
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+
+/**
+ * Benchmarks of the database, import, export and report code, with a large generated book.
+ *
+ * The benchmarks are skipped unless they are requested, e.g.
+ * `./gradlew testDevelopmentDebugUnitTest -Pbenchmark --tests '*BookBenchmarkTest'`
+ * The size of the book is set with `-Pbenchmark.<name>=<value>`, see [SyntheticBook.Config].
+ * The results are written to `build/benchmarks/BookBenchmarkTest.json`,
+ * or to the directory of `-Pbenchmark.output=<path>`.
+ */
+class BookBenchmarkTest : GnuCashTest() {
+    private lateinit var book: SyntheticBook
+    private val recorder = BenchmarkRecorder(javaClass.simpleName)
+    private var logPriority: Int? = null
+
+    @Before
+    fun setUp() {
+        assumeTrue("Benchmarks not requested", System.getProperty("benchmark") != null)
+        // Logging would dominate the timings.
+        logPriority = Logging.getMinPriority()
+        Logging.setMinPriority(Log.INFO)
+        val config = SyntheticBook.Config.fromSystemProperties()
+        book = recorder.measure("generate", iterations = 1, warmUp = false) {
+            SyntheticBook.create(context, config)
+        }
+    }
+
+    @After
+    fun tearDown() {
+        logPriority?.let { Logging.setMinPriority(it) }
+        if (!::book.isInitialized) return
+        book.close()
+        BooksDbAdapter.getInstance().deleteBook(context, book.bookUID)
+        val directory = File(System.getProperty("benchmark.output") ?: "build/benchmarks")
+        recorder.write(directory, book.config.toMap())
+    }
+
+    @Test
+    fun benchmarkBook() {
+        val now = System.currentTimeMillis()
+
+        val balances = recorder.measure("computeSplitBalances") {
+            book.splitsDbAdapter.computeSplitBalances(null as String?, null, ALWAYS, ALWAYS)
+        }
+        assertThat(balances).isNotEmpty()
+
+        // The balances until now are not cached, unlike the balances of all time.
+        recorder.measure("rollUpBalances") {
+            book.accountsDbAdapter.getAllAccountBalances(ALWAYS, now)
+        }
+
+        // Monthly expenses of the last year, like the bar chart report.
+        val expenseAccounts = book.accountsDbAdapter.simpleAccounts
+            .filter { it.accountType == AccountType.EXPENSE }
+        recorder.measure("reportMonthlyExpenses") {
+            var month = LocalDate.now().minusMonths(12).withDayOfMonth(1)
+            for (i in 0 until 12) {
+                val next = month.plusMonths(1)
+                book.accountsDbAdapter.getAccountsBalances(
+                    expenseAccounts,
+                    month.toDate().time,
+                    next.toDate().time
+                )
+                month = next
+            }
+        }
+
+        recorder.measure("exportXml") {
+            export(GncXmlExporter(context, exportParams(ExportFormat.XML), book.bookUID)).delete()
+        }
+        recorder.measure("exportCsvAccounts") {
+            export(CsvAccountExporter(context, exportParams(ExportFormat.CSVA), book.bookUID)).delete()
+        }
+        recorder.measure("exportCsvTransactions") {
+            export(CsvTransactionsExporter(context, exportParams(ExportFormat.CSVT), book.bookUID)).delete()
+        }
+        recorder.measure("exportQif") {
+            export(QifExporter(context, exportParams(ExportFormat.QIF), book.bookUID)).delete()
+        }
+        recorder.measure("exportOfx") {
+            export(OfxExporter(context, exportParams(ExportFormat.OFX), book.bookUID)).delete()
+        }
+
+        val xmlFile = export(GncXmlExporter(context, exportParams(ExportFormat.XML), book.bookUID))
+        val importedBookUIDs = mutableListOf<String>()
+        recorder.measure("importXml", iterations = 3, warmUp = false) {
+            xmlFile.inputStream().use { importedBookUIDs.add(GncXmlImporter.parse(context, it)) }
+        }
+        xmlFile.delete()
+        for (bookUID in importedBookUIDs) {
+            BooksDbAdapter.getInstance().deleteBook(context, bookUID)
+        }
+
+        // The missed transactions are only created once.
+        val isSuccessful = recorder.measure("scheduledActionsCatchUp", iterations = 1, warmUp = false) {
+            ScheduledActionService().doWork(context, null)
+        }
+        assertThat(isSuccessful).isTrue()
+    }
+
+    private fun exportParams(format: ExportFormat): ExportParams {
+        val params = ExportParams(format)
+        params.exportStartTime = TimestampHelper.getTimestampFromEpochZero()
+        params.exportTarget = ExportParams.ExportTarget.SD_CARD
+        params.setDeleteTransactionsAfterExport(false)
+        return params
+    }
+
+    private fun export(exporter: Exporter): File {
+        val uri = exporter.export()
+        assertThat(uri).isNotNull()
+        return uri!!.toFile()
+    }
+}
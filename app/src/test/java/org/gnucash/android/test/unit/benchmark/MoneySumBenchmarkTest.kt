@@ -0,0 +1,74 @@
+package org.gnucash.android.test.unit.benchmark
+
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
+import org.gnucash.android.model.Money.Companion.createZeroInstance
+import org.gnucash.android.model.MoneySum
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.math.BigDecimal
+
+/**
+ * Micro-benchmark of adding up split amounts, as is done for account balances and reports.
+ *
+ * The benchmark is skipped unless it is requested, like [BookBenchmarkTest].
+ * The number of amounts is set with `-Pbenchmark.amounts=<value>`.
+ */
+class MoneySumBenchmarkTest : GnuCashTest() {
+    private val recorder = BenchmarkRecorder(javaClass.simpleName)
+    private var count = 100_000
+
+    @Before
+    fun setUp() {
+        assumeTrue("Benchmarks not requested", System.getProperty("benchmark") != null)
+        count = System.getProperty("benchmark.amounts")?.toIntOrNull() ?: count
+    }
+
+    @After
+    fun tearDown() {
+        if (System.getProperty("benchmark") == null) return
+        val directory = File(System.getProperty("benchmark.output") ?: "build/benchmarks")
+        recorder.write(directory, mapOf("amounts" to count))
+    }
+
+    @Test
+    fun benchmarkSumOfAmounts() {
+        val amounts = Array(count) { i -> Money(BigDecimal.valueOf(i * 37L % 100_000L - 50_000L, 2), Commodity.USD) }
+        val numerators = LongArray(count) { i -> amounts[i].numerator }
+
+        val expected = recorder.measure("Money.plus") { sumMoney(amounts) }
+        val actual = recorder.measure("MoneySum.add(Money)") { sumMoneySum(amounts) }
+        val actualNumerators = recorder.measure("MoneySum.add(num, denom)") { sumNumerators(numerators) }
+        assertThat(actual).isEqualTo(expected)
+        assertThat(actualNumerators).isEqualTo(expected)
+    }
+
+    private fun sumMoney(amounts: Array<Money>): Money {
+        var total = createZeroInstance(Commodity.USD)
+        for (amount in amounts) {
+            total += amount
+        }
+        return total
+    }
+
+    private fun sumMoneySum(amounts: Array<Money>): Money {
+        val total = MoneySum(Commodity.USD)
+        for (amount in amounts) {
+            total.add(amount)
+        }
+        return total.toMoney()
+    }
+
+    private fun sumNumerators(numerators: LongArray): Money {
+        val total = MoneySum(Commodity.USD)
+        for (numerator in numerators) {
+            total.add(numerator, 100)
+        }
+        return total.toMoney()
+    }
+}
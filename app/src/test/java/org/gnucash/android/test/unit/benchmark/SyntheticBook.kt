@@ -0,0 +1,249 @@
+package org.gnucash.android.test.unit.benchmark
+
+import android.content.Context
+import org.gnucash.android.db.DatabaseHelper
+import org.gnucash.android.db.DatabaseHolder
+import org.gnucash.android.db.adapter.AccountsDbAdapter
+import org.gnucash.android.db.adapter.BooksDbAdapter
+import org.gnucash.android.db.adapter.CommoditiesDbAdapter
+import org.gnucash.android.db.adapter.DatabaseAdapter
+import org.gnucash.android.db.adapter.PricesDbAdapter
+import org.gnucash.android.db.adapter.RecurrenceDbAdapter
+import org.gnucash.android.db.adapter.ScheduledActionDbAdapter
+import org.gnucash.android.db.adapter.SplitsDbAdapter
+import org.gnucash.android.db.adapter.TransactionsDbAdapter
+import org.gnucash.android.model.Account
+import org.gnucash.android.model.AccountType
+import org.gnucash.android.model.Book
+import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
+import org.gnucash.android.model.PeriodType
+import org.gnucash.android.model.Price
+import org.gnucash.android.model.Recurrence
+import org.gnucash.android.model.ScheduledAction
+import org.gnucash.android.model.Split
+import org.gnucash.android.model.Transaction
+import org.gnucash.android.model.TransactionType
+import java.io.Closeable
+import java.math.BigDecimal
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Book with generated accounts, transactions, prices and scheduled actions, for benchmarks.
+ *
+ * The data is random, but is the same for the same configuration.
+ */
+class SyntheticBook private constructor(
+    val config: Config,
+    val bookUID: String,
+    val holder: DatabaseHolder
+) : Closeable {
+    val commoditiesDbAdapter = CommoditiesDbAdapter(holder)
+    val pricesDbAdapter = PricesDbAdapter(commoditiesDbAdapter)
+    val splitsDbAdapter = SplitsDbAdapter(commoditiesDbAdapter)
+    val transactionsDbAdapter = TransactionsDbAdapter(splitsDbAdapter)
+    val accountsDbAdapter = AccountsDbAdapter(transactionsDbAdapter, pricesDbAdapter)
+    val scheduledActionDbAdapter = ScheduledActionDbAdapter(RecurrenceDbAdapter(holder))
+
+    /**
+     * The accounts which have splits.
+     */
+    val leafAccounts = mutableListOf<Account>()
+
+    override fun close() {
+        holder.close()
+    }
+
+    /**
+     * Configuration of the generated book.
+     * Every value can be overridden by a system property named `benchmark.<name>`,
+     * e.g. `-Pbenchmark.transactions=100000` on the Gradle command line.
+     *
+     * @param depth        depth of the account tree, below the top-level accounts
+     * @param breadth      number of sub-accounts of each account
+     * @param commodities  number of currencies used by the accounts
+     * @param transactions number of transactions
+     * @param fanOut       number of splits of each transaction
+     * @param prices       number of prices of each currency, one per day
+     * @param scheduled    number of scheduled transactions
+     * @param catchUpDays  number of days that the scheduled transactions have missed
+     * @param seed         seed for the random data
+     */
+    data class Config(
+        val depth: Int = 3,
+        val breadth: Int = 3,
+        val commodities: Int = 3,
+        val transactions: Int = 10_000,
+        val fanOut: Int = 3,
+        val prices: Int = 30,
+        val scheduled: Int = 10,
+        val catchUpDays: Int = 60,
+        val seed: Long = 42L
+    ) {
+        fun toMap(): Map<String, Any> = mapOf(
+            "depth" to depth,
+            "breadth" to breadth,
+            "commodities" to commodities,
+            "transactions" to transactions,
+            "fanOut" to fanOut,
+            "prices" to prices,
+            "scheduled" to scheduled,
+            "catchUpDays" to catchUpDays,
+            "seed" to seed
+        )
+
+        companion object {
+            fun fromSystemProperties(): Config {
+                val defaults = Config()
+                return Config(
+                    depth = intProperty("depth", defaults.depth),
+                    breadth = intProperty("breadth", defaults.breadth),
+                    commodities = intProperty("commodities", defaults.commodities),
+                    transactions = intProperty("transactions", defaults.transactions),
+                    fanOut = intProperty("fanOut", defaults.fanOut),
+                    prices = intProperty("prices", defaults.prices),
+                    scheduled = intProperty("scheduled", defaults.scheduled),
+                    catchUpDays = intProperty("catchUpDays", defaults.catchUpDays),
+                    seed = System.getProperty("benchmark.seed")?.toLongOrNull() ?: defaults.seed
+                )
+            }
+
+            private fun intProperty(name: String, defaultValue: Int): Int {
+                return System.getProperty("benchmark.$name")?.toIntOrNull() ?: defaultValue
+            }
+        }
+    }
+
+    private fun generate() {
+        val random = Random(config.seed)
+        val currencies = CURRENCY_CODES.take(config.commodities.coerceIn(1, CURRENCY_CODES.size))
+            .map { commoditiesDbAdapter.getCurrency(it)!! }
+        generateAccounts(currencies)
+        generatePrices(currencies)
+        generateTransactions(random)
+        generateScheduledActions(random)
+    }
+
+    private fun generateAccounts(currencies: List<Commodity>) {
+        val rootUID = accountsDbAdapter.getOrCreateRootAccountUID()
+        var index = 0
+        for (type in TOP_LEVEL_TYPES) {
+            for (currency in currencies) {
+                val top = Account("${type.name} ${currency.currencyCode}", currency)
+                top.accountType = type
+                top.parentUID = rootUID
+                accountsDbAdapter.addRecord(top, DatabaseAdapter.UpdateMethod.insert)
+                var level = listOf(top)
+                for (d in 1..config.depth) {
+                    val next = mutableListOf<Account>()
+                    for (parent in level) {
+                        for (b in 1..config.breadth) {
+                            val account = Account("Account ${++index}", currency)
+                            account.accountType = type
+                            account.parentUID = parent.uid
+                            accountsDbAdapter.addRecord(account, DatabaseAdapter.UpdateMethod.insert)
+                            next.add(account)
+                        }
+                    }
+                    level = next
+                }
+                leafAccounts.addAll(level)
+            }
+        }
+    }
+
+    private fun generatePrices(currencies: List<Commodity>) {
+        val defaultCurrency = currencies.first()
+        val now = System.currentTimeMillis()
+        for (currency in currencies.drop(1)) {
+            for (day in config.prices downTo 1) {
+                // Only the latest price of a pair of commodities is kept in the database.
+                val price = Price(currency, defaultCurrency, 100L + day, 100L)
+                price.date = now - TimeUnit.DAYS.toMillis(day.toLong())
+                price.source = Price.SOURCE_USER
+                pricesDbAdapter.addRecord(price, DatabaseAdapter.UpdateMethod.insert)
+            }
+        }
+    }
+
+    private fun generateTransactions(random: Random) {
+        val accountsByCurrency = leafAccounts.groupBy { it.commodity }
+        val currencies = accountsByCurrency.keys.toList()
+        val now = System.currentTimeMillis()
+        val period = TimeUnit.DAYS.toMillis(2 * 365L)
+        val batch = ArrayList<Transaction>(BATCH_SIZE)
+        for (i in 1..config.transactions) {
+            val currency = currencies[random.nextInt(currencies.size)]
+            val accounts = accountsByCurrency[currency]!!
+            val transaction = Transaction("Transaction $i")
+            transaction.commodity = currency
+            transaction.setTime(now - (random.nextDouble() * period).toLong())
+            var total = 0L
+            for (s in 1 until config.fanOut.coerceAtLeast(2)) {
+                val cents = 1L + random.nextInt(100_000)
+                total += cents
+                val split = Split(Money(BigDecimal.valueOf(cents, 2), currency), accounts[random.nextInt(accounts.size)].uid)
+                split.type = TransactionType.DEBIT
+                transaction.addSplit(split)
+            }
+            val split = Split(Money(BigDecimal.valueOf(total, 2), currency), accounts[random.nextInt(accounts.size)].uid)
+            split.type = TransactionType.CREDIT
+            transaction.addSplit(split)
+            batch.add(transaction)
+            if (batch.size >= BATCH_SIZE) {
+                transactionsDbAdapter.bulkAddRecords(batch, DatabaseAdapter.UpdateMethod.insert)
+                batch.clear()
+            }
+        }
+        if (batch.isNotEmpty()) {
+            transactionsDbAdapter.bulkAddRecords(batch, DatabaseAdapter.UpdateMethod.insert)
+        }
+    }
+
+    private fun generateScheduledActions(random: Random) {
+        val accounts = leafAccounts.filter { it.commodity == leafAccounts.first().commodity }
+        val startTime = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.catchUpDays.toLong())
+        for (i in 1..config.scheduled) {
+            val template = Transaction("Scheduled $i")
+            template.commodity = accounts.first().commodity
+            template.isTemplate = true
+            val amount = Money(BigDecimal.valueOf(1L + random.nextInt(10_000), 2), template.commodity)
+            val split = Split(amount, accounts[random.nextInt(accounts.size)].uid)
+            split.type = TransactionType.DEBIT
+            template.addSplit(split)
+            template.addSplit(split.createPair(accounts[random.nextInt(accounts.size)].uid))
+            transactionsDbAdapter.addRecord(template, DatabaseAdapter.UpdateMethod.insert)
+
+            val scheduledAction = ScheduledAction(ScheduledAction.ActionType.TRANSACTION)
+            scheduledAction.actionUID = template.uid
+            scheduledAction.startTime = startTime
+            scheduledAction.setRecurrence(Recurrence(PeriodType.DAY))
+            scheduledActionDbAdapter.addRecord(scheduledAction, DatabaseAdapter.UpdateMethod.insert)
+        }
+    }
+
+    companion object {
+        private val CURRENCY_CODES = listOf("USD", "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "ILS")
+        private val TOP_LEVEL_TYPES = listOf(
+            AccountType.ASSET,
+            AccountType.LIABILITY,
+            AccountType.INCOME,
+            AccountType.EXPENSE
+        )
+        private const val BATCH_SIZE = 1000
+
+        /**
+         * Creates a new book, and fills it with generated data.
+         */
+        fun create(context: Context, config: Config): SyntheticBook {
+            val book = Book()
+            val holder = DatabaseHelper(context, book.uid).holder
+            val syntheticBook = SyntheticBook(config, book.uid, holder)
+            book.rootAccountUID = syntheticBook.accountsDbAdapter.getOrCreateRootAccountUID()
+            BooksDbAdapter.getInstance().addRecord(book)
+            syntheticBook.generate()
+            return syntheticBook
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.assertj.core.data.Index
 import org.gnucash.android.R
 import org.gnucash.android.app.GnuCashApplication
 import org.gnucash.android.db.DatabaseHelper
+import org.gnucash.android.db.DatabaseSchema.AccountEntry
 import org.gnucash.android.db.adapter.AccountsDbAdapter
 import org.gnucash.android.db.adapter.BooksDbAdapter
 import org.gnucash.android.db.adapter.BudgetAmountsDbAdapter
@@ -152,6 +153,36 @@ class AccountsDbAdapterTest : GnuCashTest() {
         assertThat(accountsDbAdapter.getRecord(account1.uid).transactions).hasSize(1)
     }
 
+    @Test
+    fun accountTransactionsShouldBeLoadedWhenRead() {
+        val account1 = Account("AlphaAccount")
+        val account2 = Account("BetaAccount")
+        val transaction = Transaction("MyTransaction")
+        val split = Split(createZeroInstance(account1.commodity), account1.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(account2.uid))
+        account1.addTransaction(transaction)
+        accountsDbAdapter.addRecord(account2)
+        accountsDbAdapter.addRecord(account1)
+
+        // Read the account from the database, not from the cache.
+        val adapter = AccountsDbAdapter(transactionsDbAdapter)
+        val account = adapter.getRecord(account1.uid)
+        assertThat(account.isTransactionsLoaded).isFalse()
+
+        // Updating does not need the transactions.
+        account.name = "Renamed"
+        adapter.addRecord(account, DatabaseAdapter.UpdateMethod.update)
+        assertThat(account.isTransactionsLoaded).isFalse()
+
+        // Replacing keeps the transactions.
+        adapter.addRecord(account, DatabaseAdapter.UpdateMethod.replace)
+        assertThat(account.isTransactionsLoaded).isTrue()
+        assertThat(account.transactions).hasSize(1)
+        assertThat(transactionsDbAdapter.getAllTransactionsForAccount(account1.uid)).hasSize(1)
+        assertThat(AccountsDbAdapter(transactionsDbAdapter).getRecord(account1.uid).name).isEqualTo("Renamed")
+    }
+
     @Test
     fun shouldAddAccountsToDatabase() {
         val account1 = Account("AlphaAccount")
@@ -365,6 +396,102 @@ class AccountsDbAdapterTest : GnuCashTest() {
         assertThat(balance).isEqualTo(expectedBalance)
     }
 
+    @Test
+    fun allAccountBalancesShouldIncludeSubAccounts() {
+        val parent = Account("Parent", Commodity.USD)
+        parent.accountType = AccountType.ASSET
+        val child = Account("Child", Commodity.USD)
+        child.accountType = AccountType.ASSET
+        child.parentUID = parent.uid
+        val transferAcct = Account("Transfer", Commodity.USD)
+        transferAcct.accountType = AccountType.INCOME
+        accountsDbAdapter.addRecord(parent)
+        accountsDbAdapter.addRecord(child)
+        accountsDbAdapter.addRecord(transferAcct)
+
+        val transaction = Transaction("Salary")
+        val split = Split(Money("25.50", "USD"), child.uid)
+        split.type = TransactionType.DEBIT
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(transferAcct.uid))
+        transactionsDbAdapter.addRecord(transaction)
+
+        var balances = accountsDbAdapter.getAllAccountBalances()
+        assertThat(balances[child.uid]).isEqualTo(Money("25.50", "USD"))
+        assertThat(balances[parent.uid]).isEqualTo(Money("25.50", "USD"))
+        assertThat(balances[parent.uid]).isEqualTo(accountsDbAdapter.getAccountBalance(parent.uid))
+        assertThat(balances[transferAcct.uid]).isEqualTo(accountsDbAdapter.getAccountBalance(transferAcct.uid))
+
+        // Read from the cached balances.
+        balances = accountsDbAdapter.getAllAccountBalances()
+        assertThat(balances[parent.uid]).isEqualTo(Money("25.50", "USD"))
+
+        val future = Transaction("Future salary")
+        future.setTime(System.currentTimeMillis() + 86400000L)
+        val futureSplit = Split(Money("10", "USD"), child.uid)
+        futureSplit.type = TransactionType.DEBIT
+        future.addSplit(futureSplit)
+        future.addSplit(futureSplit.createPair(transferAcct.uid))
+        transactionsDbAdapter.addRecord(future)
+
+        val now = System.currentTimeMillis()
+        balances = accountsDbAdapter.getAllAccountBalances(AccountsDbAdapter.ALWAYS, now)
+        assertThat(balances[parent.uid]).isEqualTo(Money("25.50", "USD"))
+        assertThat(balances[parent.uid]).isEqualTo(accountsDbAdapter.getCurrentAccountBalance(parent))
+        assertThat(balances[transferAcct.uid]).isEqualTo(accountsDbAdapter.getCurrentAccountBalance(transferAcct))
+
+        // Only the requested accounts, like the accounts of the widgets.
+        balances = accountsDbAdapter.getAccountBalances(listOf(parent.uid, "missing"), AccountsDbAdapter.ALWAYS, now)
+        assertThat(balances).containsOnlyKeys(parent.uid)
+        assertThat(balances[parent.uid]).isEqualTo(accountsDbAdapter.getCurrentAccountBalance(parent))
+    }
+
+    @Test
+    fun accountLabelsShouldFollowRenamesAndMoves() {
+        val parent = Account("Parent", Commodity.USD)
+        parent.color = Color.MAGENTA
+        val child = Account("Child", Commodity.USD)
+        child.parentUID = parent.uid
+        val otherParent = Account("Other", Commodity.USD)
+        accountsDbAdapter.addRecord(parent)
+        accountsDbAdapter.addRecord(child)
+        accountsDbAdapter.addRecord(otherParent)
+
+        var label = accountsDbAdapter.getAccountLabel(child.uid)!!
+        assertThat(label.name).isEqualTo("Child")
+        assertThat(label.fullName).isEqualTo("Parent:Child")
+        assertThat(label.type).isEqualTo(AccountType.CASH)
+        assertThat(label.color).isEqualTo(Color.MAGENTA)
+
+        accountsDbAdapter.updateRecord(child.uid, AccountEntry.COLUMN_NAME, "Renamed")
+        label = accountsDbAdapter.getAccountLabel(child.uid)!!
+        assertThat(label.name).isEqualTo("Renamed")
+
+        accountsDbAdapter.reassignDescendantAccounts(parent.uid, otherParent.uid)
+        label = accountsDbAdapter.getAccountLabel(child.uid)!!
+        assertThat(label.fullName).isEqualTo("Other:Renamed")
+        assertThat(label.color).isEqualTo(Account.DEFAULT_COLOR)
+
+        accountsDbAdapter.deleteRecord(child.uid)
+        assertThat(accountsDbAdapter.getAccountLabel(child.uid)).isNull()
+    }
+
+    @Test
+    fun accountLabelsShouldBeDiscardedWhenTheTransactionEnds() {
+        val account = Account("Original", Commodity.USD)
+        accountsDbAdapter.addRecord(account)
+
+        accountsDbAdapter.beginTransaction()
+        try {
+            accountsDbAdapter.updateRecord(account.uid, AccountEntry.COLUMN_NAME, "Uncommitted")
+            // Loaded again inside the transaction, before it is rolled back.
+            assertThat(accountsDbAdapter.getAccountLabel(account.uid)!!.name).isEqualTo("Uncommitted")
+        } finally {
+            accountsDbAdapter.endTransaction()
+        }
+        assertThat(accountsDbAdapter.getAccountLabel(account.uid)!!.name).isEqualTo("Original")
+    }
+
     /**
      * Test creating an account hierarchy by specifying fully qualified name
      */
@@ -416,6 +543,41 @@ class AccountsDbAdapterTest : GnuCashTest() {
         assertThat(splitsDbAdapter.recordsCount).isZero()
     }
 
+    @Test
+    fun shouldDeleteAndReassignDeepHierarchies() {
+        val top = Account("Top")
+        val middle = Account("Middle")
+        middle.parentUID = top.uid
+        val bottom = Account("Bottom")
+        bottom.parentUID = middle.uid
+        val other = Account("Other")
+        other.defaultTransferAccountUID = bottom.uid
+        accountsDbAdapter.addRecord(top)
+        accountsDbAdapter.addRecord(middle)
+        accountsDbAdapter.addRecord(bottom)
+        accountsDbAdapter.addRecord(other)
+
+        val transaction = Transaction("Deep")
+        val split = Split(createZeroInstance(other.commodity), other.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(bottom.uid))
+        transactionsDbAdapter.addRecord(transaction)
+
+        accountsDbAdapter.reassignDescendantAccounts(top.uid, other.uid)
+        assertThat(accountsDbAdapter.getParentAccountUID(middle.uid)).isEqualTo(other.uid)
+        assertThat(accountsDbAdapter.getParentAccountUID(bottom.uid)).isEqualTo(middle.uid)
+        assertThat(accountsDbAdapter.getFullyQualifiedAccountName(middle.uid))
+            .isEqualTo("Other:Middle")
+        assertThat(accountsDbAdapter.getFullyQualifiedAccountName(bottom.uid))
+            .isEqualTo("Other:Middle:Bottom")
+
+        assertThat(accountsDbAdapter.recursiveDeleteAccount(middle.uid)).isTrue()
+        assertThat(accountsDbAdapter.recordsCount).isEqualTo(3) // root, top, other
+        assertThat(transactionsDbAdapter.recordsCount).isZero()
+        assertThat(splitsDbAdapter.recordsCount).isZero()
+        assertThat(accountsDbAdapter.getRecord(other.uid).defaultTransferAccountUID).isNull()
+    }
+
     @Test
     fun shouldGetDescendantAccounts() {
         loadDefaultAccounts()
@@ -529,6 +691,65 @@ class AccountsDbAdapterTest : GnuCashTest() {
             .isNull()
     }
 
+    @Test
+    fun transactionCountsShouldBeCachedUntilSplitsChange() {
+        val account = Account("Count")
+        val transfer = Account("Transfer")
+        accountsDbAdapter.addRecord(account)
+        accountsDbAdapter.addRecord(transfer)
+        val transaction = Transaction("First")
+        val split = Split(Money("5.00", account.commodity), account.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(transfer.uid))
+        transactionsDbAdapter.addRecord(transaction)
+
+        assertThat(accountsDbAdapter.getTransactionCount(account.uid)).isOne()
+        assertThat(accountsDbAdapter.getAttribute(account.uid, AccountEntry.COLUMN_TRANSACTION_COUNT))
+            .isEqualTo("1")
+
+        val second = Transaction("Second")
+        val secondSplit = Split(Money("7.00", account.commodity), account.uid)
+        second.addSplit(secondSplit)
+        second.addSplit(secondSplit.createPair(transfer.uid))
+        transactionsDbAdapter.addRecord(second)
+        assertThat(accountsDbAdapter.getAttribute(account.uid, AccountEntry.COLUMN_TRANSACTION_COUNT))
+            .isNull()
+
+        val counts = accountsDbAdapter.allTransactionCounts
+        assertThat(counts[account.uid]).isEqualTo(2L)
+        assertThat(counts[transfer.uid]).isEqualTo(2L)
+        assertThat(counts[accountsDbAdapter.getOrCreateRootAccountUID()]).isZero()
+        assertThat(accountsDbAdapter.getAttribute(account.uid, AccountEntry.COLUMN_TRANSACTION_COUNT))
+            .isEqualTo("2")
+        assertThat(accountsDbAdapter.getTransactionCount(account.uid)).isEqualTo(2L)
+        assertThat(transactionsDbAdapter.getTransactionsCount(account.uid)).isEqualTo(2)
+
+        transactionsDbAdapter.deleteRecord(second.uid)
+        assertThat(accountsDbAdapter.getTransactionCount(account.uid)).isOne()
+        assertThat(accountsDbAdapter.getTransactionCount(transfer.uid)).isOne()
+    }
+
+    @Test
+    fun transactionCountShouldIncludeScheduledTemplates() {
+        val account = Account("Scheduled only")
+        val transfer = Account("Transfer")
+        accountsDbAdapter.addRecord(account)
+        accountsDbAdapter.addRecord(transfer)
+        val template = Transaction("Rent")
+        template.isTemplate = true
+        val split = Split(Money("5.00", account.commodity), account.uid)
+        template.addSplit(split)
+        template.addSplit(split.createPair(transfer.uid))
+        transactionsDbAdapter.addRecord(template)
+
+        // The account deletion must still be confirmed for accounts only used by scheduled transactions.
+        assertThat(accountsDbAdapter.getTransactionCount(account.uid)).isOne()
+        assertThat(transactionsDbAdapter.getTransactionsCount(account.uid)).isZero()
+        assertThat(accountsDbAdapter.allTransactionCounts[account.uid]).isOne()
+        assertThat(transactionsDbAdapter.getAllTransactionsCounts(false)).doesNotContainKey(account.uid)
+        assertThat(transactionsDbAdapter.getAllTransactionsCounts(true)[account.uid]).isOne()
+    }
+
     /**
      * Opening an XML file should set the default currency to that used by the most accounts in the file
      */
@@ -18,6 +18,8 @@ package org.gnucash.android.test.unit.db
 import junit.framework.TestCase.fail
 import org.assertj.core.api.Assertions.assertThat
 import org.gnucash.android.R
+import org.gnucash.android.db.DatabaseSchema.BookEntry
+import org.gnucash.android.db.DatabaseSchema.BookStatsEntry
 import org.gnucash.android.db.adapter.BooksDbAdapter
 import org.gnucash.android.db.adapter.BooksDbAdapter.NoActiveBookFoundException
 import org.gnucash.android.db.adapter.DatabaseAdapter
@@ -122,6 +124,35 @@ class BooksDbAdapterTest : GnuCashTest() {
         assertThat(booksDbAdapter.recordsCount).isEqualTo(booksCount - 1)
     }
 
+    @Test
+    fun importedBook_shouldHaveStats() {
+        val bookUID = createNewBookWithDefaultAccounts()
+        val emptyBook = Book(generateUID())
+        booksDbAdapter.addRecord(emptyBook)
+        assertThat(booksDbAdapter.staleBookStatsUIDs).doesNotContain(bookUID)
+
+        booksDbAdapter.fetchAllBooksWithStats().use { cursor ->
+            assertThat(cursor.count).isEqualTo(2)
+            while (cursor.moveToNext()) {
+                val uid = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_UID))
+                val accountCountIndex = cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_ACCOUNT_COUNT)
+                if (uid == bookUID) {
+                    assertThat(cursor.getLong(accountCountIndex)).isPositive()
+                    assertThat(cursor.getLong(cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_TRANSACTION_COUNT))).isZero()
+                    assertThat(cursor.getLong(cursor.getColumnIndexOrThrow(BookStatsEntry.COLUMN_DATABASE_SIZE))).isPositive()
+                } else {
+                    assertThat(cursor.isNull(accountCountIndex)).isTrue()
+                }
+            }
+        }
+        assertThat(booksDbAdapter.refreshBookStats(emptyBook.uid)).isFalse()
+
+        booksDbAdapter.deleteBook(context, bookUID)
+        booksDbAdapter.fetchAllBooksWithStats().use { cursor ->
+            assertThat(cursor.count).isOne()
+        }
+    }
+
     /**
      * Test that book names never conflict and that the ordinal attached to the book name is
      * increased irrespective of the order in which books are added to and deleted from the db
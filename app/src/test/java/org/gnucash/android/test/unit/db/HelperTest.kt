@@ -1,6 +1,7 @@
 package org.gnucash.android.test.unit.db
 
 import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.db.DatabaseHelper
 import org.gnucash.android.db.DatabaseHelper.sqlEscapeLike
 import org.gnucash.android.test.unit.GnuCashTest
 import org.junit.Test
@@ -57,4 +58,25 @@ class HelperTest : GnuCashTest() {
         // placeholder
         assertThat(sqlEscapeLike("?")).isEqualTo("'%?%'")
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `database views are shared by all connections`() {
+        val dbHelper = DatabaseHelper(context, "test-views")
+        val db = dbHelper.writableDatabase
+        assertThat(db.isWriteAheadLoggingEnabled).isTrue()
+
+        val cursor = db.rawQuery(
+            "SELECT name FROM sqlite_master WHERE type = 'view' ORDER BY name",
+            null
+        )
+        val views = mutableListOf<String>()
+        cursor.use {
+            while (it.moveToNext()) {
+                views.add(it.getString(0))
+            }
+        }
+        assertThat(views).containsExactly("trans_split_acct")
+        dbHelper.close()
+        context.deleteDatabase("test-views")
+    }
+}
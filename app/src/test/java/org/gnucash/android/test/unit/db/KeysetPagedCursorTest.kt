@@ -0,0 +1,41 @@
+package org.gnucash.android.test.unit.db
+
+import android.database.Cursor
+import android.database.MatrixCursor
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.db.DatabaseSchema
+import org.gnucash.android.db.KeysetPagedCursor
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.Test
+
+class KeysetPagedCursorTest : GnuCashTest() {
+
+    @Test
+    fun currentPageShouldStayOpenWhenTheDataShrinks() {
+        // The ID and timestamp of each row, in descending order.
+        val rows = (0 until 12).map { longArrayOf(100L - it, 100L - it) }
+        val fetched = mutableListOf<Cursor>()
+        val fetcher = KeysetPagedCursor.PageFetcher { timestamp, id, limit ->
+            val cursor = MatrixCursor(arrayOf(DatabaseSchema.CommonColumns._ID, "timestamp"))
+            rows.filter { it[1] < timestamp || (it[1] == timestamp && it[0] < id) }
+                .take(limit)
+                .forEach { cursor.addRow(arrayOf<Any>(it[0], it[1])) }
+            fetched.add(cursor)
+            cursor
+        }
+        // Counted before the data set shrank.
+        val cursor = KeysetPagedCursor(fetcher, 20, 2, "timestamp")
+
+        assertThat(cursor.moveToPosition(1)).isTrue()
+        assertThat(cursor.getLong(0)).isEqualTo(99L)
+        // Fetches more pages than are kept open, before finding that the data set has shrunk.
+        assertThat(cursor.moveToPosition(15)).isFalse()
+        assertThat(fetched.size).isGreaterThan(5)
+        assertThat(fetched[0].isClosed).isFalse()
+
+        assertThat(cursor.moveToPosition(11)).isTrue()
+        assertThat(cursor.getLong(0)).isEqualTo(89L)
+        cursor.close()
+        assertThat(fetched).allMatch { it.isClosed }
+    }
+}
@@ -0,0 +1,62 @@
+package org.gnucash.android.test.unit.db
+
+import android.database.CursorWrapper
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.app.GnuCashApplication
+import org.gnucash.android.db.QueryStats
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.After
+import org.junit.Test
+
+class QueryStatsTest : GnuCashTest() {
+    private val queryStats = QueryStats.getInstance()
+
+    @After
+    fun tearDown() {
+        queryStats.setEnabled(false)
+        queryStats.setSlowQueryThreshold(QueryStats.DEFAULT_SLOW_QUERY_MILLIS)
+        queryStats.reset()
+    }
+
+    @Test
+    fun shouldRecordQueriesByCallSite() {
+        queryStats.reset()
+        queryStats.setEnabled(true)
+        queryStats.setSlowQueryThreshold(0)
+        val commoditiesDbAdapter = GnuCashApplication.getCommoditiesDbAdapter()!!
+
+        val cursor = commoditiesDbAdapter.fetchAllRecords(null, null, null)
+        val rows = cursor.count
+        assertThat(rows).isPositive()
+
+        val callSite = queryStats.callSites.single()
+        assertThat(callSite.name).startsWith("DatabaseAdapter.fetchAllRecords:")
+        assertThat(callSite.count).isEqualTo(1)
+        assertThat(callSite.rows).isEqualTo(rows.toLong())
+        assertThat(callSite.openCursors).isEqualTo(1)
+        cursor.close()
+        assertThat(callSite.openCursors).isZero()
+
+        val slowQuery = queryStats.slowQueries.single()
+        assertThat(slowQuery.callSite).isEqualTo(callSite.name)
+        assertThat(slowQuery.sql).contains("commodities")
+        assertThat(slowQuery.plan).isNotEmpty()
+
+        val report = queryStats.writeReport(context)
+        assertThat(report.readText()).contains(callSite.name, slowQuery.sql)
+    }
+
+    @Test
+    fun shouldNotRecordWhenDisabled() {
+        queryStats.reset()
+        queryStats.setEnabled(false)
+        val commoditiesDbAdapter = GnuCashApplication.getCommoditiesDbAdapter()!!
+
+        commoditiesDbAdapter.fetchAllRecords(null, null, null).use { cursor ->
+            assertThat(cursor).isNotInstanceOf(CursorWrapper::class.java)
+        }
+
+        assertThat(queryStats.callSites).isEmpty()
+        assertThat(queryStats.slowQueries).isEmpty()
+    }
+}
@@ -16,6 +16,8 @@
 package org.gnucash.android.test.unit.db
 
 import android.database.sqlite.SQLiteException
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
 import org.assertj.core.api.Assertions.assertThat
 import org.gnucash.android.db.DatabaseSchema
 import org.gnucash.android.db.adapter.AccountsDbAdapter
@@ -23,9 +25,11 @@ import org.gnucash.android.db.adapter.SplitsDbAdapter
 import org.gnucash.android.db.adapter.TransactionsDbAdapter
 import org.gnucash.android.model.Account
 import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
 import org.gnucash.android.model.Money.Companion.createZeroInstance
 import org.gnucash.android.model.Split
 import org.gnucash.android.model.Transaction
+import org.gnucash.android.model.TransactionType
 import org.gnucash.android.test.unit.GnuCashTest
 import org.junit.After
 import org.junit.Before
@@ -115,4 +119,110 @@ class SplitsDbAdapterTest : GnuCashTest() {
         )
         assertThat(isExported.toBoolean()).isFalse()
     }
+
+    @Test
+    fun computeSplitBalanceShouldNotOverflow() {
+        val transferAccount = Account("Transfer account")
+        accountsDbAdapter.addRecord(transferAccount)
+        val amount = Money("50000000000000000.00", account.commodity)
+        for (i in 0 until 2) {
+            val transaction = Transaction("Big")
+            val split = Split(amount, account.uid)
+            split.type = TransactionType.DEBIT
+            transaction.addSplit(split)
+            transaction.addSplit(split.createPair(transferAccount.uid))
+            transactionsDbAdapter.addRecord(transaction)
+        }
+
+        val balance = splitsDbAdapter.computeSplitBalance(account, AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        assertThat(balance.toBigDecimal()).isEqualByComparingTo("100000000000000000")
+        val transferBalance = splitsDbAdapter.computeSplitBalance(transferAccount, AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        assertThat(transferBalance.toBigDecimal()).isEqualByComparingTo("-100000000000000000")
+    }
+
+    @Test
+    fun computeSplitBalancesShouldFilterAccountsAndPeriod() {
+        val transferAccount = Account("Transfer account")
+        accountsDbAdapter.addRecord(transferAccount)
+        val amount = Money("10", account.commodity)
+        for (time in longArrayOf(1000L, 2000L)) {
+            val transaction = Transaction("Time $time")
+            transaction.setTime(time)
+            val split = Split(amount, account.uid)
+            split.type = TransactionType.DEBIT
+            transaction.addSplit(split)
+            transaction.addSplit(split.createPair(transferAccount.uid))
+            transactionsDbAdapter.addRecord(transaction)
+        }
+
+        var balances = splitsDbAdapter.computeSplitBalances(listOf(account), AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        assertThat(balances).containsOnlyKeys(account.uid)
+        assertThat(balances[account.uid]!!.toBigDecimal()).isEqualByComparingTo("20")
+
+        balances = splitsDbAdapter.computeSplitBalances(listOf(account, transferAccount), 1500L, AccountsDbAdapter.ALWAYS)
+        assertThat(balances[account.uid]!!.toBigDecimal()).isEqualByComparingTo("10")
+        assertThat(balances[transferAccount.uid]!!.toBigDecimal()).isEqualByComparingTo("-10")
+
+        balances = splitsDbAdapter.computeSplitBalances(listOf(account), 500L, 1500L)
+        assertThat(balances[account.uid]!!.toBigDecimal()).isEqualByComparingTo("10")
+    }
+
+    @Test
+    fun computeSplitBalancesShouldSplitPeriods() {
+        val transferAccount = Account("Transfer account")
+        accountsDbAdapter.addRecord(transferAccount)
+        val amount = Money("10", account.commodity)
+        for (time in longArrayOf(1000L, 2000L, 2500L, 3000L)) {
+            val transaction = Transaction("Time $time")
+            transaction.setTime(time)
+            val split = Split(amount, account.uid)
+            split.type = TransactionType.DEBIT
+            transaction.addSplit(split)
+            transaction.addSplit(split.createPair(transferAccount.uid))
+            transactionsDbAdapter.addRecord(transaction)
+        }
+
+        val periods = longArrayOf(1000L, 2000L, 3000L)
+        val balances = splitsDbAdapter.computeSplitBalances(listOf(account, transferAccount), periods)
+        assertThat(balances).hasSize(2)
+        assertThat(balances[0][account.uid]!!.toBigDecimal()).isEqualByComparingTo("10")
+        assertThat(balances[0][transferAccount.uid]!!.toBigDecimal()).isEqualByComparingTo("-10")
+        // The end of the last period is inclusive.
+        assertThat(balances[1][account.uid]!!.toBigDecimal()).isEqualByComparingTo("30")
+
+        val always = longArrayOf(AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        val totals = accountsDbAdapter.getAccountsBalances(listOf(account), always)
+        assertThat(totals).hasSize(1)
+        assertThat(totals[0]).containsOnlyKeys(account.uid)
+        assertThat(totals[0][account.uid]!!.toBigDecimal()).isEqualByComparingTo("40")
+    }
+
+    @Test(expected = OperationCanceledException::class)
+    fun computeSplitBalancesShouldStopWhenCancelled() {
+        val cancellationSignal = CancellationSignal()
+        cancellationSignal.cancel()
+        val periods = longArrayOf(AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        splitsDbAdapter.computeSplitBalances(listOf(account), periods, cancellationSignal)
+    }
+
+    @Test
+    fun computeSplitBalancesShouldBindManyAccounts() {
+        val accounts = (0 until 600).map { Account("Account $it") }
+        accountsDbAdapter.bulkAddRecords(accounts)
+        val transferAccount = accounts.last()
+        val transaction = Transaction("Many")
+        val split = Split(Money("10", account.commodity), accounts.first().uid)
+        split.type = TransactionType.DEBIT
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(transferAccount.uid))
+        transactionsDbAdapter.addRecord(transaction)
+
+        val balances = splitsDbAdapter.computeSplitBalances(accounts, AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        assertThat(balances).containsOnlyKeys(accounts.first().uid, transferAccount.uid)
+        assertThat(balances[transferAccount.uid]!!.toBigDecimal()).isEqualByComparingTo("-10")
+
+        val periods = longArrayOf(AccountsDbAdapter.ALWAYS, AccountsDbAdapter.ALWAYS)
+        val periodBalances = splitsDbAdapter.computeSplitBalances(accounts, periods)
+        assertThat(periodBalances[0][transferAccount.uid]!!.toBigDecimal()).isEqualByComparingTo("-10")
+    }
 }
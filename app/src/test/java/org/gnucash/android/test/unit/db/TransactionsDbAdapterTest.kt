@@ -17,7 +17,10 @@ package org.gnucash.android.test.unit.db
 
 import org.assertj.core.api.Assertions.assertThat
 import org.assertj.core.data.Index
+import org.gnucash.android.db.DatabaseSchema.TransactionEntry
+import org.gnucash.android.db.DatabaseSchema.TransactionInfoEntry
 import org.gnucash.android.db.adapter.AccountsDbAdapter
+import org.gnucash.android.db.adapter.DatabaseAdapter
 import org.gnucash.android.db.adapter.SplitsDbAdapter
 import org.gnucash.android.db.adapter.TransactionsDbAdapter
 import org.gnucash.android.model.Account
@@ -27,10 +30,13 @@ import org.gnucash.android.model.Money.Companion.createZeroInstance
 import org.gnucash.android.model.Split
 import org.gnucash.android.model.Transaction
 import org.gnucash.android.test.unit.GnuCashTest
+import org.gnucash.android.util.TimestampHelper
 import org.junit.After
 import org.junit.Before
 import org.junit.Test
 import java.math.BigDecimal
+import java.sql.Timestamp
+import java.util.concurrent.TimeUnit
 
 class TransactionsDbAdapterTest : GnuCashTest() {
     private lateinit var accountsDbAdapter: AccountsDbAdapter
@@ -84,6 +90,87 @@ class TransactionsDbAdapterTest : GnuCashTest() {
         assertThat(transactionsList).contains(t1, Index.atIndex(1))
     }
 
+    @Test
+    fun shouldFetchTransactionsModifiedSinceExport() {
+        val transaction = Transaction("Exported")
+        val split = Split(Money("10.00", alphaAccount.commodity), alphaAccount.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(bravoAccount.uid))
+        transactionsDbAdapter.addRecord(transaction)
+        val template = Transaction("Template")
+        template.isTemplate = true
+        val templateSplit = Split(Money("5.00", alphaAccount.commodity), alphaAccount.uid)
+        template.addSplit(templateSplit)
+        template.addSplit(templateSplit.createPair(bravoAccount.uid))
+        transactionsDbAdapter.addRecord(template)
+
+        transactionsDbAdapter.fetchTransactionsToExport(alphaAccount.uid, null).use { cursor ->
+            assertThat(cursor.count).isEqualTo(1)
+            cursor.moveToFirst()
+            assertThat(transactionsDbAdapter.buildModelInstance(cursor)).isEqualTo(transaction)
+        }
+        val lastWeek = TimestampHelper.getTimestampFromNow().time - TimeUnit.DAYS.toMillis(7)
+        transactionsDbAdapter.fetchTransactionsToExport(alphaAccount.uid, Timestamp(lastWeek)).use { cursor ->
+            assertThat(cursor.count).isEqualTo(1)
+        }
+        val tomorrow = TimestampHelper.getTimestampFromNow().time + TimeUnit.DAYS.toMillis(1)
+        transactionsDbAdapter.fetchTransactionsToExport(alphaAccount.uid, Timestamp(tomorrow)).use { cursor ->
+            assertThat(cursor.count).isZero()
+        }
+    }
+
+    @Test
+    fun bulkMoveAndDeleteShouldAffectAllTransactions() {
+        val transactionUIDs = (1..3).map { i ->
+            val transaction = Transaction("Bulk $i")
+            val split = Split(Money("$i.00", alphaAccount.commodity), alphaAccount.uid)
+            transaction.addSplit(split)
+            transaction.addSplit(split.createPair(bravoAccount.uid))
+            transactionsDbAdapter.addRecord(transaction)
+            transaction.uid
+        }
+        assertThat(accountsDbAdapter.getAccountBalance(alphaAccount.uid).isAmountZero).isFalse()
+
+        val moved = transactionsDbAdapter.moveTransactions(
+            transactionUIDs.take(2),
+            alphaAccount.uid,
+            bravoAccount.uid
+        )
+        assertThat(moved).isEqualTo(2)
+        assertThat(transactionsDbAdapter.getAllTransactionsForAccount(alphaAccount.uid)).hasSize(1)
+        assertThat(accountsDbAdapter.getAccountBalance(alphaAccount.uid).abs())
+            .isEqualTo(Money("3.00", alphaAccount.commodity))
+
+        val deleted = transactionsDbAdapter.deleteTransactions(transactionUIDs + "unknown")
+        assertThat(deleted).isEqualTo(3)
+        assertThat(transactionsDbAdapter.recordsCount).isZero()
+        assertThat(splitsDbAdapter.recordsCount).isZero()
+        assertThat(accountsDbAdapter.getAccountBalance(alphaAccount.uid).isAmountZero).isTrue()
+    }
+
+    @Test
+    fun transactionInfoShouldFollowSplitChanges() {
+        val transaction = Transaction("Info")
+        val split = Split(Money("5.00", alphaAccount.commodity), alphaAccount.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(bravoAccount.uid))
+        transactionsDbAdapter.addRecord(transaction)
+        val twoSplits = TransactionInfoEntry.COLUMN_SPLIT_COUNT + " = 2"
+        assertThat(accountsDbAdapter.getTransactionMaxSplitNum(alphaAccount.uid)).isEqualTo(2)
+        assertThat(transactionsDbAdapter.getRecordsCount(twoSplits, null)).isOne()
+
+        val extraSplit = Split(Money("1.00", alphaAccount.commodity), bravoAccount.uid)
+        extraSplit.transactionUID = transaction.uid
+        splitsDbAdapter.addRecord(extraSplit)
+        assertThat(accountsDbAdapter.getTransactionMaxSplitNum(alphaAccount.uid)).isEqualTo(3)
+
+        assertThat(transactionsDbAdapter.getRecordsCount(twoSplits, null)).isZero()
+
+        transactionsDbAdapter.deleteRecord(transaction.uid)
+        assertThat(accountsDbAdapter.getTransactionMaxSplitNum(alphaAccount.uid)).isZero()
+        assertThat(transactionsDbAdapter.getRecordsCount(null, null)).isZero()
+    }
+
     @Test
     fun deletingTransactionsShouldDeleteSplits() {
         val transaction = Transaction("")
@@ -136,6 +223,169 @@ class TransactionsDbAdapterTest : GnuCashTest() {
         assertThat(savedBalance.commodity).isEqualTo(secondSplitAmount.commodity)
     }
 
+    @Test
+    fun suggestionsShouldMatchWordPrefixes() {
+        val older = Transaction("Starbucks coffee")
+        older.setTime(System.currentTimeMillis() - 10000)
+        older.addSplit(Split(Money("2.50", alphaAccount.commodity), alphaAccount.uid))
+        transactionsDbAdapter.addRecord(older)
+
+        var cursor = transactionsDbAdapter.fetchTransactionSuggestions("cof", alphaAccount.uid)
+        assertThat(cursor.count).isEqualTo(1)
+        cursor.close()
+
+        // Saved after the account was indexed.
+        val newer = Transaction("Coffee beans")
+        newer.addSplit(Split(Money("9.99", alphaAccount.commodity), alphaAccount.uid))
+        transactionsDbAdapter.addRecord(newer)
+
+        cursor = transactionsDbAdapter.fetchTransactionSuggestions("COF", alphaAccount.uid)
+        assertThat(cursor.count).isEqualTo(2)
+        assertThat(cursor.moveToFirst()).isTrue()
+        assertThat(cursor.getString(cursor.getColumnIndexOrThrow(TransactionEntry.COLUMN_UID)))
+            .isEqualTo(newer.uid)
+        cursor.close()
+
+        cursor = transactionsDbAdapter.fetchTransactionSuggestions("cof", bravoAccount.uid)
+        assertThat(cursor.count).isZero()
+        cursor.close()
+
+        transactionsDbAdapter.deleteRecord(newer.uid)
+        cursor = transactionsDbAdapter.fetchTransactionSuggestions("cof", alphaAccount.uid)
+        assertThat(cursor.count).isEqualTo(1)
+        cursor.close()
+    }
+
+    @Test
+    fun searchShouldMatchNotesMemosAndAmounts() {
+        val groceries = Transaction("Weekly groceries")
+        groceries.note = "Farmers market"
+        groceries.setTime(System.currentTimeMillis() - 10000)
+        val split = Split(Money("42.50", alphaAccount.commodity), alphaAccount.uid)
+        split.memo = "organic vegetables"
+        groceries.addSplit(split)
+        transactionsDbAdapter.addRecord(groceries)
+
+        val rent = Transaction("Rent")
+        rent.addSplit(Split(Money("800", alphaAccount.commodity), bravoAccount.uid))
+        transactionsDbAdapter.addRecord(rent)
+
+        var cursor = transactionsDbAdapter.searchTransactions("veg", null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isEqualTo(1)
+        cursor.close()
+
+        cursor = transactionsDbAdapter.searchTransactions("\"farmers market\"", null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isEqualTo(1)
+        cursor.close()
+
+        cursor = transactionsDbAdapter.searchTransactions("\"market farmers\"", null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isZero()
+        cursor.close()
+
+        cursor = transactionsDbAdapter.searchTransactions("42.50", null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isEqualTo(1)
+        cursor.close()
+
+        cursor = transactionsDbAdapter.searchTransactions("rent", alphaAccount.uid, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isZero()
+        cursor.close()
+
+        // Empty query pages through all the transactions, newest first.
+        cursor = transactionsDbAdapter.searchTransactions("", null, Long.MIN_VALUE, Long.MAX_VALUE, 1, 1)
+        assertThat(cursor.count).isEqualTo(1)
+        assertThat(cursor.moveToFirst()).isTrue()
+        assertThat(cursor.getString(cursor.getColumnIndexOrThrow(TransactionEntry.COLUMN_UID)))
+            .isEqualTo(groceries.uid)
+        cursor.close()
+
+        transactionsDbAdapter.deleteRecord(groceries.uid)
+        cursor = transactionsDbAdapter.searchTransactions("groceries", null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        assertThat(cursor.count).isZero()
+        cursor.close()
+    }
+
+    @Test
+    fun searchIndexShouldFollowSplitAndBulkWrites() {
+        val transaction = Transaction("Hardware store")
+        transaction.addSplit(Split(Money("12.00", alphaAccount.commodity), alphaAccount.uid))
+        transactionsDbAdapter.addRecord(transaction)
+
+        // A split saved on its own is indexed with its transaction.
+        val split = Split(Money("3.00", alphaAccount.commodity), bravoAccount.uid)
+        split.memo = "screwdriver"
+        split.transactionUID = transaction.uid
+        splitsDbAdapter.addRecord(split)
+        assertThat(searchCount("screwdriver")).isOne()
+
+        // Bulk writes index their transactions, and replace the documents of the previous records.
+        val bulk = (0 until 3).map { i ->
+            val t = Transaction("Bulk $i")
+            t.addSplit(Split(Money("1.00", alphaAccount.commodity), alphaAccount.uid))
+            t
+        }
+        transactionsDbAdapter.bulkAddRecords(bulk, DatabaseAdapter.UpdateMethod.insert)
+        assertThat(searchCount("bulk")).isEqualTo(3)
+        bulk[0].description = "Replaced"
+        transactionsDbAdapter.bulkAddRecords(listOf(bulk[0]), DatabaseAdapter.UpdateMethod.replace)
+        assertThat(searchCount("bulk")).isEqualTo(2)
+        assertThat(searchCount("replaced")).isOne()
+
+        // While suspended, as during an import, the transactions are indexed only when rebuilt.
+        transactionsDbAdapter.suspendSearchIndex()
+        val imported = Transaction("Imported")
+        imported.addSplit(Split(Money("5.00", alphaAccount.commodity), alphaAccount.uid))
+        transactionsDbAdapter.addRecord(imported)
+        assertThat(searchCount("imported")).isZero()
+        transactionsDbAdapter.rebuildSearchIndex()
+        assertThat(searchCount("imported")).isOne()
+        assertThat(searchCount("screwdriver")).isOne()
+    }
+
+    private fun searchCount(query: String): Int {
+        val cursor = transactionsDbAdapter.searchTransactions(query, null, Long.MIN_VALUE, Long.MAX_VALUE, 10, 0)
+        try {
+            return cursor.count
+        } finally {
+            cursor.close()
+        }
+    }
+
+    @Test
+    fun pagedTransactionsShouldMatchAllTransactions() {
+        val time = System.currentTimeMillis()
+        for (i in 0 until 10) {
+            val transaction = Transaction("Transaction $i")
+            // Some transactions share the same time, to page through ties.
+            transaction.setTime(time - (i / 3) * 1000L)
+            transaction.addSplit(Split(Money("1.00", alphaAccount.commodity), alphaAccount.uid))
+            transactionsDbAdapter.addRecord(transaction)
+        }
+
+        val expected = transactionsDbAdapter.fetchAllTransactionsForAccount(alphaAccount.uid)
+        val paged = transactionsDbAdapter.fetchPagedTransactionsForAccount(alphaAccount.uid, 3)
+        assertThat(paged.count).isEqualTo(10)
+        assertThat(expected.count).isEqualTo(10)
+
+        val uidColumn = paged.getColumnIndexOrThrow(TransactionEntry.COLUMN_UID)
+        val timestampColumn = paged.getColumnIndexOrThrow(TransactionEntry.COLUMN_TIMESTAMP)
+        val uids = mutableSetOf<String>()
+        var previousTimestamp = Long.MAX_VALUE
+        while (paged.moveToNext()) {
+            val timestamp = paged.getLong(timestampColumn)
+            assertThat(timestamp).isLessThanOrEqualTo(previousTimestamp)
+            previousTimestamp = timestamp
+            uids.add(paged.getString(uidColumn))
+        }
+        assertThat(uids).hasSize(10)
+
+        // Jumping back to an evicted page fetches it again.
+        assertThat(paged.moveToPosition(0)).isTrue()
+        assertThat(paged.moveToPosition(9)).isTrue()
+        assertThat(paged.moveToPosition(10)).isFalse()
+        expected.close()
+        paged.close()
+    }
+
     companion object {
         private const val ALPHA_ACCOUNT_NAME = "Alpha"
         private const val BRAVO_ACCOUNT_NAME = "Bravo"
@@ -15,7 +15,9 @@
  */
 package org.gnucash.android.test.unit.export
 
+import android.preference.PreferenceManager
 import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.R
 import org.gnucash.android.app.GnuCashApplication
 import org.gnucash.android.export.ExportFormat
 import org.gnucash.android.export.ExportParams
@@ -23,6 +25,8 @@ import org.gnucash.android.export.Exporter.ExporterException
 import org.gnucash.android.export.ofx.OfxExporter
 import org.gnucash.android.export.ofx.OfxHelper
 import org.gnucash.android.model.Account
+import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
 import org.gnucash.android.model.Money.Companion.createZeroInstance
 import org.gnucash.android.model.Split
 import org.gnucash.android.model.Transaction
@@ -30,9 +34,18 @@ import org.gnucash.android.test.unit.GnuCashTest
 import org.gnucash.android.util.TimestampHelper
 import org.junit.Assert.assertThrows
 import org.junit.Test
+import org.w3c.dom.Node
+import org.xml.sax.InputSource
 import java.io.File
+import java.io.StringReader
+import java.io.StringWriter
 import java.util.Calendar
 import java.util.TimeZone
+import javax.xml.parsers.DocumentBuilderFactory
+import javax.xml.transform.OutputKeys
+import javax.xml.transform.TransformerFactory
+import javax.xml.transform.dom.DOMSource
+import javax.xml.transform.stream.StreamResult
 
 class OfxExporterTest : GnuCashTest() {
     /**
@@ -84,6 +97,142 @@ class OfxExporterTest : GnuCashTest() {
         file.delete()
     }
 
+    @Test
+    fun testGenerateOFXExport_shouldWriteAccountStatements() {
+        val accountsDbAdapter = GnuCashApplication.getAccountsDbAdapter()!!
+
+        val account = Account("Basic Account", Commodity.USD)
+        val transferAccount = Account("Transfer Account", Commodity.USD)
+        accountsDbAdapter.addRecord(account)
+        accountsDbAdapter.addRecord(transferAccount)
+        val transaction = Transaction("Fish & chips")
+        transaction.note = "<lunch>"
+        val split = Split(Money("12.50", "USD"), account.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(transferAccount.uid))
+        GnuCashApplication.getTransactionDbAdapter()!!.addRecord(transaction)
+
+        val exportParameters = ExportParams(ExportFormat.OFX)
+        exportParameters.exportStartTime = TimestampHelper.getTimestampFromEpochZero()
+        exportParameters.exportTarget = ExportParams.ExportTarget.SD_CARD
+        exportParameters.setDeleteTransactionsAfterExport(false)
+
+        val exporter = OfxExporter(
+            context, exportParameters,
+            GnuCashApplication.getActiveBookUID()!!
+        )
+        val exportedFile = exporter.export()
+        val file = File(exportedFile!!.path)
+        val text = file.readText()
+        file.delete()
+
+        assertThat(text).startsWith(OfxHelper.OFX_SGML_HEADER + "\n<OFX>\n")
+        val document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(InputSource(StringReader(text.substring(text.indexOf("<OFX>")))))
+        val statements = document.getElementsByTagName(OfxHelper.TAG_STATEMENT_TRANSACTIONS)
+        assertThat(statements.length).isEqualTo(2)
+        val statementTransactions = document.getElementsByTagName(OfxHelper.TAG_STATEMENT_TRANSACTION)
+        assertThat(statementTransactions.length).isEqualTo(2)
+        val names = document.getElementsByTagName(OfxHelper.TAG_NAME)
+        assertThat(names.item(0).textContent).isEqualTo("Fish & chips")
+        val memos = document.getElementsByTagName(OfxHelper.TAG_MEMO)
+        assertThat(memos.item(0).textContent).isEqualTo("<lunch>")
+        val balances = document.getElementsByTagName(OfxHelper.TAG_BALANCE_AMOUNT)
+        assertThat(balances.item(0).textContent).isIn("12.50", "-12.50")
+    }
+
+    /**
+     * The streamed document should have the same bytes as the document
+     * written by the identity XML transformer of the DOM exporter.
+     */
+    @Test
+    fun testGenerateOFXExport_shouldMatchTransformerOutput() {
+        val accountsDbAdapter = GnuCashApplication.getAccountsDbAdapter()!!
+        val transactionsDbAdapter = GnuCashApplication.getTransactionDbAdapter()!!
+
+        val account = Account("Basic Account", Commodity.USD)
+        val transferAccount = Account("Transfer Account", Commodity.USD)
+        val scheduledAccount = Account("Scheduled Account", Commodity.USD)
+        accountsDbAdapter.addRecord(account)
+        accountsDbAdapter.addRecord(transferAccount)
+        accountsDbAdapter.addRecord(scheduledAccount)
+        val transaction = Transaction("Fish & chips")
+        transaction.note = "<lunch>"
+        val split = Split(Money("12.50", "USD"), account.uid)
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(transferAccount.uid))
+        transactionsDbAdapter.addRecord(transaction)
+        val template = Transaction("Rent")
+        template.isTemplate = true
+        val templateSplit = Split(Money("5.00", "USD"), scheduledAccount.uid)
+        template.addSplit(templateSplit)
+        template.addSplit(templateSplit.createPair(transferAccount.uid))
+        transactionsDbAdapter.addRecord(template)
+
+        for (useXmlHeader in listOf(false, true)) {
+            PreferenceManager.getDefaultSharedPreferences(context).edit()
+                .putBoolean(context.getString(R.string.key_xml_ofx_header), useXmlHeader)
+                .commit()
+            val exportParameters = ExportParams(ExportFormat.OFX)
+            exportParameters.exportStartTime = TimestampHelper.getTimestampFromEpochZero()
+            exportParameters.exportTarget = ExportParams.ExportTarget.SD_CARD
+            exportParameters.setDeleteTransactionsAfterExport(false)
+
+            val exporter = OfxExporter(
+                context, exportParameters,
+                GnuCashApplication.getActiveBookUID()!!
+            )
+            val exportedFile = exporter.export()
+            val file = File(exportedFile!!.path)
+            val text = file.readText()
+            file.delete()
+
+            assertThat(text).isEqualTo(transform(text, useXmlHeader))
+            // The account with only scheduled transactions is not exported.
+            assertThat(text).doesNotContain(scheduledAccount.uid)
+        }
+    }
+
+    /**
+     * Writes the OFX element of the document the same way as the DOM exporter did.
+     */
+    private fun transform(text: String, useXmlHeader: Boolean): String {
+        val parsed = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(InputSource(StringReader(text.substring(text.indexOf("<OFX>")))))
+        removeWhitespace(parsed.documentElement)
+        val document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()
+        val root = document.importNode(parsed.documentElement, true)
+        document.appendChild(document.createProcessingInstruction("OFX", OfxHelper.OFX_HEADER))
+        document.appendChild(root)
+
+        val transformer = TransformerFactory.newInstance().newTransformer()
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2")
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes")
+        val writer = StringWriter()
+        if (useXmlHeader) {
+            transformer.transform(DOMSource(document), StreamResult(writer))
+        } else {
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes")
+            writer.write(OfxHelper.OFX_SGML_HEADER)
+            writer.write("\n")
+            transformer.transform(DOMSource(root), StreamResult(writer))
+        }
+        return writer.toString()
+    }
+
+    private fun removeWhitespace(node: Node) {
+        var child = node.firstChild
+        while (child != null) {
+            val next = child.nextSibling
+            if (child.nodeType == Node.TEXT_NODE && child.textContent.isBlank()) {
+                node.removeChild(child)
+            } else {
+                removeWhitespace(child)
+            }
+            child = next
+        }
+    }
+
     @Test
     fun testDateTime() {
         val tz = TimeZone.getTimeZone("EST")
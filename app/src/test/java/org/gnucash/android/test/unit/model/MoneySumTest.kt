@@ -0,0 +1,95 @@
+package org.gnucash.android.test.unit.model
+
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
+import org.gnucash.android.model.Money.Companion.createZeroInstance
+import org.gnucash.android.model.MoneySum
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import java.math.BigDecimal
+import java.math.RoundingMode
+
+class MoneySumTest : GnuCashTest() {
+    @Test
+    fun shouldAddAndSubtract() {
+        val sum = MoneySum(Commodity.USD)
+        assertThat(sum.isZero).isTrue()
+        sum.add(Money("12.50", Commodity.USD))
+        sum.subtract(Money("2.25", Commodity.USD))
+        sum.add(1005, 100)
+        sum.subtract(5, 10)
+        assertThat(sum.toMoney()).isEqualTo(Money("19.80", Commodity.USD))
+    }
+
+    @Test
+    fun shouldNotOverflow() {
+        val sum = MoneySum(Commodity.USD)
+        sum.add(Long.MAX_VALUE, 100)
+        sum.add(Long.MAX_VALUE, 100)
+        sum.add(1, 1000)
+        val expected = BigDecimal.valueOf(Long.MAX_VALUE, 2)
+            .multiply(BigDecimal(2))
+            .add(BigDecimal("0.001"))
+        assertThat(sum.toMoney().toBigDecimal())
+            .isEqualByComparingTo(expected.setScale(2, RoundingMode.HALF_UP))
+    }
+
+    @Test
+    fun shouldKeepPreciseAmounts() {
+        val sum = MoneySum(Commodity.USD)
+        val precise = Money("1.23", Commodity.USD).times(BigDecimal("0.333333333333333333333"))
+        sum.add(precise)
+        sum.add(precise)
+        sum.add(precise)
+        assertThat(sum.toMoney()).isEqualTo(
+            createZeroInstance(Commodity.USD) + precise + precise + precise
+        )
+    }
+
+    @Test
+    fun shouldAdoptCommodityWhileZero() {
+        val sum = MoneySum(Commodity.USD)
+        sum.add(Money("5", Commodity.EUR))
+        assertThat(sum.commodity).isEqualTo(Commodity.EUR)
+        assertThrows(Money.CurrencyMismatchException::class.java) {
+            sum.add(Money("5", Commodity.USD))
+        }
+    }
+
+    @Test
+    fun shouldMatchMoneyPlusForManyAmounts() {
+        val count = 10_000
+        val amounts = Array(count) { i -> Money(BigDecimal.valueOf(i * 37L % 100_000L - 50_000L, 2), Commodity.USD) }
+        val numerators = LongArray(count) { i -> amounts[i].numerator }
+
+        val expected = sumMoney(amounts)
+        assertThat(sumMoneySum(amounts)).isEqualTo(expected)
+        assertThat(sumNumerators(numerators)).isEqualTo(expected)
+    }
+
+    private fun sumMoney(amounts: Array<Money>): Money {
+        var total = createZeroInstance(Commodity.USD)
+        for (amount in amounts) {
+            total += amount
+        }
+        return total
+    }
+
+    private fun sumMoneySum(amounts: Array<Money>): Money {
+        val total = MoneySum(Commodity.USD)
+        for (amount in amounts) {
+            total.add(amount)
+        }
+        return total.toMoney()
+    }
+
+    private fun sumNumerators(numerators: LongArray): Money {
+        val total = MoneySum(Commodity.USD)
+        for (numerator in numerators) {
+            total.add(numerator, 100)
+        }
+        return total.toMoney()
+    }
+}
@@ -0,0 +1,77 @@
+package org.gnucash.android.test.unit.report
+
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.db.adapter.AccountsDbAdapter
+import org.gnucash.android.db.adapter.PricesDbAdapter
+import org.gnucash.android.db.adapter.TransactionsDbAdapter
+import org.gnucash.android.model.Account
+import org.gnucash.android.model.AccountType
+import org.gnucash.android.model.Commodity
+import org.gnucash.android.model.Money
+import org.gnucash.android.model.Split
+import org.gnucash.android.model.Transaction
+import org.gnucash.android.model.TransactionType
+import org.gnucash.android.test.unit.GnuCashTest
+import org.gnucash.android.ui.report.ReportDataset
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+class ReportDatasetTest : GnuCashTest() {
+    private lateinit var accountsDbAdapter: AccountsDbAdapter
+    private lateinit var transactionsDbAdapter: TransactionsDbAdapter
+    private lateinit var pricesDbAdapter: PricesDbAdapter
+
+    @Before
+    fun setUp() {
+        accountsDbAdapter = AccountsDbAdapter.getInstance()
+        transactionsDbAdapter = TransactionsDbAdapter.getInstance()
+        pricesDbAdapter = PricesDbAdapter.getInstance()
+        ReportDataset.invalidate()
+    }
+
+    @After
+    fun tearDown() {
+        accountsDbAdapter.deleteAllRecords()
+        ReportDataset.invalidate()
+    }
+
+    @Test
+    fun datasetShouldBeCachedUntilTheBookChanges() {
+        val expense = Account("Food", Commodity.USD)
+        expense.accountType = AccountType.EXPENSE
+        val cash = Account("Cash", Commodity.USD)
+        cash.accountType = AccountType.ASSET
+        accountsDbAdapter.addRecord(expense)
+        accountsDbAdapter.addRecord(cash)
+        addTransaction(expense, cash, "12.50")
+
+        val periods = longArrayOf(AccountsDbAdapter.ALWAYS, System.currentTimeMillis() + 86400000L)
+        val dataset = getDataset(periods)
+        assertThat(dataset.getTotal(0, AccountType.EXPENSE)).isEqualTo(Money("12.50", "USD"))
+        assertThat(getDataset(periods)).isSameAs(dataset)
+
+        // Caching the balances of the accounts does not change the data of the reports.
+        accountsDbAdapter.getAllAccountBalances()
+        assertThat(getDataset(periods)).isSameAs(dataset)
+
+        addTransaction(expense, cash, "7.50")
+        val rebuilt = getDataset(periods)
+        assertThat(rebuilt).isNotSameAs(dataset)
+        assertThat(rebuilt.getTotal(0, AccountType.EXPENSE)).isEqualTo(Money("20.00", "USD"))
+        assertThat(getDataset(periods)).isSameAs(rebuilt)
+    }
+
+    private fun getDataset(periods: LongArray): ReportDataset {
+        return ReportDataset.get(accountsDbAdapter, pricesDbAdapter, periods, Commodity.USD, null)
+    }
+
+    private fun addTransaction(debit: Account, credit: Account, amount: String) {
+        val transaction = Transaction("Groceries")
+        val split = Split(Money(amount, "USD"), debit.uid)
+        split.type = TransactionType.DEBIT
+        transaction.addSplit(split)
+        transaction.addSplit(split.createPair(credit.uid))
+        transactionsDbAdapter.addRecord(transaction)
+    }
+}
@@ -0,0 +1,77 @@
+package org.gnucash.android.util
+
+import android.os.CancellationSignal
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BookTaskRunnerTest : GnuCashTest() {
+    @Test
+    fun shouldRunTaskForEachBook() {
+        val bookUIDs = listOf("book1", "book2", "book3", "book4", "book5")
+        val processed = Collections.synchronizedSet(HashSet<String>())
+
+        val result = BookTaskRunner.run(bookUIDs, { bookUID, _ ->
+            processed.add(bookUID)
+            bookUID != "book2"
+        }, null)
+
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(bookUIDs)
+        assertThat(result.succeeded).containsExactly("book1", "book3", "book4", "book5")
+        assertThat(result.failed).containsOnlyKeys("book2")
+        assertThat(result.isSuccessful).isFalse()
+    }
+
+    @Test
+    fun shouldReportErrors() {
+        val error = IllegalStateException("Corrupt book")
+        val result = BookTaskRunner.run(listOf("book1", "book2"), { bookUID, _ ->
+            if (bookUID == "book1") throw error
+            true
+        }, null)
+
+        assertThat(result.succeeded).containsExactly("book2")
+        assertThat(result.failed["book1"]).isSameAs(error)
+    }
+
+    @Test
+    fun shouldCancelAllTasks() {
+        val bookUIDs = (1..20).map { "book$it" }
+        val cancellationSignal = CancellationSignal()
+        val started = CountDownLatch(1)
+
+        val result = BookTaskRunner.run(bookUIDs, { _, signal ->
+            started.countDown()
+            cancellationSignal.cancel()
+            // Wait for the cancellation to reach this task.
+            while (!signal.isCanceled) {
+                Thread.sleep(1)
+            }
+            signal.throwIfCanceled()
+            true
+        }, cancellationSignal)
+
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(result.succeeded).isEmpty()
+        assertThat(result.cancelled).containsExactlyInAnyOrderElementsOf(bookUIDs)
+        assertThat(result.isSuccessful).isFalse()
+    }
+
+    @Test
+    fun shouldRunTasksInBackground() {
+        val callerThread = Thread.currentThread()
+        val threads = Collections.synchronizedList(ArrayList<Thread>())
+
+        val future = BookTaskRunner.runInBackground(listOf("book1", "book2")) { _, _ ->
+            threads.add(Thread.currentThread())
+            true
+        }
+
+        val result = future.get(1, TimeUnit.SECONDS)
+        assertThat(result.succeeded).containsExactly("book1", "book2")
+        assertThat(threads).hasSize(2).doesNotContain(callerThread)
+    }
+}
@@ -0,0 +1,32 @@
+package org.gnucash.android.util
+
+import android.util.Log
+import org.assertj.core.api.Assertions.assertThat
+import org.gnucash.android.test.unit.GnuCashTest
+import org.junit.After
+import org.junit.Test
+
+class LoggingTest : GnuCashTest() {
+    @After
+    fun tearDown() {
+        Logging.setMinPriority(Log.VERBOSE)
+    }
+
+    @Test
+    fun shouldGuardByPriority() {
+        assertThat(Logging.DEBUG).isTrue()
+
+        Logging.setMinPriority(Log.VERBOSE)
+        assertThat(Logging.isVerbose()).isTrue()
+        assertThat(Logging.isDebug()).isTrue()
+
+        Logging.setMinPriority(Log.DEBUG)
+        assertThat(Logging.isVerbose()).isFalse()
+        assertThat(Logging.isDebug()).isTrue()
+
+        Logging.setMinPriority(Log.INFO)
+        assertThat(Logging.isVerbose()).isFalse()
+        assertThat(Logging.isDebug()).isFalse()
+        assertThat(Logging.isLoggable(Log.WARN)).isTrue()
+    }
+}